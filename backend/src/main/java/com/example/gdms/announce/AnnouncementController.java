@@ -1,8 +1,7 @@
 package com.example.gdms.announce;
 
 import com.example.gdms.common.ApiResponse;
-import com.example.gdms.user.User;
-import com.example.gdms.user.UserRepository;
+import com.example.gdms.security.CurrentUser;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -11,7 +10,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 
@@ -19,11 +17,9 @@ import java.util.Map;
 @RequestMapping("/api/announcements")
 public class AnnouncementController {
     private final AnnouncementService service;
-    private final UserRepository userRepository;
 
-    public AnnouncementController(AnnouncementService service, UserRepository userRepository) {
+    public AnnouncementController(AnnouncementService service) {
         this.service = service;
-        this.userRepository = userRepository;
     }
 
     @GetMapping
@@ -38,32 +34,18 @@ public class AnnouncementController {
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String status   ,
             @RequestParam(required = false) Long createdBy,
-            Principal principal) {
+            CurrentUser user) {
         // 安全修复：非管理员和教师只能查看已发布的公告，且不能使用createdBy参数
-        boolean isAdminOrTeacher = false;
-        Long currentUserId = null;
-        
-        if (principal != null) {
-            User user = userRepository.findByUsername(principal.getName()).orElse(null);
-            if (user != null) {
-                isAdminOrTeacher = "ADMIN".equalsIgnoreCase(user.getRole()) || "TEACHER".equalsIgnoreCase(user.getRole());
-                currentUserId = user.getId();
-            }
-        }
+        boolean isAdminOrTeacher = user != null && (user.isAdmin() || user.isTeacher());
         
         // 非管理员和教师只能查看已发布的公告
         if (!isAdminOrTeacher) {
             status = "PUBLISHED";
             // 安全修复：防止IDOR漏洞，非管理员/教师不能使用createdBy参数查询其他用户的公告
             createdBy = null;
-        } else {
+        } else if (!user.isAdmin()) {
             // 安全修复：教师只能查看自己创建的公告（除非是管理员）
-            if (currentUserId != null && principal != null) {
-                User user = userRepository.findByUsername(principal.getName()).orElse(null);
-                if (user != null && !"ADMIN".equalsIgnoreCase(user.getRole())) {
-                    createdBy = currentUserId;
-                }
-            }
+            createdBy = user.id();
         }
         
         // 安全修复：限制分页大小，防止DoS攻击
@@ -90,7 +72,7 @@ public class AnnouncementController {
     }
 
     @GetMapping("/{id}")
-    public ApiResponse<Announcement> get(@PathVariable Long id, Principal principal) {
+    public ApiResponse<Announcement> get(@PathVariable Long id, CurrentUser user) {
         // 安全修复：改进异常处理，防止信息泄露
         Announcement announcement;
         try {
@@ -100,13 +82,7 @@ public class AnnouncementController {
         }
         
         // 非管理员和教师只能查看已发布的公告
-        boolean isAdminOrTeacher = false;
-        if (principal != null) {
-            User user = userRepository.findByUsername(principal.getName()).orElse(null);
-            if (user != null) {
-                isAdminOrTeacher = "ADMIN".equalsIgnoreCase(user.getRole()) || "TEACHER".equalsIgnoreCase(user.getRole());
-            }
-        }
+        boolean isAdminOrTeacher = user != null && (user.isAdmin() || user.isTeacher());
         
         if (!isAdminOrTeacher && !"PUBLISHED".equals(announcement.getStatus())) {
             throw new SecurityException("无权查看未发布的公告");
@@ -117,27 +93,23 @@ public class AnnouncementController {
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<Announcement> create(@RequestBody Announcement a, Principal principal) {
-        // 安全修复：确保principal不为null（虽然@PreAuthorize应该保证这一点，但双重检查更安全）
-        if (principal == null) {
+    public ApiResponse<Announcement> create(@RequestBody Announcement a, CurrentUser user) {
+        // 安全修复：确保当前用户不为null（虽然@PreAuthorize应该保证这一点，但双重检查更安全）
+        if (user == null) {
             throw new SecurityException("需要登录才能创建公告");
         }
         
         // 安全修复：忽略请求体中的createdBy，防止伪造创建者
-        User user = userRepository.findByUsername(principal.getName()).orElse(null);
-        if (user == null) {
-            throw new SecurityException("无法识别用户身份");
-        }
-        a.setCreatedBy(user.getId());
+        a.setCreatedBy(user.id());
         
         return ApiResponse.ok(service.create(a));
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<Announcement> update(@PathVariable Long id, @RequestBody Announcement a, Principal principal) {
-        // 安全修复：确保principal不为null
-        if (principal == null) {
+    public ApiResponse<Announcement> update(@PathVariable Long id, @RequestBody Announcement a, CurrentUser user) {
+        // 安全修复：确保当前用户不为null
+        if (user == null) {
             throw new SecurityException("需要登录才能修改公告");
         }
         
@@ -149,12 +121,8 @@ public class AnnouncementController {
         }
         
         // 检查权限：只有创建者或管理员可以编辑
-        User currentUser = userRepository.findByUsername(principal.getName()).orElse(null);
-        if (currentUser == null) {
-            throw new SecurityException("无法识别用户身份");
-        }
-        Long currentUserId = currentUser.getId();
-        boolean isAdmin = "ADMIN".equals(currentUser.getRole());
+        Long currentUserId = user.id();
+        boolean isAdmin = user.isAdmin();
         
         if (!isAdmin && (existing.getCreatedBy() == null || !existing.getCreatedBy().equals(currentUserId))) {
             throw new SecurityException("只能编辑自己创建的公告");
@@ -173,9 +141,9 @@ public class AnnouncementController {
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<?> delete(@PathVariable Long id, Principal principal) {
-        // 安全修复：确保principal不为null
-        if (principal == null) {
+    public ApiResponse<?> delete(@PathVariable Long id, CurrentUser user) {
+        // 安全修复：确保当前用户不为null
+        if (user == null) {
             throw new SecurityException("需要登录才能删除公告");
         }
         
@@ -187,12 +155,8 @@ public class AnnouncementController {
         }
         
         // 检查权限：只有创建者或管理员可以删除
-        User currentUser = userRepository.findByUsername(principal.getName()).orElse(null);
-        if (currentUser == null) {
-            throw new SecurityException("无法识别用户身份");
-        }
-        Long currentUserId = currentUser.getId();
-        boolean isAdmin = "ADMIN".equals(currentUser.getRole());
+        Long currentUserId = user.id();
+        boolean isAdmin = user.isAdmin();
         
         if (!isAdmin && (existing.getCreatedBy() == null || !existing.getCreatedBy().equals(currentUserId))) {
             throw new SecurityException("只能删除自己创建的公告");
@@ -204,9 +168,9 @@ public class AnnouncementController {
 
     @PostMapping("/{id}/publish")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<Announcement> publish(@PathVariable Long id, Principal principal) {
-        // 安全修复：确保principal不为null
-        if (principal == null) {
+    public ApiResponse<Announcement> publish(@PathVariable Long id, CurrentUser user) {
+        // 安全修复：确保当前用户不为null
+        if (user == null) {
             throw new SecurityException("需要登录才能发布公告");
         }
         
@@ -218,12 +182,8 @@ public class AnnouncementController {
         }
         
         // 检查权限：只有创建者或管理员可以发布
-        User currentUser = userRepository.findByUsername(principal.getName()).orElse(null);
-        if (currentUser == null) {
-            throw new SecurityException("无法识别用户身份");
-        }
-        boolean isAdmin = "ADMIN".equals(currentUser.getRole());
-        Long currentUserId = currentUser.getId();
+        Long currentUserId = user.id();
+        boolean isAdmin = user.isAdmin();
         
         if (!isAdmin && (existing.getCreatedBy() == null || !existing.getCreatedBy().equals(currentUserId))) {
             throw new SecurityException("只能发布自己创建的公告");
@@ -234,9 +194,9 @@ public class AnnouncementController {
 
     @GetMapping("/{id}/stats")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<Map<String, Object>> stats(@PathVariable Long id, Principal principal) {
-        // 安全修复：确保principal不为null
-        if (principal == null) {
+    public ApiResponse<Map<String, Object>> stats(@PathVariable Long id, CurrentUser user) {
+        // 安全修复：确保当前用户不为null
+        if (user == null) {
             throw new SecurityException("需要登录才能查看统计");
         }
         
@@ -248,12 +208,8 @@ public class AnnouncementController {
         }
         
         // 检查权限：只有创建者或管理员可以查看统计
-        User currentUser = userRepository.findByUsername(principal.getName()).orElse(null);
-        if (currentUser == null) {
-            throw new SecurityException("无法识别用户身份");
-        }
-        boolean isAdmin = "ADMIN".equals(currentUser.getRole());
-        Long currentUserId = currentUser.getId();
+        Long currentUserId = user.id();
+        boolean isAdmin = user.isAdmin();
         
         if (!isAdmin && (existing.getCreatedBy() == null || !existing.getCreatedBy().equals(currentUserId))) {
             throw new SecurityException("只能查看自己创建的公告统计");
@@ -263,12 +219,9 @@ public class AnnouncementController {
     }
 
     @PostMapping("/{id}/read")
-    public ApiResponse<AnnouncementRead> markRead(@PathVariable Long id, @RequestBody Map<String, Long> body, Principal principal) {
+    public ApiResponse<AnnouncementRead> markRead(@PathVariable Long id, @RequestBody Map<String, Long> body, CurrentUser user) {
         // 安全修复：忽略body中的userId，只使用当前登录用户的ID，防止伪造阅读记录
-        Long userId = null;
-        if (principal != null) {
-            userId = userRepository.findByUsername(principal.getName()).map(u -> u.getId()).orElse(null);
-        }
+        Long userId = user != null ? user.id() : null;
         if (userId == null) {
             throw new SecurityException("无法识别用户，请先登录");
         }
@@ -286,8 +239,8 @@ public class AnnouncementController {
     // 管理员功能：批量删除公告
     @DeleteMapping("/batch")
     @PreAuthorize("hasRole('ADMIN')")
-    public ApiResponse<?> batchDelete(@RequestBody Map<String, List<Long>> body, Principal principal) {
-        if (principal == null) {
+    public ApiResponse<?> batchDelete(@RequestBody Map<String, List<Long>> body, CurrentUser user) {
+        if (user == null) {
             throw new SecurityException("需要登录才能执行批量操作");
         }
         List<Long> ids = body.get("ids");
@@ -298,8 +251,8 @@ public class AnnouncementController {
     // 管理员功能：批量发布公告
     @PostMapping("/batch/publish")
     @PreAuthorize("hasRole('ADMIN')")
-    public ApiResponse<Map<String, Object>> batchPublish(@RequestBody Map<String, List<Long>> body, Principal principal) {
-        if (principal == null) {
+    public ApiResponse<Map<String, Object>> batchPublish(@RequestBody Map<String, List<Long>> body, CurrentUser user) {
+        if (user == null) {
             throw new SecurityException("需要登录才能执行批量操作");
         }
         List<Long> ids = body.get("ids");
@@ -310,8 +263,8 @@ public class AnnouncementController {
     // 管理员功能：获取公告统计信息
     @GetMapping("/statistics")
     @PreAuthorize("hasRole('ADMIN')")
-    public ApiResponse<Map<String, Object>> statistics(Principal principal) {
-        if (principal == null) {
+    public ApiResponse<Map<String, Object>> statistics(CurrentUser user) {
+        if (user == null) {
             throw new SecurityException("需要登录才能查看统计信息");
         }
         return ApiResponse.ok(service.getStatistics());
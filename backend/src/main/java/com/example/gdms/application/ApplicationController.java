@@ -1,8 +1,7 @@
 package com.example.gdms.application;
 
 import com.example.gdms.common.ApiResponse;
-import com.example.gdms.user.User;
-import com.example.gdms.user.UserRepository;
+import com.example.gdms.security.CurrentUser;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -12,7 +11,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 
@@ -20,22 +18,19 @@ import java.util.Map;
 @RequestMapping("/api/applications")
 public class ApplicationController {
     private final ApplicationService applicationService;
-    private final UserRepository userRepository;
 
-    public ApplicationController(ApplicationService applicationService, UserRepository userRepository) {
+    public ApplicationController(ApplicationService applicationService) {
         this.applicationService = applicationService;
-        this.userRepository = userRepository;
     }
 
     @PostMapping("/{type}")
     @PreAuthorize("hasRole('STUDENT')")
-    public ApiResponse<Application> create(@PathVariable String type, @RequestBody Map<String, Object> body, Principal principal) {
+    public ApiResponse<Application> create(@PathVariable String type, @RequestBody Map<String, Object> body, CurrentUser user) {
         Application a = new Application();
         a.setType(ApplicationType.valueOf(type.toUpperCase()));
         Long studentId = body.get("studentId") == null ? null : Long.parseLong(body.get("studentId").toString());
-        if (studentId == null && principal != null) {
-            studentId = userRepository.findByUsername(principal.getName())
-                    .map(User::getId).orElse(null);
+        if (studentId == null && user != null) {
+            studentId = user.id();
         }
         a.setStudentId(studentId);
         a.setTopicId(body.get("topicId") == null ? null : Long.parseLong(body.get("topicId").toString()));
@@ -52,11 +47,9 @@ public class ApplicationController {
     public ApiResponse<List<Application>> list(@RequestParam(value = "studentId", required = false) Long studentId,
                                   @RequestParam(value = "type", required = false) String type,
                                   @RequestParam(value = "status", required = false) String status,
-                                  Principal principal) {
-        if (studentId == null && principal != null) {
-            studentId = userRepository.findByUsername(principal.getName())
-                    .filter(u -> "STUDENT".equalsIgnoreCase(u.getRole()))
-                    .map(User::getId).orElse(null);
+                                  CurrentUser user) {
+        if (studentId == null && user != null && user.isStudent()) {
+            studentId = user.id();
         }
         ApplicationType at = type == null ? null : ApplicationType.valueOf(type.toUpperCase());
         Application.ApplicationStatus st = status == null ? null : Application.ApplicationStatus.valueOf(status.toUpperCase());
@@ -72,13 +65,10 @@ public class ApplicationController {
             @RequestParam(required = false) String type,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Long studentId,
-            Principal principal) {
+            CurrentUser user) {
         // 学生只能查看自己的申请
-        if (principal != null) {
-            User user = userRepository.findByUsername(principal.getName()).orElse(null);
-            if (user != null && "STUDENT".equalsIgnoreCase(user.getRole())) {
-                studentId = user.getId();
-            }
+        if (user != null && user.isStudent()) {
+            studentId = user.id();
         }
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
         ApplicationType appType = null;
@@ -102,31 +92,25 @@ public class ApplicationController {
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER','STUDENT')")
-    public ApiResponse<Application> get(@PathVariable Long id, Principal principal) {
+    public ApiResponse<Application> get(@PathVariable Long id, CurrentUser user) {
         Application app = applicationService.getById(id);
         // 学生只能查看自己的申请
-        if (principal != null) {
-            User user = userRepository.findByUsername(principal.getName()).orElse(null);
-            if (user != null && "STUDENT".equalsIgnoreCase(user.getRole()) && !user.getId().equals(app.getStudentId())) {
-                throw new SecurityException("无权查看他人申请");
-            }
+        if (user != null && user.isStudent() && !user.id().equals(app.getStudentId())) {
+            throw new SecurityException("无权查看他人申请");
         }
         return ApiResponse.ok(app);
     }
 
     @PostMapping("/{id}/review")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<Application> review(@PathVariable Long id, @RequestBody Map<String, String> body, Principal principal) {
+    public ApiResponse<Application> review(@PathVariable Long id, @RequestBody Map<String, String> body, CurrentUser user) {
         String decisionStr = body.getOrDefault("decision", "APPROVED");
         String comment = body.getOrDefault("comment", "");
         if (comment == null || comment.trim().isEmpty()) {
             throw new IllegalArgumentException("审批意见不能为空");
         }
         Application.ApplicationStatus decision = Application.ApplicationStatus.valueOf(decisionStr);
-        Long actorId = null;
-        if (principal != null) {
-            actorId = userRepository.findByUsername(principal.getName()).map(User::getId).orElse(null);
-        }
+        Long actorId = user != null ? user.id() : null;
         return ApiResponse.ok(applicationService.review(id, actorId, decision, comment));
     }
 
@@ -137,21 +121,15 @@ public class ApplicationController {
 
     @PostMapping("/{id}/withdraw")
     @PreAuthorize("hasRole('STUDENT')")
-    public ApiResponse<Application> withdraw(@PathVariable Long id, Principal principal) {
-        Long studentId = null;
-        if (principal != null) {
-            studentId = userRepository.findByUsername(principal.getName()).map(User::getId).orElse(null);
-        }
+    public ApiResponse<Application> withdraw(@PathVariable Long id, CurrentUser user) {
+        Long studentId = user != null ? user.id() : null;
         return ApiResponse.ok(applicationService.withdraw(id, studentId));
     }
 
     @PostMapping("/{id}/resubmit")
     @PreAuthorize("hasRole('STUDENT')")
-    public ApiResponse<Application> resubmit(@PathVariable Long id, @RequestBody Map<String, String> body, Principal principal) {
-        Long studentId = null;
-        if (principal != null) {
-            studentId = userRepository.findByUsername(principal.getName()).map(User::getId).orElse(null);
-        }
+    public ApiResponse<Application> resubmit(@PathVariable Long id, @RequestBody Map<String, String> body, CurrentUser user) {
+        Long studentId = user != null ? user.id() : null;
         String payload = body.getOrDefault("payload", "");
         if (payload == null || payload.trim().isEmpty()) {
             throw new IllegalArgumentException("申请内容不能为空");
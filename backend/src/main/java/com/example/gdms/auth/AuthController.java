@@ -1,8 +1,8 @@
 package com.example.gdms.auth;
 
+import com.example.gdms.security.AuthUser;
 import com.example.gdms.security.JwtUtil;
 import com.example.gdms.user.User;
-import com.example.gdms.user.UserRepository;
 import com.example.gdms.user.UserService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -11,10 +11,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -23,23 +23,27 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
     private final UserService userService;
-    private final UserRepository userRepository;
+    private final LoginExecutor loginExecutor;
 
-    public AuthController(AuthenticationManager authenticationManager, JwtUtil jwtUtil, UserService userService, UserRepository userRepository) {
+    public AuthController(AuthenticationManager authenticationManager, JwtUtil jwtUtil, UserService userService, LoginExecutor loginExecutor) {
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
         this.userService = userService;
-        this.userRepository = userRepository;
+        this.loginExecutor = loginExecutor;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody @Valid LoginRequest req) {
-        Authentication auth = authenticationManager.authenticate(
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody @Valid LoginRequest req) {
+        // 密码校验在登录专用线程池中执行，不占用请求线程
+        return loginExecutor.submit(() -> authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword())
-        );
-        UserDetails details = (UserDetails) auth.getPrincipal();
-        User u = userRepository.findByUsername(details.getUsername()).orElseThrow();
-        String token = jwtUtil.generateToken(details.getUsername(), Map.of(
+        )).thenApply(this::issueToken);
+    }
+
+    private ResponseEntity<?> issueToken(Authentication auth) {
+        // 认证主体已携带用户ID、角色和姓名，无需再查询 users 表
+        AuthUser u = (AuthUser) auth.getPrincipal();
+        String token = jwtUtil.generateToken(u.getUsername(), Map.of(
                 "role", u.getRole(),
                 "fullName", u.getFullName()
         ));
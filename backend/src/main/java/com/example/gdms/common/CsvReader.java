@@ -0,0 +1,106 @@
+package com.example.gdms.common;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式 CSV 读取器（RFC 4180）：逐条返回记录，不把整个文件读入内存。
+ * 支持引号包裹的字段、字段内的逗号/换行、"" 转义以及 UTF-8 BOM。
+ */
+public class CsvReader implements Closeable {
+    private final Reader in;
+    private int pushback = -2;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    public CsvReader(Reader reader) {
+        this.in = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+    }
+
+    /**
+     * 读取下一条记录，文件结束时返回 null。空行返回只含一个空字符串的列表，可用 {@link #isBlank} 判断。
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') c = read();
+        }
+        if (c == -1) return null;
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("第 " + recordLine + " 行：引号未闭合");
+                }
+                if (c == '"') {
+                    int n = read();
+                    if (n != '"') {
+                        quoted = false;
+                        c = n;
+                        continue;
+                    }
+                    sb.append('"');
+                } else {
+                    if (c == '\n') line++;
+                    sb.append((char) c);
+                }
+            } else if (c == -1 || c == '\n' || c == '\r') {
+                fields.add(sb.toString());
+                if (c == '\r') {
+                    int n = read();
+                    if (n != '\n') pushback = n;
+                }
+                if (c != -1) line++;
+                return fields;
+            } else if (c == ',') {
+                fields.add(sb.toString());
+                sb.setLength(0);
+                fieldStart = true;
+                c = read();
+                continue;
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else {
+                sb.append((char) c);
+            }
+            fieldStart = false;
+            c = read();
+        }
+    }
+
+    /** 最近一次 {@link #next()} 返回记录的起始行号（从 1 开始）。 */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    public static boolean isBlank(List<String> record) {
+        for (String f : record) {
+            if (!f.isBlank()) return false;
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (pushback != -2) {
+            int c = pushback;
+            pushback = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.gdms.common;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 流式 CSV 写出器（RFC 4180），与 {@link CsvReader} 对应：逐行写出，不在内存中拼接整个文件。
+ * 含逗号、引号、换行或首尾空白的字段用引号包裹，字段内引号写作 ""；null 写为空字段。
+ */
+public class CsvWriter implements Closeable, Flushable {
+    private final Writer out;
+    private boolean rowStart = true;
+
+    public CsvWriter(Writer writer) {
+        this.out = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, 64 * 1024);
+    }
+
+    /** 写出一个字段。 */
+    public CsvWriter field(Object value) throws IOException {
+        if (!rowStart) out.write(',');
+        rowStart = false;
+        if (value == null) return this;
+        String s = value.toString();
+        if (needsQuote(s)) {
+            out.write('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"') out.write('"');
+                out.write(c);
+            }
+            out.write('"');
+        } else {
+            out.write(s);
+        }
+        return this;
+    }
+
+    /** 结束当前记录（CRLF）。 */
+    public void endRow() throws IOException {
+        out.write("\r\n");
+        rowStart = true;
+    }
+
+    public void row(Object... values) throws IOException {
+        for (Object v : values) field(v);
+        endRow();
+    }
+
+    private static boolean needsQuote(String s) {
+        if (s.isEmpty()) return false;
+        if (Character.isWhitespace(s.charAt(0)) || Character.isWhitespace(s.charAt(s.length() - 1))) return true;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
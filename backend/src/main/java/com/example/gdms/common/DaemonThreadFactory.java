@@ -0,0 +1,23 @@
+package com.example.gdms.common;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台线程池使用的线程工厂：守护线程，按 前缀+序号 命名，不阻止进程退出。
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+    private final String prefix;
+    private final AtomicInteger seq = new AtomicInteger();
+
+    public DaemonThreadFactory(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, prefix + seq.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.gdms.common;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 后台导入任务的进度与逐行错误报告，前端轮询读取。
+ * 计数器由导入线程更新，查询线程读取，均为线程安全；错误明细最多保留 {@link #MAX_ERRORS} 条。
+ */
+public class ImportReport {
+    public static final int MAX_ERRORS = 1000;
+
+    public enum Status { PENDING, RUNNING, SUCCEEDED, FAILED }
+
+    public record RowError(long row, String message) {}
+
+    private final String id = UUID.randomUUID().toString();
+    private final String type;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile Status status = Status.PENDING;
+    private volatile String message;
+    private volatile LocalDateTime finishedAt;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<RowError> errors = new ArrayList<>();
+
+    public ImportReport(String type) {
+        this.type = type;
+    }
+
+    public void start() {
+        status = Status.RUNNING;
+    }
+
+    public void succeed() {
+        finish(Status.SUCCEEDED, null);
+    }
+
+    public void fail(String message) {
+        finish(Status.FAILED, message);
+    }
+
+    private void finish(Status status, String message) {
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+        this.status = status;
+    }
+
+    public void rowsSucceeded(int count) {
+        succeeded.addAndGet(count);
+        processed.addAndGet(count);
+    }
+
+    public void rowFailed(long row, String message) {
+        failed.incrementAndGet();
+        processed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(new RowError(row, message));
+            }
+        }
+    }
+
+    public String getId() { return id; }
+    public String getType() { return type; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public Status getStatus() { return status; }
+    public String getMessage() { return message; }
+    public long getProcessed() { return processed.get(); }
+    public long getSucceeded() { return succeeded.get(); }
+    public long getFailed() { return failed.get(); }
+
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+}
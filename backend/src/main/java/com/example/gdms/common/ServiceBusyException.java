@@ -0,0 +1,17 @@
+package com.example.gdms.common;
+
+/**
+ * 服务繁忙（线程池或队列已满），由 {@link GlobalExceptionHandler} 转换为 503 并附带 Retry-After。
+ */
+public class ServiceBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.gdms.common;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 流式 XLSX 写出器（单工作表），与 {@link CsvWriter} 用法相同：逐行直接写入 zip 中的工作表 XML，
+ * 内存中只有当前一行。数字、布尔、日期写为对应类型的单元格（日期为 Excel 序列值加日期格式），
+ * 其余写为内联字符串；表头行加粗并冻结。
+ */
+public class XlsxWriter implements Closeable, Flushable {
+    /** Excel 单元格文本长度上限 */
+    private static final int MAX_TEXT = 32767;
+    private static final LocalDate EPOCH = LocalDate.of(1899, 12, 30);
+    private static final int STYLE_DATETIME = 1;
+    private static final int STYLE_DATE = 2;
+    private static final int STYLE_HEADER = 3;
+
+    private static final String CONTENT_TYPES = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">\
+            <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>\
+            <Default Extension="xml" ContentType="application/xml"/>\
+            <Override PartName="/xl/workbook.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml"/>\
+            <Override PartName="/xl/worksheets/sheet1.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml"/>\
+            <Override PartName="/xl/styles.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml"/>\
+            </Types>""";
+    private static final String ROOT_RELS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+            <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" Target="xl/workbook.xml"/>\
+            </Relationships>""";
+    private static final String WORKBOOK_RELS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+            <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet" Target="worksheets/sheet1.xml"/>\
+            <Relationship Id="rId2" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles" Target="styles.xml"/>\
+            </Relationships>""";
+    // 单元格样式：0 默认，1 日期时间，2 日期，3 加粗表头
+    private static final String STYLES = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <styleSheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">\
+            <numFmts count="1"><numFmt numFmtId="164" formatCode="yyyy-mm-dd hh:mm:ss"/></numFmts>\
+            <fonts count="2"><font><sz val="11"/><name val="Calibri"/></font><font><b/><sz val="11"/><name val="Calibri"/></font></fonts>\
+            <fills count="2"><fill><patternFill patternType="none"/></fill><fill><patternFill patternType="gray125"/></fill></fills>\
+            <borders count="1"><border><left/><right/><top/><bottom/><diagonal/></border></borders>\
+            <cellStyleXfs count="1"><xf numFmtId="0" fontId="0" fillId="0" borderId="0"/></cellStyleXfs>\
+            <cellXfs count="4">\
+            <xf numFmtId="0" fontId="0" fillId="0" borderId="0" xfId="0"/>\
+            <xf numFmtId="164" fontId="0" fillId="0" borderId="0" xfId="0" applyNumberFormat="1"/>\
+            <xf numFmtId="14" fontId="0" fillId="0" borderId="0" xfId="0" applyNumberFormat="1"/>\
+            <xf numFmtId="0" fontId="1" fillId="0" borderId="0" xfId="0" applyFont="1"/>\
+            </cellXfs>\
+            <cellStyles count="1"><cellStyle name="Normal" xfId="0" builtinId="0"/></cellStyles>\
+            </styleSheet>""";
+
+    private final ZipOutputStream zip;
+    private final Writer out;
+    private final int frozenRows;
+    private boolean sheetStarted;
+    private boolean finished;
+    private boolean inRow;
+    private int rowIndex;
+    private int column;
+
+    /**
+     * @param sheetName  工作表名称
+     * @param frozenRows 冻结的表头行数，0 表示不冻结
+     */
+    public XlsxWriter(OutputStream output, String sheetName, int frozenRows) throws IOException {
+        this.zip = new ZipOutputStream(output);
+        this.out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+        this.frozenRows = frozenRows;
+        part("[Content_Types].xml", CONTENT_TYPES);
+        part("_rels/.rels", ROOT_RELS);
+        part("xl/_rels/workbook.xml.rels", WORKBOOK_RELS);
+        part("xl/styles.xml", STYLES);
+        part("xl/workbook.xml", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" \
+                xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships">\
+                <sheets><sheet name="%s" sheetId="1" r:id="rId1"/></sheets></workbook>""".formatted(escape(sheetName(sheetName))));
+    }
+
+    /** 写出一个单元格，null 留空。 */
+    public XlsxWriter field(Object value) throws IOException {
+        return cell(value, false);
+    }
+
+    /** 结束当前行。 */
+    public void endRow() throws IOException {
+        startRow();
+        out.write("</row>");
+        inRow = false;
+        column = 0;
+    }
+
+    public void row(Object... values) throws IOException {
+        for (Object v : values) field(v);
+        endRow();
+    }
+
+    /** 写出加粗的表头行。 */
+    public void headerRow(Object... values) throws IOException {
+        for (Object v : values) cell(v, true);
+        endRow();
+    }
+
+    private XlsxWriter cell(Object value, boolean header) throws IOException {
+        startRow();
+        int col = column++;
+        if (value == null) return this;
+        out.write("<c r=\"");
+        out.write(columnName(col));
+        out.write(Integer.toString(rowIndex));
+        out.write('"');
+        if (header) {
+            out.write(" s=\"" + STYLE_HEADER + "\"");
+        }
+        if (value instanceof Timestamp ts) {
+            value = ts.toLocalDateTime();
+        } else if (value instanceof java.sql.Date d) {
+            value = d.toLocalDate();
+        } else if (value instanceof Date d) {
+            value = new Timestamp(d.getTime()).toLocalDateTime();
+        }
+        if (value instanceof LocalDateTime t && !header) {
+            out.write(" s=\"" + STYLE_DATETIME + "\"><v>" + serial(t) + "</v></c>");
+        } else if (value instanceof LocalDate d && !header) {
+            out.write(" s=\"" + STYLE_DATE + "\"><v>" + ChronoUnit.DAYS.between(EPOCH, d) + "</v></c>");
+        } else if (value instanceof Boolean b) {
+            out.write(" t=\"b\"><v>" + (b ? 1 : 0) + "</v></c>");
+        } else if (isNumber(value)) {
+            out.write("><v>" + number((Number) value) + "</v></c>");
+        } else {
+            String s = value.toString();
+            if (s.length() > MAX_TEXT) s = s.substring(0, MAX_TEXT);
+            out.write(" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            out.write(escape(s));
+            out.write("</t></is></c>");
+        }
+        return this;
+    }
+
+    private void startRow() throws IOException {
+        startSheet();
+        if (!inRow) {
+            rowIndex++;
+            out.write("<row r=\"" + rowIndex + "\">");
+            inRow = true;
+        }
+    }
+
+    /** 首次写行时打开工作表，冻结窗格需在 sheetData 之前声明。 */
+    private void startSheet() throws IOException {
+        if (!sheetStarted) {
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+            if (frozenRows > 0) {
+                out.write("<sheetViews><sheetView workbookViewId=\"0\"><pane ySplit=\"" + frozenRows
+                        + "\" topLeftCell=\"A" + (frozenRows + 1) + "\" activePane=\"bottomLeft\" state=\"frozen\"/>"
+                        + "</sheetView></sheetViews>");
+            }
+            out.write("<sheetData>");
+            sheetStarted = true;
+        }
+    }
+
+    private void part(String name, String xml) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        out.write(xml);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    /** 结束工作表并写完 zip 目录，不关闭底层输出流。 */
+    public void finish() throws IOException {
+        if (finished) return;
+        finished = true;
+        if (inRow) endRow();
+        startSheet();
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+        zip.finish();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        zip.close();
+    }
+
+    private static boolean isNumber(Object v) {
+        if (v instanceof Double d) return Double.isFinite(d);
+        if (v instanceof Float f) return Float.isFinite(f);
+        return v instanceof Integer || v instanceof Long || v instanceof Short || v instanceof Byte
+                || v instanceof BigDecimal || v instanceof BigInteger;
+    }
+
+    private static String number(Number n) {
+        if (n instanceof BigDecimal d) return d.toPlainString();
+        if (n instanceof Double || n instanceof Float) {
+            double d = n.doubleValue();
+            return d == Math.rint(d) && Math.abs(d) < 1e15 ? Long.toString((long) d) : Double.toString(d);
+        }
+        return n.toString();
+    }
+
+    /** Excel 日期序列值：自 1899-12-30 起的天数，时间为小数部分（精确到毫秒）。 */
+    private static String serial(LocalDateTime t) {
+        long days = ChronoUnit.DAYS.between(EPOCH, t.toLocalDate());
+        long millis = t.toLocalTime().toNanoOfDay() / 1_000_000;
+        return millis == 0 ? Long.toString(days) : Double.toString(days + millis / 86_400_000.0);
+    }
+
+    /** 列号转列名：0 → A，25 → Z，26 → AA。 */
+    static String columnName(int index) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            sb.append((char) ('A' + (i - 1) % 26));
+        }
+        return sb.reverse().toString();
+    }
+
+    /** 工作表名最长 31 字符，不能含 \ / ? * [ ] : */
+    private static String sheetName(String name) {
+        String s = name == null || name.isBlank() ? "Sheet1" : name.replaceAll("[\\\\/?*\\[\\]:]", "_");
+        return s.length() > 31 ? s.substring(0, 31) : s;
+    }
+
+    /** XML 转义，并去掉 XML 1.0 不允许的控制字符。 */
+    private static String escape(String s) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String rep = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> c < 0x20 && c != '\t' && c != '\n' && c != '\r' || c == 0xFFFE || c == 0xFFFF ? "" : null;
+            };
+            if (rep != null && sb == null) {
+                sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+            }
+            if (sb != null) {
+                if (rep != null) sb.append(rep);
+                else sb.append(c);
+            }
+        }
+        return sb == null ? s : sb.toString();
+    }
+}
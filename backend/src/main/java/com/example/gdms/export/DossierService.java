@@ -0,0 +1,345 @@
+package com.example.gdms.export;
+
+import com.example.gdms.common.DaemonThreadFactory;
+import com.example.gdms.common.ServiceBusyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 学生档案导出：每名学生一条记录，汇总用户、单位、选题、阶段任务与审核、申请与处理日志、评阅任务、答辩成绩。
+ * <p>
+ * 各表只读一次（并行、只进游标流式读取），按学生ID等键装入 {@link LongGroups}；指定单位时子表只读该单位学生的行。
+ * 装载的数据在导出期间常驻内存，与所导出学生的档案总量成正比（含申请内容）。之后按学生分块并行组装并序列化，
+ * 写出线程按学生ID顺序依次写出已完成的块，在途块数有上限，序列化结果不会整体驻留内存。
+ */
+@Service
+public class DossierService {
+    private static final Logger log = LoggerFactory.getLogger(DossierService.class);
+
+    public enum Format { NDJSON, ZIP }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int threads;
+    private final int chunkSize;
+    private final ExecutorService pool;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public DossierService(JdbcTemplate jdbcTemplate,
+                          ObjectMapper objectMapper,
+                          @Value("${app.dossier.threads:4}") int threads,
+                          @Value("${app.dossier.chunk-size:200}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pool = Executors.newFixedThreadPool(this.threads, new DaemonThreadFactory("dossier-"));
+    }
+
+    /**
+     * 占用导出名额，同一时间只允许一次导出；已有导出进行中时抛出 {@link ServiceBusyException}。
+     * 须在响应提交之前调用，写出结束后调用 {@link #release()}。
+     */
+    public void acquire() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ServiceBusyException("档案导出正在进行，请稍后重试", 30);
+        }
+    }
+
+    public void release() {
+        running.set(false);
+    }
+
+    /**
+     * 导出学生档案：NDJSON 每行一名学生；ZIP 每名学生一个 student-{id}.json。orgId 为空导出全部学生。
+     * 调用方须先 {@link #acquire()}。不关闭传入的输出流，返回导出的学生数。
+     */
+    public long write(Format format, Long orgId, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        Data data = load(orgId);
+        long loaded = System.currentTimeMillis();
+        long written = format == Format.ZIP ? writeZip(data, out) : writeNdjson(data, out);
+        log.info("档案导出完成：{} 名学生，装载 {}ms，组装写出 {}ms", written, loaded - start,
+                System.currentTimeMillis() - loaded);
+        return written;
+    }
+
+    private long writeNdjson(Data data, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer();
+        return pipeline(data, writer, (student, json) -> {
+            out.write(json);
+            out.write('\n');
+        }, out);
+    }
+
+    private long writeZip(Data data, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerWithDefaultPrettyPrinter();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        long written = pipeline(data, writer, (student, json) -> {
+            zip.putNextEntry(new ZipEntry("student-" + student.id() + ".json"));
+            zip.write(json);
+            zip.closeEntry();
+        }, zip);
+        zip.finish();
+        return written;
+    }
+
+    /** 按块并行组装、序列化，按顺序交给 sink；在途块数不超过线程数的两倍。 */
+    private long pipeline(Data data, ObjectWriter writer, Sink sink, OutputStream out) throws IOException {
+        List<StudentRow> students = data.students();
+        Deque<Future<List<byte[]>>> window = new ArrayDeque<>();
+        int next = 0;
+        int emitted = 0;
+        try {
+            while (next < students.size() || !window.isEmpty()) {
+                while (next < students.size() && window.size() < threads * 2) {
+                    int from = next;
+                    int to = Math.min(students.size(), from + chunkSize);
+                    window.add(pool.submit(() -> render(data, from, to, writer)));
+                    next = to;
+                }
+                List<byte[]> chunk = window.poll().get();
+                for (byte[] json : chunk) {
+                    sink.accept(students.get(emitted++), json);
+                }
+            }
+            out.flush();
+            return emitted;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("档案导出被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw new IllegalStateException("档案组装失败", e.getCause());
+        } finally {
+            // 客户端中断或出错时取消尚未完成的块
+            window.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private List<byte[]> render(Data data, int from, int to, ObjectWriter writer) {
+        List<byte[]> result = new ArrayList<>(to - from);
+        try {
+            for (int i = from; i < to; i++) {
+                result.add(writer.writeValueAsBytes(assemble(data, data.students().get(i))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    private static Dossier assemble(Data d, StudentRow s) {
+        Long orgId = s.orgId();
+        String orgName = orgId == null ? null : d.orgs().first(orgId);
+
+        List<SelectionItem> selections = new ArrayList<>();
+        for (SelectionRow r : d.selections().get(s.id())) {
+            TopicRow t = r.topicId() == null ? null : d.topics().first(r.topicId());
+            selections.add(new SelectionItem(r.topicId(), t == null ? null : t.title(), t == null ? null : t.status(),
+                    r.status(), r.createdAt()));
+        }
+
+        List<TaskItem> tasks = new ArrayList<>();
+        for (TaskRow r : d.tasks().get(s.id())) {
+            tasks.add(new TaskItem(r.id(), r.stageId(), r.stageId() == null ? null : d.stages().first(r.stageId()),
+                    r.topicId(), r.status(), r.content(), r.updatedAt(), d.taskReviews().get(r.id())));
+        }
+
+        List<ApplicationItem> applications = new ArrayList<>();
+        for (ApplicationRow r : d.applications().get(s.id())) {
+            applications.add(new ApplicationItem(r.id(), r.type(), r.topicId(), r.status(), r.payload(), r.createdAt(),
+                    d.applicationLogs().get(r.id())));
+        }
+
+        return new Dossier(s.id(), s.username(), s.fullName(), s.phone(), s.createdAt(), orgId, orgName,
+                selections, tasks, applications, d.reviews().get(s.id()), d.scores().get(s.id()));
+    }
+
+    /**
+     * 各表并行装载，全部完成后返回；装载线程写入、组装线程读取，由 Future 完成保证可见性。
+     * orgId 不为空时学生相关的子表通过关联 users 限定在该单位，单位、课题、阶段等字典表仍整表读取。
+     */
+    private Data load(Long orgId) throws IOException {
+        // %s 为指向学生ID的列
+        String org = orgId == null ? "" : " JOIN users u ON u.id = %s AND u.org_id = ?";
+        Object[] args = orgId == null ? new Object[0] : new Object[]{orgId};
+        Future<List<StudentRow>> students = pool.submit(() -> {
+            List<StudentRow> rows = new ArrayList<>();
+            String sql = "SELECT id, username, full_name, phone, created_at, org_id FROM users WHERE role = 'STUDENT'"
+                    + (orgId == null ? "" : " AND org_id = ?") + " ORDER BY id";
+            stream(sql, rs -> rows.add(new StudentRow(rs.getLong(1), rs.getString(2), rs.getString(3),
+                    rs.getString(4), time(rs, 5), nullableLong(rs, 6))), args);
+            return rows;
+        });
+        Future<LongGroups<String>> orgs = group("SELECT id, name FROM orgs", 256,
+                rs -> rs.getLong(1), rs -> rs.getString(2));
+        Future<LongGroups<TopicRow>> topics = group("SELECT id, title, status FROM topics", 4096,
+                rs -> rs.getLong(1), rs -> new TopicRow(rs.getString(2), rs.getString(3)));
+        Future<LongGroups<SelectionRow>> selections = group(
+                "SELECT s.student_id, s.topic_id, s.status, s.created_at FROM student_selections s"
+                        + org.formatted("s.student_id") + " ORDER BY s.id", 16384,
+                rs -> rs.getLong(1), rs -> new SelectionRow(nullableLong(rs, 2), rs.getString(3), time(rs, 4)), args);
+        Future<LongGroups<String>> stages = group("SELECT id, name FROM stage_config", 64,
+                rs -> rs.getLong(1), rs -> rs.getString(2));
+        Future<LongGroups<TaskRow>> tasks = group(
+                "SELECT t.student_id, t.id, t.stage_id, t.topic_id, t.status, t.content, t.updated_at FROM stage_task t"
+                        + org.formatted("t.student_id") + " ORDER BY t.id", 16384,
+                rs -> rs.getLong(1), rs -> new TaskRow(rs.getLong(2), nullableLong(rs, 3), nullableLong(rs, 4),
+                        rs.getString(5), rs.getString(6), time(rs, 7)), args);
+        Future<LongGroups<TaskReviewItem>> taskReviews = group(
+                "SELECT r.task_id, r.reviewer_id, r.decision, r.comment, r.created_at FROM stage_review r"
+                        + (orgId == null ? "" : " JOIN stage_task t ON t.id = r.task_id" + org.formatted("t.student_id"))
+                        + " ORDER BY r.id", 65536,
+                rs -> rs.getLong(1), rs -> new TaskReviewItem(nullableLong(rs, 2), rs.getString(3), rs.getString(4), time(rs, 5)),
+                args);
+        Future<LongGroups<ApplicationRow>> applications = group(
+                "SELECT a.student_id, a.id, a.type, a.topic_id, a.status, a.payload, a.created_at FROM applications a"
+                        + org.formatted("a.student_id") + " ORDER BY a.id", 16384,
+                rs -> rs.getLong(1), rs -> new ApplicationRow(rs.getLong(2), rs.getString(3), nullableLong(rs, 4),
+                        rs.getString(5), rs.getString(6), time(rs, 7)), args);
+        Future<LongGroups<LogItem>> applicationLogs = group(
+                "SELECT l.application_id, l.actor_id, l.action, l.comment, l.created_at FROM application_logs l"
+                        + (orgId == null ? "" : " JOIN applications a ON a.id = l.application_id" + org.formatted("a.student_id"))
+                        + " ORDER BY l.id", 65536,
+                rs -> rs.getLong(1), rs -> new LogItem(nullableLong(rs, 2), rs.getString(3), rs.getString(4), time(rs, 5)),
+                args);
+        Future<LongGroups<ReviewItem>> reviews = group(
+                "SELECT r.student_id, r.reviewer_id, r.topic_id, r.type, r.status, r.score, r.comment, r.created_at"
+                        + " FROM review_assignment r" + org.formatted("r.student_id") + " ORDER BY r.id", 16384,
+                rs -> rs.getLong(1), rs -> new ReviewItem(nullableLong(rs, 2), nullableLong(rs, 3), rs.getString(4),
+                        rs.getString(5), nullableDouble(rs, 6), rs.getString(7), time(rs, 8)), args);
+        Future<LongGroups<ScoreItem>> scores = group(
+                "SELECT d.student_id, d.group_id, d.score, d.comment FROM defense_score d"
+                        + org.formatted("d.student_id") + " ORDER BY d.id", 16384,
+                rs -> rs.getLong(1), rs -> new ScoreItem(nullableLong(rs, 2), nullableDouble(rs, 3), rs.getString(4)), args);
+        List<Future<?>> all = List.of(students, orgs, topics, selections, stages, tasks, taskReviews,
+                applications, applicationLogs, reviews, scores);
+        try {
+            return new Data(students.get(), orgs.get(), topics.get(), selections.get(), stages.get(), tasks.get(),
+                    taskReviews.get(), applications.get(), applicationLogs.get(), reviews.get(), scores.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("档案导出被中断");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("档案数据装载失败", e.getCause());
+        } finally {
+            // 出错时取消其余装载；已完成的 Future 不受影响
+            all.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private <T> Future<LongGroups<T>> group(String sql, int expectedKeys, KeyReader key, RowReader<T> value, Object... args) {
+        return pool.submit(() -> {
+            LongGroups<T> groups = new LongGroups<>(expectedKeys);
+            stream(sql, rs -> groups.add(key.read(rs), value.read(rs)), args);
+            return groups;
+        });
+    }
+
+    /** MySQL 驱动在 fetchSize 为 Integer.MIN_VALUE 时逐行流式返回，不缓存整个结果集。 */
+    private void stream(String sql, RowCallbackHandler handler, Object... args) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        }, handler);
+    }
+
+    private static Long nullableLong(ResultSet rs, int column) throws SQLException {
+        long v = rs.getLong(column);
+        return rs.wasNull() ? null : v;
+    }
+
+    private static Double nullableDouble(ResultSet rs, int column) throws SQLException {
+        double v = rs.getDouble(column);
+        return rs.wasNull() ? null : v;
+    }
+
+    private static LocalDateTime time(ResultSet rs, int column) throws SQLException {
+        Timestamp ts = rs.getTimestamp(column);
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private interface KeyReader {
+        long read(ResultSet rs) throws SQLException;
+    }
+
+    private interface RowReader<T> {
+        T read(ResultSet rs) throws SQLException;
+    }
+
+    private interface Sink {
+        void accept(StudentRow student, byte[] json) throws IOException;
+    }
+
+    private record Data(List<StudentRow> students, LongGroups<String> orgs, LongGroups<TopicRow> topics,
+                        LongGroups<SelectionRow> selections, LongGroups<String> stages, LongGroups<TaskRow> tasks,
+                        LongGroups<TaskReviewItem> taskReviews, LongGroups<ApplicationRow> applications,
+                        LongGroups<LogItem> applicationLogs, LongGroups<ReviewItem> reviews, LongGroups<ScoreItem> scores) {}
+
+    private record StudentRow(long id, String username, String fullName, String phone, LocalDateTime createdAt, Long orgId) {}
+
+    private record TopicRow(String title, String status) {}
+
+    private record SelectionRow(Long topicId, String status, LocalDateTime createdAt) {}
+
+    private record TaskRow(long id, Long stageId, Long topicId, String status, String content, LocalDateTime updatedAt) {}
+
+    private record ApplicationRow(long id, String type, Long topicId, String status, String payload, LocalDateTime createdAt) {}
+
+    public record Dossier(Long studentId, String username, String fullName, String phone, LocalDateTime createdAt,
+                          Long orgId, String orgName, List<SelectionItem> selections, List<TaskItem> stageTasks,
+                          List<ApplicationItem> applications, List<ReviewItem> reviewAssignments,
+                          List<ScoreItem> defenseScores) {}
+
+    public record SelectionItem(Long topicId, String topicTitle, String topicStatus, String status, LocalDateTime createdAt) {}
+
+    public record TaskItem(Long id, Long stageId, String stageName, Long topicId, String status, String content,
+                           LocalDateTime updatedAt, List<TaskReviewItem> reviews) {}
+
+    public record TaskReviewItem(Long reviewerId, String decision, String comment, LocalDateTime createdAt) {}
+
+    public record ApplicationItem(Long id, String type, Long topicId, String status, String payload,
+                                  LocalDateTime createdAt, List<LogItem> logs) {}
+
+    public record LogItem(Long actorId, String action, String comment, LocalDateTime createdAt) {}
+
+    public record ReviewItem(Long reviewerId, Long topicId, String type, String status, Double score, String comment,
+                             LocalDateTime createdAt) {}
+
+    public record ScoreItem(Long groupId, Double score, String comment) {}
+}
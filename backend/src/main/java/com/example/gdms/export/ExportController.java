@@ -1,144 +1,82 @@
 package com.example.gdms.export;
 
-import com.example.gdms.announce.AnnouncementReadRepository;
-import com.example.gdms.application.ApplicationRepository;
-import com.example.gdms.group.DefenseScoreRepository;
-import com.example.gdms.group.GroupMemberRepository;
-import com.example.gdms.group.ReviewAssignmentRepository;
-import com.example.gdms.stage.StageReviewRepository;
-import com.example.gdms.topic.StudentSelectionRepository;
-import com.example.gdms.topic.TopicApprovalRepository;
-import com.example.gdms.topic.TopicRepository;
-import com.example.gdms.user.UserRepository;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.nio.charset.StandardCharsets;
-import java.util.stream.Collectors;
+import java.util.Locale;
 
+/**
+ * 数据导出：/api/exports/{topics|approvals|selections|groups|scores|reviews|stage-reviews|announcement-reads|applications|users}，
+ * 数据集定义见 {@link ExportDataset}；/api/exports/dossiers 导出按学生汇总的档案。
+ * 在路径后加 .xlsx 导出 Excel 文件。响应体边查询边写出。
+ */
 @RestController
 @RequestMapping("/api/exports")
 @PreAuthorize("hasRole('ADMIN')")
 public class ExportController {
-    private final TopicRepository topicRepository;
-    private final TopicApprovalRepository approvalRepository;
-    private final StudentSelectionRepository selectionRepository;
-    private final GroupMemberRepository memberRepository;
-    private final DefenseScoreRepository scoreRepository;
-    private final ReviewAssignmentRepository reviewAssignmentRepository;
-    private final StageReviewRepository stageReviewRepository;
-    private final AnnouncementReadRepository announcementReadRepository;
-    private final ApplicationRepository applicationRepository;
-    private final UserRepository userRepository;
+    static final MediaType XLSX = MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
 
-    public ExportController(TopicRepository topicRepository, TopicApprovalRepository approvalRepository, StudentSelectionRepository selectionRepository, GroupMemberRepository memberRepository, DefenseScoreRepository scoreRepository, ReviewAssignmentRepository reviewAssignmentRepository, StageReviewRepository stageReviewRepository, AnnouncementReadRepository announcementReadRepository, ApplicationRepository applicationRepository, UserRepository userRepository) {
-        this.topicRepository = topicRepository;
-        this.approvalRepository = approvalRepository;
-        this.selectionRepository = selectionRepository;
-        this.memberRepository = memberRepository;
-        this.scoreRepository = scoreRepository;
-        this.reviewAssignmentRepository = reviewAssignmentRepository;
-        this.stageReviewRepository = stageReviewRepository;
-        this.announcementReadRepository = announcementReadRepository;
-        this.applicationRepository = applicationRepository;
-        this.userRepository = userRepository;
-    }
-
-    @GetMapping("/topics")
-    public ResponseEntity<byte[]> exportTopics() {
-        String csv = "id,title,status\n" + topicRepository.findAll().stream()
-                .map(t -> t.getId() + "," + safe(t.getTitle()) + "," + t.getStatus())
-                .collect(Collectors.joining("\n"));
-        return csvResponse(csv, "topics.csv");
-    }
-
-    @GetMapping("/approvals")
-    public ResponseEntity<byte[]> exportApprovals() {
-        String csv = "topicId,reviewerId,decision,comment\n" + approvalRepository.findAll().stream()
-                .map(a -> a.getTopicId() + "," + a.getReviewerId() + "," + a.getDecision() + "," + safe(a.getComment()))
-                .collect(Collectors.joining("\n"));
-        return csvResponse(csv, "approvals.csv");
-    }
-
-    @GetMapping("/selections")
-    public ResponseEntity<byte[]> exportSelections() {
-        String csv = "studentId,topicId,status\n" + selectionRepository.findAll().stream()
-                .map(s -> s.getStudentId() + "," + s.getTopicId() + "," + s.getStatus())
-                .collect(Collectors.joining("\n"));
-        return csvResponse(csv, "selections.csv");
-    }
-
-    @GetMapping("/groups")
-    public ResponseEntity<byte[]> exportGroups() {
-        String csv = "groupId,studentId,topicId\n" + memberRepository.findAll().stream()
-                .map(m -> m.getGroupId() + "," + m.getStudentId() + "," + m.getTopicId())
-                .collect(Collectors.joining("\n"));
-        return csvResponse(csv, "groups.csv");
-    }
-
-    @GetMapping("/scores")
-    public ResponseEntity<byte[]> exportScores() {
-        String csv = "groupId,studentId,score,comment\n" + scoreRepository.findAll().stream()
-                .map(s -> s.getGroupId() + "," + s.getStudentId() + "," + s.getScore() + "," + safe(s.getComment()))
-                .collect(Collectors.joining("\n"));
-        return csvResponse(csv, "scores.csv");
-    }
-
-    @GetMapping("/reviews")
-    public ResponseEntity<byte[]> exportReviews() {
-        String csv = "reviewerId,studentId,topicId,type,status,score,comment\n" + reviewAssignmentRepository.findAll().stream()
-                .map(r -> r.getReviewerId() + "," + r.getStudentId() + "," + r.getTopicId() + "," + r.getType() + "," + r.getStatus() + "," + (r.getScore() == null ? "" : r.getScore()) + "," + safe(r.getComment()))
-                .collect(Collectors.joining("\n"));
-        return csvResponse(csv, "reviews.csv");
-    }
-
-    @GetMapping("/stage-reviews")
-    public ResponseEntity<byte[]> exportStageReviews() {
-        String csv = "taskId,reviewerId,decision,comment,createdAt\n" + stageReviewRepository.findAll().stream()
-                .map(r -> r.getTaskId() + "," + r.getReviewerId() + "," + r.getDecision() + "," + safe(r.getComment()) + "," + r.getCreatedAt())
-                .collect(Collectors.joining("\n"));
-        return csvResponse(csv, "stage_reviews.csv");
-    }
+    private final ExportService exportService;
+    private final DossierService dossierService;
 
-    @GetMapping("/announcement-reads")
-    public ResponseEntity<byte[]> exportAnnouncementReads() {
-        String csv = "announcementId,userId,readAt\n" + announcementReadRepository.findAll().stream()
-                .map(r -> r.getAnnouncementId() + "," + r.getUserId() + "," + r.getReadAt())
-                .collect(Collectors.joining("\n"));
-        return csvResponse(csv, "announcement_reads.csv");
+    public ExportController(ExportService exportService, DossierService dossierService) {
+        this.exportService = exportService;
+        this.dossierService = dossierService;
     }
 
-    @GetMapping("/applications")
-    public ResponseEntity<byte[]> exportApplications() {
-        String csv = "id,type,studentId,topicId,status,payload,createdAt\n" + applicationRepository.findAll().stream()
-                .map(a -> a.getId() + "," + a.getType() + "," + a.getStudentId() + "," + (a.getTopicId() == null ? "" : a.getTopicId()) + "," + a.getStatus() + "," + safe(a.getPayload()) + "," + a.getCreatedAt())
-                .collect(Collectors.joining("\n"));
-        return csvResponse(csv, "applications.csv");
-    }
-
-    @GetMapping("/users")
-    public ResponseEntity<byte[]> exportUsers() {
-        String csv = "id,username,fullName,role,orgId,phone,createdAt\n" + userRepository.findAll().stream()
-                .map(u -> u.getId() + "," + u.getUsername() + "," + safe(u.getFullName()) + "," + u.getRole() + "," + (u.getOrgId() == null ? "" : u.getOrgId()) + "," + safe(u.getPhone()) + "," + u.getCreatedAt())
-                .collect(Collectors.joining("\n"));
-        return csvResponse(csv, "users.csv");
+    /** xlsx 版本：表头冻结，数字、日期为对应类型的单元格，避免 Excel 打开 CSV 时的编码与分列问题。 */
+    @GetMapping("/{dataset}.xlsx")
+    public ResponseEntity<StreamingResponseBody> exportXlsx(@PathVariable String dataset) {
+        ExportDataset ds = ExportDataset.fromPath(dataset);
+        StreamingResponseBody body = out -> exportService.writeXlsx(ds, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + ds.xlsxFilename())
+                .contentType(XLSX)
+                .body(body);
     }
 
-    private ResponseEntity<byte[]> csvResponse(String csv, String filename) {
-        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+    /** 学生档案：format 为 ndjson（默认）或 zip（每名学生一个 JSON 文件），可按 orgId 筛选。 */
+    @GetMapping("/dossiers")
+    public ResponseEntity<StreamingResponseBody> dossiers(@RequestParam(defaultValue = "ndjson") String format,
+                                                          @RequestParam(required = false) Long orgId) {
+        DossierService.Format f;
+        try {
+            f = DossierService.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的导出格式：" + format);
+        }
+        boolean zip = f == DossierService.Format.ZIP;
+        // 在返回 200 之前占用导出名额，繁忙时客户端收到的是 503 而不是写了一半的附件
+        dossierService.acquire();
+        StreamingResponseBody body = out -> {
+            try {
+                dossierService.write(f, orgId, out);
+            } finally {
+                dossierService.release();
+            }
+        };
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                .contentType(new MediaType("text", "csv"))
-                .body(bytes);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + (zip ? "dossiers.zip" : "dossiers.ndjson"))
+                .contentType(zip ? new MediaType("application", "zip") : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .body(body);
     }
 
-    private String safe(String s) {
-        return s == null ? "" : s.replace(",", " ");
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String dataset) {
+        ExportDataset ds = ExportDataset.fromPath(dataset);
+        StreamingResponseBody body = out -> exportService.writeCsv(ds, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + ds.filename())
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
     }
 }
-
@@ -0,0 +1,90 @@
+package com.example.gdms.export;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * 可导出的数据集：URL 路径、文件名、表头、来源表及按表头顺序的列。
+ * 导出查询按主键排序，结果由 {@link ExportService} 以只进游标流式读取。
+ */
+public enum ExportDataset {
+    TOPICS("topics", "topics.csv",
+            new String[]{"id", "title", "status"},
+            "topics", "id, title, status"),
+    APPROVALS("approvals", "approvals.csv",
+            new String[]{"topicId", "reviewerId", "decision", "comment"},
+            "topic_approvals", "topic_id, reviewer_id, decision, comment"),
+    SELECTIONS("selections", "selections.csv",
+            new String[]{"studentId", "topicId", "status"},
+            "student_selections", "student_id, topic_id, status"),
+    GROUPS("groups", "groups.csv",
+            new String[]{"groupId", "studentId", "topicId"},
+            "group_member", "group_id, student_id, topic_id"),
+    SCORES("scores", "scores.csv",
+            new String[]{"groupId", "studentId", "score", "comment"},
+            "defense_score", "group_id, student_id, score, comment"),
+    REVIEWS("reviews", "reviews.csv",
+            new String[]{"reviewerId", "studentId", "topicId", "type", "status", "score", "comment"},
+            "review_assignment", "reviewer_id, student_id, topic_id, type, status, score, comment"),
+    STAGE_REVIEWS("stage-reviews", "stage_reviews.csv",
+            new String[]{"taskId", "reviewerId", "decision", "comment", "createdAt"},
+            "stage_review", "task_id, reviewer_id, decision, comment, created_at"),
+    ANNOUNCEMENT_READS("announcement-reads", "announcement_reads.csv",
+            new String[]{"announcementId", "userId", "readAt"},
+            "announcement_reads", "announcement_id, user_id, read_at"),
+    APPLICATIONS("applications", "applications.csv",
+            new String[]{"id", "type", "studentId", "topicId", "status", "payload", "createdAt"},
+            "applications", "id, type, student_id, topic_id, status, payload, created_at"),
+    USERS("users", "users.csv",
+            new String[]{"id", "username", "fullName", "role", "orgId", "phone", "createdAt"},
+            "users", "id, username, full_name, role, org_id, phone, created_at");
+
+    private final String path;
+    private final String filename;
+    private final String[] header;
+    private final String table;
+    private final String columns;
+
+    ExportDataset(String path, String filename, String[] header, String table, String columns) {
+        this.path = path;
+        this.filename = filename;
+        this.header = header;
+        this.table = table;
+        this.columns = columns;
+    }
+
+    public static ExportDataset fromPath(String path) {
+        return Arrays.stream(values())
+                .filter(d -> d.path.equals(path))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("不支持的导出类型：" + path));
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public String filename() {
+        return filename;
+    }
+
+    public String[] header() {
+        return header.clone();
+    }
+
+    public String xlsxFilename() {
+        return filename.substring(0, filename.lastIndexOf('.')) + ".xlsx";
+    }
+
+    String sql() {
+        return "SELECT " + columns + " FROM " + table + " ORDER BY id";
+    }
+
+    /** 行数与逐行 CRC32 的异或，数据有任何增删改时（极大概率）随之变化，用于复用已生成的导出文件。 */
+    String checksumSql() {
+        String fields = Arrays.stream(columns.split(",\\s*"))
+                .map(c -> "IFNULL(" + c + ", 0x00)")
+                .collect(Collectors.joining(", "));
+        return "SELECT COUNT(*), COALESCE(BIT_XOR(CRC32(CONCAT_WS(0x1F, id, " + fields + "))), 0) FROM " + table;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.gdms.export;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 后台导出任务的状态，前端轮询读取；完成后 {@link #getFile()} 指向压缩后的导出文件。
+ * 状态字段由导出线程写、查询线程读，均为 volatile。
+ */
+public class ExportJob {
+    public enum Status { PENDING, RUNNING, SUCCEEDED, FAILED }
+
+    public enum Format {
+        GZIP(".csv.gz", "application/gzip"),
+        ZIP(".zip", "application/zip"),
+        XLSX(".xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+        private final String suffix;
+        private final String contentType;
+
+        Format(String suffix, String contentType) {
+            this.suffix = suffix;
+            this.contentType = contentType;
+        }
+
+        public String suffix() {
+            return suffix;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final ExportDataset dataset;
+    private final Format format;
+    private volatile String fingerprint;
+    private final Long createdBy;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile Status status = Status.PENDING;
+    private volatile String message;
+    private volatile LocalDateTime finishedAt;
+    private volatile long rows;
+    private volatile long size;
+    private volatile Path file;
+
+    public ExportJob(ExportDataset dataset, Format format, Long createdBy) {
+        this.dataset = dataset;
+        this.format = format;
+        this.createdBy = createdBy;
+    }
+
+    void start() {
+        status = Status.RUNNING;
+    }
+
+    void fingerprinted(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    void succeed(Path file, long rows, long size) {
+        this.file = file;
+        this.rows = rows;
+        this.size = size;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.SUCCEEDED;
+    }
+
+    void fail(String message) {
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.FAILED;
+    }
+
+    public String getId() { return id; }
+    public String getDataset() { return dataset.path(); }
+    public Format getFormat() { return format; }
+    public Long getCreatedBy() { return createdBy; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public Status getStatus() { return status; }
+    public String getMessage() { return message; }
+    public long getRows() { return rows; }
+    public long getSize() { return size; }
+
+    /** 下载时的文件名，如 topics.csv.gz。 */
+    public String getFilename() {
+        String name = dataset.filename();
+        return name.substring(0, name.lastIndexOf('.')) + format.suffix();
+    }
+
+    public String getDownloadUrl() {
+        return status == Status.SUCCEEDED ? "/api/exports/jobs/" + id + "/file" : null;
+    }
+
+    @JsonIgnore
+    public ExportDataset dataset() { return dataset; }
+
+    /** 导出线程开始运行后计算的数据集指纹，此前为 null。 */
+    @JsonIgnore
+    public String getFingerprint() { return fingerprint; }
+
+    @JsonIgnore
+    public Path getFile() { return file; }
+
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+}
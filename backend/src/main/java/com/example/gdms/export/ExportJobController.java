@@ -0,0 +1,152 @@
+package com.example.gdms.export;
+
+import com.example.gdms.common.ApiResponse;
+import com.example.gdms.security.CurrentUser;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * 后台导出任务：提交、轮询状态、下载压缩文件。下载支持单段 Range 续传；
+ * 容器支持 sendfile 时交由 Tomcat 直接从文件发送，否则用 {@link FileChannel#transferTo} 写出。
+ */
+@RestController
+@RequestMapping("/api/exports/jobs")
+@PreAuthorize("hasRole('ADMIN')")
+public class ExportJobController {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ExportJobService exportJobService;
+
+    public ExportJobController(ExportJobService exportJobService) {
+        this.exportJobService = exportJobService;
+    }
+
+    /** format 为 gzip（默认）、zip 或 xlsx。 */
+    @PostMapping
+    public ApiResponse<ExportJob> submit(@RequestBody ExportJobRequest request, CurrentUser user) {
+        if (request == null || request.dataset() == null) {
+            throw new IllegalArgumentException("请指定导出数据集");
+        }
+        ExportJob.Format format;
+        try {
+            format = request.format() == null ? ExportJob.Format.GZIP
+                    : ExportJob.Format.valueOf(request.format().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的导出格式：" + request.format());
+        }
+        ExportDataset dataset = ExportDataset.fromPath(request.dataset());
+        return ApiResponse.ok(exportJobService.submit(dataset, format, user == null ? null : user.id()));
+    }
+
+    @GetMapping("/{jobId}")
+    public ApiResponse<ExportJob> status(@PathVariable String jobId) {
+        return ApiResponse.ok(exportJobService.get(jobId));
+    }
+
+    @GetMapping("/{jobId}/file")
+    public void download(@PathVariable String jobId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExportJob job = exportJobService.get(jobId);
+        Path file = job.getFile();
+        if (job.getStatus() != ExportJob.Status.SUCCEEDED || file == null || !Files.isRegularFile(file)) {
+            throw new IllegalStateException("导出文件尚未生成或已过期");
+        }
+        long length = Files.size(file);
+        String etag = "\"" + job.getId() + "\"";
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getFilename());
+        response.setContentType(job.getFormat().contentType());
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] r = parseRange(range, length);
+            if (r != null && r.length == 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (r != null) {
+                start = r[0];
+                end = r[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (count <= 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat 在响应提交后用 sendfile 直接从文件发送，end 为开区间
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) break;
+                position += sent;
+                remaining -= sent;
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * 解析单段字节范围（bytes=a-b、bytes=a-、bytes=-n），返回闭区间 [start, end]。
+     * 语法无效或多段范围返回 null（按完整文件响应），范围不可满足返回空数组。
+     */
+    static long[] parseRange(String header, long length) {
+        String value = header.trim();
+        if (!value.regionMatches(true, 0, "bytes=", 0, 6)) return null;
+        String spec = value.substring(6).trim();
+        if (spec.contains(",")) return null;
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                if (last.isEmpty()) return null;
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) return new long[0];
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (end < start) return null;
+            if (start >= length) return new long[0];
+            return new long[]{start, Math.min(end, length - 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public record ExportJobRequest(String dataset, String format) {}
+}
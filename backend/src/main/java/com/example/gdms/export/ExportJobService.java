@@ -0,0 +1,233 @@
+package com.example.gdms.export;
+
+import com.example.gdms.common.DaemonThreadFactory;
+import com.example.gdms.common.ServiceBusyException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 后台导出任务：有界线程池把数据集写成 gzip / zip / xlsx 文件落到本地目录，前端轮询任务状态后下载。
+ * <p>
+ * 同一数据集、格式已有排队中的任务时直接返回该任务。任务开始运行时先在数据库端计算数据集指纹
+ * （行数与逐行 CRC 异或，需要扫描全表，因此不在请求线程上做），已有指纹相同且文件仍在的已完成任务时
+ * 把其文件硬链接给本任务，不再重新导出；导出文件随任务在保留期后过期删除。
+ */
+@Service
+public class ExportJobService {
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ExportService exportService;
+    private final Path dir;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, ExportJob> jobs;
+    /** 数据集|格式 → 排队中的任务ID */
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+    /** 数据集|格式|指纹 → 已完成的任务ID */
+    private final Map<String, String> reusable = new ConcurrentHashMap<>();
+
+    public ExportJobService(ExportService exportService,
+                            @Value("${app.export.dir:${java.io.tmpdir}/gdms-exports}") String dir,
+                            @Value("${app.export.workers:2}") int workers,
+                            @Value("${app.export.max-pending-jobs:8}") int maxPendingJobs,
+                            @Value("${app.export.artifact-ttl-minutes:60}") long ttlMinutes) {
+        this.exportService = exportService;
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxPendingJobs), new DaemonThreadFactory("export-"));
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((String id, ExportJob job, RemovalCause cause) -> {
+                    if (job != null && cause != RemovalCause.REPLACED) discard(job);
+                })
+                .build();
+        cleanDirectory();
+    }
+
+    /** 提交导出；同一数据集、格式的任务还在排队时返回该任务。 */
+    public ExportJob submit(ExportDataset dataset, ExportJob.Format format, Long userId) {
+        ExportJob[] created = new ExportJob[1];
+        String id = pending.compute(pendingKey(dataset, format), (k, existing) -> {
+            // 排队中的任务尚未读取数据，结果不会早于本次请求
+            if (existing != null && jobs.getIfPresent(existing) != null) {
+                return existing;
+            }
+            created[0] = new ExportJob(dataset, format, userId);
+            jobs.put(created[0].getId(), created[0]);
+            return created[0].getId();
+        });
+        if (created[0] == null) {
+            return get(id);
+        }
+        try {
+            workers.execute(() -> run(created[0]));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(created[0].getId());
+            throw new ServiceBusyException("导出任务排队已满，请稍后重试", 30);
+        }
+        return created[0];
+    }
+
+    public ExportJob get(String id) {
+        ExportJob job = jobs.getIfPresent(id);
+        if (job == null) {
+            throw new IllegalArgumentException("导出任务不存在或已过期");
+        }
+        return job;
+    }
+
+    private void run(ExportJob job) {
+        // 先移出排队表：开始读取数据之后提交的请求另起任务
+        pending.remove(pendingKey(job.dataset(), job.getFormat()), job.getId());
+        job.start();
+        long start = System.currentTimeMillis();
+        Path tmp = null;
+        Path target = dir.resolve(job.getId() + job.getFormat().suffix());
+        try {
+            job.fingerprinted(exportService.fingerprint(job.dataset()));
+            Files.createDirectories(dir);
+            if (reuse(job, target)) {
+                log.info("导出任务 {} 复用未变化的导出文件：{}", job.getId(), job.getDataset());
+                return;
+            }
+            tmp = Files.createTempFile(dir, job.getId(), ".part");
+            long rows;
+            try (OutputStream raw = new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE)) {
+                rows = switch (job.getFormat()) {
+                    case GZIP -> writeGzip(job.dataset(), raw);
+                    case ZIP -> writeZip(job.dataset(), raw);
+                    case XLSX -> exportService.writeXlsx(job.dataset(), raw);
+                };
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            job.succeed(target, rows, Files.size(target));
+            finish(job);
+            log.info("导出任务 {} 完成：{} {} 行，{} 字节，耗时 {}ms", job.getId(), job.getDataset(), rows,
+                    job.getSize(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("导出任务 {} 失败：{}", job.getId(), job.getDataset(), e);
+            job.fail(e.getMessage());
+            deleteQuietly(tmp);
+            deleteQuietly(target);
+        }
+    }
+
+    /** 指纹相同的已完成任务文件仍在时，链接（不支持时复制）为本任务的文件。 */
+    private boolean reuse(ExportJob job, Path target) throws IOException {
+        String id = reusable.get(reusableKey(job));
+        ExportJob done = id == null ? null : jobs.getIfPresent(id);
+        if (done == null || done.getStatus() != ExportJob.Status.SUCCEEDED) {
+            return false;
+        }
+        try {
+            Files.createLink(target, done.getFile());
+        } catch (NoSuchFileException e) {
+            // 原任务恰好过期，文件已删除
+            return false;
+        } catch (IOException | UnsupportedOperationException e) {
+            try {
+                Files.copy(done.getFile(), target);
+            } catch (NoSuchFileException gone) {
+                return false;
+            }
+        }
+        job.succeed(target, done.getRows(), Files.size(target));
+        finish(job);
+        return true;
+    }
+
+    /** 完成时重新计时，保留期从文件生成开始算；运行期间已过期的任务直接丢弃文件。 */
+    private void finish(ExportJob job) {
+        if (jobs.asMap().replace(job.getId(), job) == null) {
+            discard(job);
+            return;
+        }
+        reusable.put(reusableKey(job), job.getId());
+    }
+
+    private long writeGzip(ExportDataset dataset, OutputStream raw) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(raw, BUFFER_SIZE);
+        long rows = exportService.writeCsv(dataset, gzip);
+        gzip.finish();
+        return rows;
+    }
+
+    private long writeZip(ExportDataset dataset, OutputStream raw) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(raw);
+        zip.putNextEntry(new ZipEntry(dataset.filename()));
+        long rows = exportService.writeCsv(dataset, zip);
+        zip.closeEntry();
+        zip.finish();
+        return rows;
+    }
+
+    /** 任务过期或被移除：删除导出文件，并撤销指向它的排队项、复用项。 */
+    private void discard(ExportJob job) {
+        pending.remove(pendingKey(job.dataset(), job.getFormat()), job.getId());
+        if (job.getFingerprint() != null) {
+            reusable.remove(reusableKey(job), job.getId());
+        }
+        deleteQuietly(job.getFile());
+    }
+
+    private static String pendingKey(ExportDataset dataset, ExportJob.Format format) {
+        return dataset.path() + "|" + format;
+    }
+
+    private static String reusableKey(ExportJob job) {
+        return pendingKey(job.dataset(), job.getFormat()) + "|" + job.getFingerprint();
+    }
+
+    /** 任务状态只在内存中，重启后上次遗留的文件无法再下载，启动时清空。 */
+    private void cleanDirectory() {
+        try {
+            Files.createDirectories(dir);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path f : files) {
+                    if (Files.isRegularFile(f)) deleteQuietly(f);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法初始化导出目录 " + dir, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导出文件失败：{}", file, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.gdms.export;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 以 long 为键的分组表（开放寻址、线性探测），键不装箱，每个键对应按加入顺序排列的值列表。
+ * 写入不是线程安全的；装载完成后可被多个线程并发读取。
+ */
+final class LongGroups<T> {
+    private long[] keys;
+    /** 0 表示空槽，否则为 groups 下标 + 1 */
+    private int[] slots;
+    private int mask;
+    private final List<List<T>> groups = new ArrayList<>();
+
+    LongGroups(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedKeys * 2) - 1) << 1;
+        this.keys = new long[capacity];
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    void add(long key, T value) {
+        int i = find(key);
+        if (slots[i] == 0) {
+            if ((groups.size() + 1) * 2 > keys.length) {
+                grow();
+                i = find(key);
+            }
+            keys[i] = key;
+            groups.add(new ArrayList<>(2));
+            slots[i] = groups.size();
+        }
+        groups.get(slots[i] - 1).add(value);
+    }
+
+    /** 键不存在时返回空列表。 */
+    List<T> get(long key) {
+        int slot = slots[find(key)];
+        return slot == 0 ? List.of() : groups.get(slot - 1);
+    }
+
+    T first(long key) {
+        List<T> values = get(key);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    private int find(long key) {
+        int i = hash(key) & mask;
+        while (slots[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[oldKeys.length * 2];
+        slots = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSlots[i] != 0) {
+                int j = find(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                slots[j] = oldSlots[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
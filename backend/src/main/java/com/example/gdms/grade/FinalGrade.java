@@ -0,0 +1,28 @@
+package com.example.gdms.grade;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/** 学生的最终成绩及各组成项，由 {@link FinalGradeService} 计算写入。 */
+@Entity
+@Table(name = "final_grade")
+@Data
+public class FinalGrade {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(unique = true)
+    private Long studentId;
+    private Long orgId;
+    private Long formulaId;
+    private Integer formulaVersion; // 计算时公式的版本，小于公式当前版本说明需要重算
+    private Double advisorScore;
+    private Double crossScore;
+    private Double openingScore;
+    private Double defenseScore;
+    private Double finalScore;
+    private Boolean complete; // 公式中权重大于 0 的成绩项是否都已有成绩
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,106 @@
+package com.example.gdms.grade;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 最终成绩的加权计算，输入为按列存放的成绩（列下标见 {@link #ADVISOR} 等，缺失为 NaN）。
+ * 全量计算时按学生下标区间用 fork/join 拆分并行。
+ */
+final class FinalGradeCalculator {
+    static final int ADVISOR = 0;
+    static final int CROSS = 1;
+    static final int OPENING = 2;
+    static final int DEFENSE = 3;
+    static final int COMPONENTS = 4;
+    private static final int THRESHOLD = 4096;
+
+    private FinalGradeCalculator() {
+    }
+
+    static double[] weights(GradeFormula f) {
+        double[] w = new double[COMPONENTS];
+        w[ADVISOR] = nz(f.getAdvisorWeight());
+        w[CROSS] = nz(f.getCrossWeight());
+        w[OPENING] = nz(f.getOpeningWeight());
+        w[DEFENSE] = nz(f.getDefenseWeight());
+        return w;
+    }
+
+    /**
+     * @param scores   scores[c][s] 为学生 s 的第 c 项成绩
+     * @param formula  formula[s] 为学生 s 适用的公式下标，-1 表示没有公式
+     * @param weights  weights[f] 为第 f 个公式的权重
+     * @param result   输出最终成绩，无法计算时为 NaN
+     * @param complete 输出各项成绩是否齐全
+     */
+    static void computeAll(double[][] scores, int[] formula, double[][] weights,
+                           double[] result, boolean[] complete, ForkJoinPool pool) {
+        pool.invoke(new Slice(scores, formula, weights, result, complete, 0, formula.length));
+    }
+
+    /** 按已有成绩项的权重归一后加权，保留两位小数；没有任何带权成绩时返回 NaN。 */
+    static double compute(double[] w, double[] scores) {
+        double sum = 0;
+        double weight = 0;
+        for (int c = 0; c < COMPONENTS; c++) {
+            if (w[c] > 0 && !Double.isNaN(scores[c])) {
+                sum += w[c] * scores[c];
+                weight += w[c];
+            }
+        }
+        return weight > 0 ? Math.round(sum / weight * 100) / 100.0 : Double.NaN;
+    }
+
+    static boolean isComplete(double[] w, double[] scores) {
+        for (int c = 0; c < COMPONENTS; c++) {
+            if (w[c] > 0 && Double.isNaN(scores[c])) return false;
+        }
+        return true;
+    }
+
+    private static double nz(Double d) {
+        return d == null || d < 0 ? 0 : d;
+    }
+
+    private static final class Slice extends RecursiveAction {
+        private final double[][] scores;
+        private final int[] formula;
+        private final double[][] weights;
+        private final double[] result;
+        private final boolean[] complete;
+        private final int from;
+        private final int to;
+
+        Slice(double[][] scores, int[] formula, double[][] weights, double[] result, boolean[] complete, int from, int to) {
+            this.scores = scores;
+            this.formula = formula;
+            this.weights = weights;
+            this.result = result;
+            this.complete = complete;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                double[] row = new double[COMPONENTS];
+                for (int s = from; s < to; s++) {
+                    if (formula[s] < 0) {
+                        result[s] = Double.NaN;
+                        continue;
+                    }
+                    for (int c = 0; c < COMPONENTS; c++) row[c] = scores[c][s];
+                    double[] w = weights[formula[s]];
+                    result[s] = FinalGradeCalculator.compute(w, row);
+                    complete[s] = isComplete(w, row);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Slice(scores, formula, weights, result, complete, from, mid),
+                    new Slice(scores, formula, weights, result, complete, mid, to));
+        }
+    }
+}
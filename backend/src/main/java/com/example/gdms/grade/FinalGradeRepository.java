@@ -0,0 +1,10 @@
+package com.example.gdms.grade;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.Optional;
+
+public interface FinalGradeRepository extends JpaRepository<FinalGrade, Long>, JpaSpecificationExecutor<FinalGrade> {
+    Optional<FinalGrade> findByStudentId(Long studentId);
+}
@@ -0,0 +1,365 @@
+package com.example.gdms.grade;
+
+import com.example.gdms.common.ServiceBusyException;
+import com.example.gdms.group.ScoreChangedEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.criteria.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 最终成绩计算：指导评阅、交叉评阅取已完成评阅的平均分，开题与毕业答辩取 grade_aggregate 中的平均分，按学生所属单位的公式加权。
+ * <p>
+ * 全量计算一次读出所有学生的各项成绩到按列存放的数组，用 fork/join 并行计算后批量写回；
+ * 单个学生的成绩变化通过 {@link ScoreChangedEvent} 在事务提交后只重算该学生。
+ */
+@Service
+public class FinalGradeService {
+    private static final Logger log = LoggerFactory.getLogger(FinalGradeService.class);
+    private static final String STUDENTS_SQL = "SELECT id, org_id FROM users WHERE role = 'STUDENT' ORDER BY id";
+    private static final String ORGS_SQL = "SELECT id, parent_id FROM orgs";
+    private static final String REVIEW_SCORES_SQL = """
+            SELECT student_id, type, AVG(score) FROM review_assignment
+            WHERE status = 'DONE' AND score IS NOT NULL
+            GROUP BY student_id, type
+            """;
+    private static final String DEFENSE_SCORES_SQL =
+            "SELECT student_id, type, score_sum / score_count FROM grade_aggregate WHERE score_count > 0";
+    private static final String STUDENT_ORG_SQL = "SELECT org_id FROM users WHERE id = ? AND role = 'STUDENT'";
+    private static final String STUDENT_REVIEW_SCORES_SQL = """
+            SELECT student_id, type, AVG(score) FROM review_assignment
+            WHERE student_id = ? AND status = 'DONE' AND score IS NOT NULL
+            GROUP BY student_id, type
+            """;
+    private static final String STUDENT_DEFENSE_SCORES_SQL =
+            "SELECT student_id, type, score_sum / score_count FROM grade_aggregate WHERE student_id = ? AND score_count > 0";
+    private static final String UPSERT_SQL = """
+            INSERT INTO final_grade (student_id, org_id, formula_id, formula_version, advisor_score, cross_score,
+                                     opening_score, defense_score, final_score, complete, computed_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                org_id = VALUES(org_id),
+                formula_id = VALUES(formula_id),
+                formula_version = VALUES(formula_version),
+                advisor_score = VALUES(advisor_score),
+                cross_score = VALUES(cross_score),
+                opening_score = VALUES(opening_score),
+                defense_score = VALUES(defense_score),
+                final_score = VALUES(final_score),
+                complete = VALUES(complete),
+                computed_at = VALUES(computed_at)
+            """;
+
+    private final GradeFormulaRepository formulaRepository;
+    private final FinalGradeRepository gradeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+    private final AtomicBoolean running = new AtomicBoolean();
+    // 全量计算期间成绩有变化的学生，写回后再逐个重算，避免被全量结果中的旧值覆盖
+    private final Set<Long> changedDuringRun = ConcurrentHashMap.newKeySet();
+
+    public FinalGradeService(GradeFormulaRepository formulaRepository,
+                             FinalGradeRepository gradeRepository,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${app.final-grade.parallelism:0}") int parallelism) {
+        this.formulaRepository = formulaRepository;
+        this.gradeRepository = gradeRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public List<GradeFormula> formulas() {
+        return formulaRepository.findAll();
+    }
+
+    /** 新建或按单位覆盖公式，覆盖时版本号加一。 */
+    @Transactional
+    public GradeFormula saveFormula(GradeFormula input) {
+        double[] w = FinalGradeCalculator.weights(input);
+        for (Double d : new Double[]{input.getAdvisorWeight(), input.getCrossWeight(), input.getOpeningWeight(), input.getDefenseWeight()}) {
+            if (d != null && (d < 0 || d > 100)) {
+                throw new IllegalArgumentException("权重必须在0-100之间");
+            }
+        }
+        if (Arrays.stream(w).sum() <= 0) {
+            throw new IllegalArgumentException("至少需要一项权重大于0");
+        }
+        Optional<GradeFormula> existing = input.getOrgId() == null
+                ? formulaRepository.findFirstByOrgIdIsNull()
+                : formulaRepository.findByOrgId(input.getOrgId());
+        GradeFormula f = existing.orElseGet(GradeFormula::new);
+        if (existing.isPresent()) {
+            f.setVersion(f.getVersion() == null ? 1 : f.getVersion() + 1);
+        }
+        f.setOrgId(input.getOrgId());
+        f.setName(input.getName() != null ? input.getName().trim() : null);
+        f.setAdvisorWeight(w[FinalGradeCalculator.ADVISOR]);
+        f.setCrossWeight(w[FinalGradeCalculator.CROSS]);
+        f.setOpeningWeight(w[FinalGradeCalculator.OPENING]);
+        f.setDefenseWeight(w[FinalGradeCalculator.DEFENSE]);
+        f.setUpdatedAt(LocalDateTime.now());
+        return formulaRepository.save(f);
+    }
+
+    public void deleteFormula(Long id) {
+        formulaRepository.deleteById(id);
+    }
+
+    public Page<FinalGrade> page(Pageable pageable, Long orgId, Boolean complete) {
+        Specification<FinalGrade> spec = (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (orgId != null) {
+                predicates.add(cb.equal(root.get("orgId"), orgId));
+            }
+            if (complete != null) {
+                predicates.add(cb.equal(root.get("complete"), complete));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+        return gradeRepository.findAll(spec, pageable);
+    }
+
+    public Optional<FinalGrade> forStudent(Long studentId) {
+        return gradeRepository.findByStudentId(studentId);
+    }
+
+    /** 计算全部学生的最终成绩。同一时间只允许一次全量计算。 */
+    public ComputeResult computeAll() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ServiceBusyException("最终成绩正在计算，请稍后重试", 10);
+        }
+        changedDuringRun.clear();
+        long start = System.currentTimeMillis();
+        try {
+            ComputeResult result = transactionTemplate.execute(status -> computeAllInTransaction(start));
+            for (Long studentId : changedDuringRun) {
+                transactionTemplate.executeWithoutResult(status -> recompute(studentId));
+            }
+            return result;
+        } finally {
+            running.set(false);
+            changedDuringRun.clear();
+        }
+    }
+
+    private ComputeResult computeAllInTransaction(long start) {
+        Formulas formulas = loadFormulas();
+        if (formulas.list.isEmpty()) {
+            throw new IllegalStateException("尚未配置成绩计算公式");
+        }
+
+        List<Long> ids = new ArrayList<>();
+        List<Long> orgs = new ArrayList<>();
+        jdbcTemplate.query(STUDENTS_SQL, rs -> {
+            ids.add(rs.getLong(1));
+            long org = rs.getLong(2);
+            orgs.add(rs.wasNull() ? null : org);
+        });
+        int n = ids.size();
+        Map<Long, Integer> index = new HashMap<>(n * 2);
+        long[] studentIds = new long[n];
+        int[] formula = new int[n];
+        for (int s = 0; s < n; s++) {
+            studentIds[s] = ids.get(s);
+            index.put(studentIds[s], s);
+            formula[s] = formulas.resolve(orgs.get(s));
+        }
+        double[][] scores = new double[FinalGradeCalculator.COMPONENTS][n];
+        for (double[] column : scores) Arrays.fill(column, Double.NaN);
+        jdbcTemplate.query(REVIEW_SCORES_SQL, rs -> {
+            fill(scores, index, rs.getLong(1), rs.getString(2), rs.getDouble(3));
+        });
+        jdbcTemplate.query(DEFENSE_SCORES_SQL, rs -> {
+            fill(scores, index, rs.getLong(1), rs.getString(2), rs.getDouble(3));
+        });
+        long loadedAt = System.currentTimeMillis();
+
+        double[] result = new double[n];
+        boolean[] complete = new boolean[n];
+        FinalGradeCalculator.computeAll(scores, formula, formulas.weights(), result, complete, pool);
+        long computedAt = System.currentTimeMillis();
+
+        List<Integer> rows = new ArrayList<>(n);
+        int completeCount = 0;
+        for (int s = 0; s < n; s++) {
+            if (formula[s] < 0) continue;
+            rows.add(s);
+            if (complete[s]) completeCount++;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, 1000, (ps, s) -> {
+            double[] row = new double[FinalGradeCalculator.COMPONENTS];
+            for (int c = 0; c < row.length; c++) row[c] = scores[c][s];
+            GradeFormula f = formulas.list.get(formula[s]);
+            bind(ps, studentIds[s], orgs.get(s), f, row, result[s], complete[s], now);
+        });
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("最终成绩计算完成：学生 {} 人，写入 {} 人，成绩齐全 {} 人，读取 {}ms，计算 {}ms，总耗时 {}ms",
+                n, rows.size(), completeCount, loadedAt - start, computedAt - loadedAt, elapsed);
+        return new ComputeResult(n, rows.size(), completeCount, n - rows.size(), elapsed);
+    }
+
+    /** 事务提交后重算该学生；失败只记录日志，下次全量计算会纠正。 */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onScoreChanged(ScoreChangedEvent event) {
+        if (event.studentId() == null) return;
+        if (running.get()) {
+            changedDuringRun.add(event.studentId());
+        }
+        try {
+            recompute(event.studentId());
+        } catch (RuntimeException e) {
+            log.warn("重算学生 {} 的最终成绩失败：{}", event.studentId(), e.getMessage());
+        }
+    }
+
+    /** 只读取该学生的成绩重算并写回；没有适用公式时不写。 */
+    public void recompute(Long studentId) {
+        List<Long> org = jdbcTemplate.query(STUDENT_ORG_SQL, (rs, i) -> {
+            long o = rs.getLong(1);
+            return rs.wasNull() ? null : o;
+        }, studentId);
+        if (org.isEmpty()) return;
+        Formulas formulas = loadFormulas();
+        int f = formulas.resolve(org.get(0));
+        if (f < 0) return;
+        double[][] scores = new double[FinalGradeCalculator.COMPONENTS][1];
+        for (double[] column : scores) column[0] = Double.NaN;
+        Map<Long, Integer> index = Map.of(studentId, 0);
+        jdbcTemplate.query(STUDENT_REVIEW_SCORES_SQL, rs -> {
+            fill(scores, index, rs.getLong(1), rs.getString(2), rs.getDouble(3));
+        }, studentId);
+        jdbcTemplate.query(STUDENT_DEFENSE_SCORES_SQL, rs -> {
+            fill(scores, index, rs.getLong(1), rs.getString(2), rs.getDouble(3));
+        }, studentId);
+        double[] row = new double[FinalGradeCalculator.COMPONENTS];
+        for (int c = 0; c < row.length; c++) row[c] = scores[c][0];
+        double[] w = formulas.weights()[f];
+        double result = FinalGradeCalculator.compute(w, row);
+        boolean complete = FinalGradeCalculator.isComplete(w, row);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(UPSERT_SQL, ps -> bind(ps, studentId, org.get(0), formulas.list.get(f), row, result, complete, now));
+    }
+
+    private static void fill(double[][] scores, Map<Long, Integer> index, long studentId, String type, double value) {
+        Integer s = index.get(studentId);
+        if (s == null || type == null) return;
+        int c = switch (type) {
+            case "ADVISOR" -> FinalGradeCalculator.ADVISOR;
+            case "CROSS" -> FinalGradeCalculator.CROSS;
+            case "OPENING" -> FinalGradeCalculator.OPENING;
+            case "FINAL" -> FinalGradeCalculator.DEFENSE;
+            default -> -1;
+        };
+        if (c >= 0) scores[c][s] = value;
+    }
+
+    private static void bind(PreparedStatement ps, long studentId, Long orgId, GradeFormula f, double[] row,
+                             double result, boolean complete, Timestamp now) throws SQLException {
+        ps.setLong(1, studentId);
+        if (orgId == null) ps.setNull(2, Types.BIGINT);
+        else ps.setLong(2, orgId);
+        ps.setLong(3, f.getId());
+        ps.setInt(4, f.getVersion() == null ? 1 : f.getVersion());
+        for (int c = 0; c < row.length; c++) {
+            setScore(ps, 5 + c, row[c]);
+        }
+        setScore(ps, 9, result);
+        ps.setBoolean(10, complete);
+        ps.setTimestamp(11, now);
+    }
+
+    private static void setScore(PreparedStatement ps, int i, double v) throws SQLException {
+        if (Double.isNaN(v)) ps.setNull(i, Types.DOUBLE);
+        else ps.setDouble(i, v);
+    }
+
+    private Formulas loadFormulas() {
+        Map<Long, Long> parent = new HashMap<>();
+        jdbcTemplate.query(ORGS_SQL, rs -> {
+            long p = rs.getLong(2);
+            if (!rs.wasNull()) parent.put(rs.getLong(1), p);
+        });
+        return new Formulas(formulaRepository.findAll(), parent);
+    }
+
+    /** 公式列表及单位到公式下标的解析（向上查找最近的上级单位公式，带缓存）。 */
+    private static final class Formulas {
+        final List<GradeFormula> list;
+        private final Map<Long, Long> parent;
+        private final Map<Long, Integer> byOrg = new HashMap<>();
+        private final Map<Long, Integer> resolved = new HashMap<>();
+        private int fallback = -1;
+
+        Formulas(List<GradeFormula> list, Map<Long, Long> parent) {
+            this.list = list;
+            this.parent = parent;
+            for (int i = 0; i < list.size(); i++) {
+                Long org = list.get(i).getOrgId();
+                if (org == null) fallback = i;
+                else byOrg.put(org, i);
+            }
+        }
+
+        int resolve(Long orgId) {
+            if (orgId == null) return fallback;
+            Integer cached = resolved.get(orgId);
+            if (cached != null) return cached;
+            int f = fallback;
+            Long o = orgId;
+            // 层级有环时最多向上查找 32 层
+            for (int depth = 0; o != null && depth < 32; depth++) {
+                Integer hit = byOrg.get(o);
+                if (hit != null) {
+                    f = hit;
+                    break;
+                }
+                o = parent.get(o);
+            }
+            resolved.put(orgId, f);
+            return f;
+        }
+
+        double[][] weights() {
+            double[][] w = new double[list.size()][];
+            for (int i = 0; i < w.length; i++) w[i] = FinalGradeCalculator.weights(list.get(i));
+            return w;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * @param written   写入最终成绩的学生数
+     * @param complete  其中各项成绩齐全的人数
+     * @param noFormula 没有适用公式、未计算的学生数
+     */
+    public record ComputeResult(int students, int written, int complete, int noFormula, long elapsedMs) {}
+}
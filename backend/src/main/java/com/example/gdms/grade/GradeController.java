@@ -0,0 +1,73 @@
+package com.example.gdms.grade;
+
+import com.example.gdms.common.ApiResponse;
+import com.example.gdms.security.CurrentUser;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/grades")
+public class GradeController {
+    private final FinalGradeService finalGradeService;
+
+    public GradeController(FinalGradeService finalGradeService) {
+        this.finalGradeService = finalGradeService;
+    }
+
+    @GetMapping("/formulas")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ApiResponse<List<GradeFormula>> formulas() {
+        return ApiResponse.ok(finalGradeService.formulas());
+    }
+
+    /** 按 orgId 新建或覆盖公式，orgId 为空表示默认公式。 */
+    @PutMapping("/formulas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<GradeFormula> saveFormula(@RequestBody GradeFormula formula) {
+        return ApiResponse.ok(finalGradeService.saveFormula(formula));
+    }
+
+    @DeleteMapping("/formulas/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<?> deleteFormula(@PathVariable Long id) {
+        finalGradeService.deleteFormula(id);
+        return ApiResponse.ok();
+    }
+
+    @PostMapping("/final/compute")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<FinalGradeService.ComputeResult> compute() {
+        return ApiResponse.ok(finalGradeService.computeAll());
+    }
+
+    @GetMapping("/final")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ApiResponse<Page<FinalGrade>> finalGrades(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Long orgId,
+            @RequestParam(required = false) Boolean complete) {
+        if (size > 100) {
+            size = 100;
+        }
+        if (size < 1) {
+            size = 20;
+        }
+        Pageable pageable = PageRequest.of(Math.max(page, 0), size, Sort.by(Sort.Direction.ASC, "studentId"));
+        return ApiResponse.ok(finalGradeService.page(pageable, orgId, complete));
+    }
+
+    @GetMapping("/final/my")
+    public ApiResponse<FinalGrade> myFinalGrade(CurrentUser user) {
+        if (user == null || user.id() == null) {
+            throw new IllegalArgumentException("无法识别用户身份");
+        }
+        return ApiResponse.ok(finalGradeService.forStudent(user.id()).orElse(null));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.gdms.grade;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 最终成绩计算公式：各项成绩的权重。公式按单位配置，学生取所在单位或最近上级单位的公式，都没有时使用默认公式（orgId 为空）。
+ * 权重不要求和为 1，计算时按已有成绩项的权重归一。
+ */
+@Entity
+@Table(name = "grade_formula")
+@Data
+public class GradeFormula {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(unique = true)
+    private Long orgId;
+    private String name;
+    private Double advisorWeight = 0.0; // 指导教师评阅
+    private Double crossWeight = 0.0; // 交叉评阅
+    private Double openingWeight = 0.0; // 开题答辩
+    private Double defenseWeight = 0.0; // 毕业答辩
+    private Integer version = 1; // 每次修改加一，最终成绩记录计算时所用的版本
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -0,0 +1,10 @@
+package com.example.gdms.grade;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface GradeFormulaRepository extends JpaRepository<GradeFormula, Long> {
+    Optional<GradeFormula> findByOrgId(Long orgId);
+    Optional<GradeFormula> findFirstByOrgIdIsNull();
+}
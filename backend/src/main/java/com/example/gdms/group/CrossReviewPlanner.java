@@ -0,0 +1,129 @@
+package com.example.gdms.group;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * 交叉评阅分配：每个学生需要若干名评阅教师，不能是自己的指导教师或已评阅过的教师，
+ * 优先同单位教师，同时让所有教师的待评阅量尽量均衡。
+ * <p>
+ * 每个评阅任务是单位工作量，始终从当前负载最小的可用教师中选取即可使最大负载最小；
+ * 同单位教师只要负载不超过全局最小负载 + slack 就优先选用。教师负载放在以 (负载, 下标) 编码的小顶堆中，
+ * 负载变化后压入新条目、旧条目出堆时丢弃。复杂度 O(任务数 × log 教师数)。
+ */
+final class CrossReviewPlanner {
+
+    private CrossReviewPlanner() {
+    }
+
+    /**
+     * @param load       load[t] 为教师 t 当前待评阅数量，分配过程中原地累加
+     * @param teacherOrg teacherOrg[t] 为教师所在单位下标，无单位为 -1
+     * @param studentOrg studentOrg[s] 为学生所在单位下标，无单位为 -1
+     * @param excluded   excluded[s] 为学生 s 不能分配的教师下标（指导教师、已有评阅人）
+     * @param need       need[s] 为学生 s 还需要的评阅人数
+     * @param slack      同单位教师允许比全局最小负载多出的任务数
+     * @return result[s] 为新分配给学生 s 的教师下标，教师不足时少于 need[s]
+     */
+    static int[][] plan(int[] load, int[] teacherOrg, int[] studentOrg, int[][] excluded, int[] need, int slack) {
+        int orgCount = 0;
+        for (int o : teacherOrg) orgCount = Math.max(orgCount, o + 1);
+        for (int o : studentOrg) orgCount = Math.max(orgCount, o + 1);
+
+        PriorityQueue<Long> global = new PriorityQueue<>();
+        @SuppressWarnings("unchecked")
+        PriorityQueue<Long>[] byOrg = new PriorityQueue[orgCount];
+        for (int t = 0; t < load.length; t++) {
+            global.add(encode(load[t], t));
+            int o = teacherOrg[t];
+            if (o >= 0) {
+                if (byOrg[o] == null) byOrg[o] = new PriorityQueue<>();
+                byOrg[o].add(encode(load[t], t));
+            }
+        }
+
+        int[][] result = new int[studentOrg.length][];
+        for (int s : interleaveByOrg(studentOrg, orgCount)) {
+            int[] picked = new int[need[s]];
+            int count = 0;
+            PriorityQueue<Long> own = studentOrg[s] >= 0 ? byOrg[studentOrg[s]] : null;
+            while (count < need[s]) {
+                int[] blocked = excluded[s];
+                long g = pollValid(global, load, blocked, picked, count);
+                if (g < 0) break; // 可用教师已用尽
+                long o = own == null ? -1 : pollValid(own, load, blocked, picked, count);
+                int t;
+                if (o >= 0 && (o >>> 32) <= (g >>> 32) + slack) {
+                    t = (int) o;
+                    global.add(g);
+                } else {
+                    t = (int) g;
+                    if (o >= 0) own.add(o);
+                }
+                picked[count++] = t;
+                load[t]++;
+                global.add(encode(load[t], t));
+                if (teacherOrg[t] >= 0) byOrg[teacherOrg[t]].add(encode(load[t], t));
+            }
+            result[s] = count == picked.length ? picked : Arrays.copyOf(picked, count);
+        }
+        return result;
+    }
+
+    /**
+     * 按单位轮流排列学生。若同一单位的学生连续处理，会先把本单位教师推高到 slack 上限，
+     * 之后只能溢出到其他单位，使后面的单位失去同单位匹配。
+     */
+    private static int[] interleaveByOrg(int[] studentOrg, int orgCount) {
+        int[] counts = new int[orgCount + 1];
+        for (int o : studentOrg) counts[o + 1]++;
+        int[][] buckets = new int[orgCount + 1][];
+        for (int b = 0; b <= orgCount; b++) buckets[b] = new int[counts[b]];
+        int[] fill = new int[orgCount + 1];
+        for (int s = 0; s < studentOrg.length; s++) {
+            int b = studentOrg[s] + 1;
+            buckets[b][fill[b]++] = s;
+        }
+        int[] order = new int[studentOrg.length];
+        int n = 0;
+        for (int round = 0; n < order.length; round++) {
+            for (int[] bucket : buckets) {
+                if (round < bucket.length) order[n++] = bucket[round];
+            }
+        }
+        return order;
+    }
+
+    /** 取出负载最小且对该学生可用的教师条目，跳过的可用条目放回堆中；没有时返回 -1。 */
+    private static long pollValid(PriorityQueue<Long> heap, int[] load, int[] blocked, int[] picked, int count) {
+        long found = -1;
+        long[] skipped = null;
+        int skippedCount = 0;
+        while (!heap.isEmpty()) {
+            long e = heap.poll();
+            int t = (int) e;
+            if ((e >>> 32) != load[t]) continue; // 过期条目
+            if (contains(blocked, blocked.length, t) || contains(picked, count, t)) {
+                if (skipped == null) skipped = new long[4];
+                if (skippedCount == skipped.length) skipped = Arrays.copyOf(skipped, skippedCount * 2);
+                skipped[skippedCount++] = e;
+                continue;
+            }
+            found = e;
+            break;
+        }
+        for (int i = 0; i < skippedCount; i++) heap.add(skipped[i]);
+        return found;
+    }
+
+    private static boolean contains(int[] values, int length, int t) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == t) return true;
+        }
+        return false;
+    }
+
+    private static long encode(int load, int teacher) {
+        return ((long) load << 32) | teacher;
+    }
+}
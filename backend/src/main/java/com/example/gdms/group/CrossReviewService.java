@@ -0,0 +1,180 @@
+package com.example.gdms.group;
+
+import com.example.gdms.common.ServiceBusyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 自动生成交叉评阅任务：一次读出全部有效选题、教师与已有评阅任务，在内存中用 {@link CrossReviewPlanner}
+ * 计算分配（排除指导教师与已评阅过的教师、同单位优先、负载均衡），结果批量写入。
+ */
+@Service
+public class CrossReviewService {
+    private static final Logger log = LoggerFactory.getLogger(CrossReviewService.class);
+    private static final String TYPE = "CROSS";
+    private static final String SELECTIONS_SQL = """
+            SELECT s.student_id, s.topic_id, t.creator_id, u.org_id
+            FROM student_selections s
+            JOIN topics t ON t.id = s.topic_id
+            LEFT JOIN users u ON u.id = s.student_id
+            WHERE s.status IN ('SELECTED', 'LOCKED')
+            ORDER BY s.id
+            """;
+    private static final String TEACHERS_SQL =
+            "SELECT id, org_id FROM users WHERE role = 'TEACHER' AND (enabled IS NULL OR enabled = TRUE) ORDER BY id";
+    private static final String PENDING_LOAD_SQL =
+            "SELECT reviewer_id, COUNT(*) FROM review_assignment WHERE status = 'PENDING' GROUP BY reviewer_id";
+    private static final String EXISTING_SQL =
+            "SELECT student_id, reviewer_id FROM review_assignment WHERE type = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO review_assignment (reviewer_id, student_id, topic_id, type, status, created_at) VALUES (?, ?, ?, ?, 'PENDING', ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultReviewers;
+    private final int orgSlack;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public CrossReviewService(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${app.cross-review.reviewers-per-student:1}") int defaultReviewers,
+                              @Value("${app.cross-review.org-slack:1}") int orgSlack) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.defaultReviewers = defaultReviewers;
+        this.orgSlack = orgSlack;
+    }
+
+    /**
+     * 同一时间只允许一次分配：分配以已有记录为基础补足人数，重叠运行会各自补一遍而产生重复记录。
+     * 在事务提交之后才放开，下一次运行能看到本次写入的记录。
+     *
+     * @param reviewersPerStudent 每个学生的交叉评阅人数（含已有的），为空时使用配置值
+     */
+    public CrossReviewResult autoAssign(Integer reviewersPerStudent) {
+        int k = reviewersPerStudent == null ? defaultReviewers : reviewersPerStudent;
+        if (k < 1 || k > 5) {
+            throw new IllegalArgumentException("每个学生的评阅人数必须在1-5之间");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new ServiceBusyException("交叉评阅正在分配，请稍后重试", 10);
+        }
+        try {
+            return transactionTemplate.execute(status -> doAutoAssign(k));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private CrossReviewResult doAutoAssign(int k) {
+
+        // 教师：ID 映射到下标，单位ID映射到单位下标
+        Map<Long, Integer> teacherIndex = new HashMap<>();
+        Map<Long, Integer> orgIndex = new HashMap<>();
+        List<Long> teacherIds = new ArrayList<>();
+        List<Integer> teacherOrgs = new ArrayList<>();
+        jdbcTemplate.query(TEACHERS_SQL, rs -> {
+            long id = rs.getLong(1);
+            long org = rs.getLong(2);
+            teacherIndex.put(id, teacherIds.size());
+            teacherIds.add(id);
+            teacherOrgs.add(rs.wasNull() ? -1 : orgIndex.computeIfAbsent(org, o -> orgIndex.size()));
+        });
+        if (teacherIds.isEmpty()) {
+            throw new IllegalStateException("没有可用教师");
+        }
+        int[] load = new int[teacherIds.size()];
+        jdbcTemplate.query(PENDING_LOAD_SQL, rs -> {
+            Integer t = teacherIndex.get(rs.getLong(1));
+            if (t != null) load[t] = rs.getInt(2);
+        });
+
+        Map<Long, List<Integer>> existing = new HashMap<>();
+        jdbcTemplate.query(EXISTING_SQL, rs -> {
+            Integer t = teacherIndex.get(rs.getLong(2));
+            existing.computeIfAbsent(rs.getLong(1), s -> new ArrayList<>()).add(t == null ? -1 : t);
+        }, TYPE);
+
+        // 学生：一人可能同时有 SELECTED 与 LOCKED 记录，取第一条
+        List<long[]> students = new ArrayList<>(); // [studentId, topicId]
+        List<Integer> studentOrgs = new ArrayList<>();
+        List<Integer> supervisors = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        jdbcTemplate.query(SELECTIONS_SQL, rs -> {
+            long studentId = rs.getLong(1);
+            if (!seen.add(studentId)) return;
+            students.add(new long[]{studentId, rs.getLong(2)});
+            Integer supervisor = teacherIndex.get(rs.getLong(3));
+            supervisors.add(supervisor == null ? -1 : supervisor);
+            long org = rs.getLong(4);
+            Integer o = rs.wasNull() ? null : orgIndex.get(org);
+            studentOrgs.add(o == null ? -1 : o);
+        });
+
+        int n = students.size();
+        int[] studentOrg = new int[n];
+        int[][] excluded = new int[n][];
+        int[] need = new int[n];
+        int alreadyCovered = 0;
+        for (int s = 0; s < n; s++) {
+            studentOrg[s] = studentOrgs.get(s);
+            List<Integer> prior = existing.getOrDefault(students.get(s)[0], List.of());
+            int[] ex = new int[prior.size() + 1];
+            ex[0] = supervisors.get(s);
+            for (int i = 0; i < prior.size(); i++) ex[i + 1] = prior.get(i);
+            excluded[s] = ex;
+            need[s] = Math.max(0, k - prior.size());
+            if (need[s] == 0) alreadyCovered++;
+        }
+        int[] teacherOrg = teacherOrgs.stream().mapToInt(Integer::intValue).toArray();
+
+        long start = System.nanoTime();
+        int[][] plan = CrossReviewPlanner.plan(load, teacherOrg, studentOrg, excluded, need, orgSlack);
+        long planMs = (System.nanoTime() - start) / 1_000_000;
+
+        List<long[]> rows = new ArrayList<>(); // [reviewerId, studentId, topicId]
+        int sameOrg = 0;
+        int shortOf = 0;
+        for (int s = 0; s < n; s++) {
+            if (plan[s].length < need[s]) shortOf++;
+            for (int t : plan[s]) {
+                rows.add(new long[]{teacherIds.get(t), students.get(s)[0], students.get(s)[1]});
+                if (studentOrg[s] >= 0 && teacherOrg[t] == studentOrg[s]) sameOrg++;
+            }
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, 1000, (ps, r) -> {
+            ps.setLong(1, r[0]);
+            ps.setLong(2, r[1]);
+            ps.setLong(3, r[2]);
+            ps.setString(4, TYPE);
+            ps.setTimestamp(5, now);
+        });
+
+        int minLoad = Arrays.stream(load).min().orElse(0);
+        int maxLoad = Arrays.stream(load).max().orElse(0);
+        log.info("交叉评阅分配完成：学生 {} 人，新建任务 {} 个，同单位 {} 个，教师待评阅量 {}-{}，计算耗时 {}ms",
+                n, rows.size(), sameOrg, minLoad, maxLoad, planMs);
+        return new CrossReviewResult(n, rows.size(), sameOrg, alreadyCovered, shortOf, minLoad, maxLoad);
+    }
+
+    /**
+     * @param created        本次新建的评阅任务数
+     * @param sameOrg        其中评阅教师与学生同单位的数量
+     * @param alreadyCovered 评阅人数已满足、本次跳过的学生数
+     * @param shortOf        可用教师不足、评阅人数未达要求的学生数
+     * @param minLoad        分配后教师待评阅量的最小值
+     * @param maxLoad        分配后教师待评阅量的最大值
+     */
+    public record CrossReviewResult(int students, int created, int sameOrg, int alreadyCovered, int shortOf,
+                                    int minLoad, int maxLoad) {}
+}
@@ -1,6 +1,7 @@
 package com.example.gdms.group;
 
 import com.example.gdms.common.ApiResponse;
+import com.example.gdms.security.CurrentUser;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -9,7 +10,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 
@@ -17,9 +17,16 @@ import java.util.Map;
 @RequestMapping("/api/defense")
 public class DefenseController {
     private final DefenseService defenseService;
+    private final CrossReviewService crossReviewService;
+    private final GradeAggregateService gradeAggregateService;
+    private final ScoreAnalyticsService scoreAnalyticsService;
 
-    public DefenseController(DefenseService defenseService) {
+    public DefenseController(DefenseService defenseService, CrossReviewService crossReviewService,
+                             GradeAggregateService gradeAggregateService, ScoreAnalyticsService scoreAnalyticsService) {
         this.defenseService = defenseService;
+        this.crossReviewService = crossReviewService;
+        this.gradeAggregateService = gradeAggregateService;
+        this.scoreAnalyticsService = scoreAnalyticsService;
     }
 
     @GetMapping("/groups")
@@ -72,9 +79,9 @@ public class DefenseController {
 
     @PostMapping("/groups/auto")
     @PreAuthorize("hasRole('ADMIN')")
-    public ApiResponse<List<GroupMember>> autoAssign(@RequestBody Map<String, Object> body, Principal principal) {
-        // 安全修复：确保principal不为null
-        if (principal == null) {
+    public ApiResponse<DefenseService.AutoAssignResult> autoAssign(@RequestBody Map<String, Object> body, CurrentUser user) {
+        // 安全修复：确保当前用户不为null
+        if (user == null) {
             throw new SecurityException("需要登录才能执行自动分配");
         }
         
@@ -87,7 +94,14 @@ public class DefenseController {
                 throw new IllegalArgumentException("无效的容量参数");
             }
         }
-        return ApiResponse.ok(defenseService.autoAssign(type, capacity));
+        boolean incremental = Boolean.parseBoolean(String.valueOf(body.getOrDefault("incremental", "false")));
+        DefenseGroupPlanner.Policy policy;
+        try {
+            policy = DefenseGroupPlanner.Policy.valueOf(String.valueOf(body.getOrDefault("supervisorPolicy", "SPREAD")));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分组策略，只支持SPREAD或TOGETHER");
+        }
+        return ApiResponse.ok(defenseService.autoAssign(type, capacity, incremental, policy));
     }
 
     @GetMapping("/groups/{groupId}/members")
@@ -109,9 +123,9 @@ public class DefenseController {
 
     @PostMapping("/reviews")
     @PreAuthorize("hasRole('ADMIN')")
-    public ApiResponse<ReviewAssignment> assignReview(@RequestBody Map<String, Object> body, Principal principal) {
-        // 安全修复：确保principal不为null
-        if (principal == null) {
+    public ApiResponse<ReviewAssignment> assignReview(@RequestBody Map<String, Object> body, CurrentUser user) {
+        // 安全修复：确保当前用户不为null
+        if (user == null) {
             throw new SecurityException("需要登录才能分配评阅任务");
         }
         
@@ -139,9 +153,9 @@ public class DefenseController {
 
     @PostMapping("/reviews/{id}/complete")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<ReviewAssignment> completeReview(@PathVariable Long id, @RequestBody Map<String, String> body, Principal principal) {
-        // 安全修复：确保principal不为null
-        if (principal == null) {
+    public ApiResponse<ReviewAssignment> completeReview(@PathVariable Long id, @RequestBody Map<String, String> body, CurrentUser user) {
+        // 安全修复：确保当前用户不为null
+        if (user == null) {
             throw new SecurityException("需要登录才能完成评阅");
         }
         
@@ -155,19 +169,14 @@ public class DefenseController {
             }
         }
         
-        Long currentId = currentUserId(principal);
-        if (currentId == null) {
-            throw new SecurityException("无法识别用户身份");
-        }
-        
-        return ApiResponse.ok(defenseService.completeReview(id, comment, score, currentId, isAdmin(principal)));
+        return ApiResponse.ok(defenseService.completeReview(id, comment, score, user.id(), user.isAdmin()));
     }
 
     @PostMapping("/scores")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<DefenseScore> score(@RequestBody Map<String, Object> body, Principal principal) {
-        // 安全修复：确保principal不为null
-        if (principal == null) {
+    public ApiResponse<DefenseScore> score(@RequestBody Map<String, Object> body, CurrentUser user) {
+        // 安全修复：确保当前用户不为null
+        if (user == null) {
             throw new SecurityException("需要登录才能记录分数");
         }
         
@@ -193,6 +202,18 @@ public class DefenseController {
         return ApiResponse.ok(defenseService.recordScore(groupId, studentId, score, comment));
     }
 
+    /** 一次提交整个分组的成绩，同一学生在该组已有成绩时覆盖。 */
+    @PostMapping("/groups/{groupId}/scores")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ApiResponse<DefenseService.BatchScoreResult> batchScores(@PathVariable Long groupId,
+                                                                    @RequestBody List<DefenseService.ScoreEntry> scores,
+                                                                    CurrentUser user) {
+        if (user == null) {
+            throw new SecurityException("需要登录才能记录分数");
+        }
+        return ApiResponse.ok(defenseService.recordScores(groupId, scores));
+    }
+
     @GetMapping("/scores/{groupId}")
     public ApiResponse<List<DefenseScore>> groupScores(@PathVariable Long groupId) {
         return ApiResponse.ok(defenseService.scoresByGroup(groupId));
@@ -200,15 +221,52 @@ public class DefenseController {
 
     @GetMapping("/grades")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<List<Map<String, Object>>> grades() {
-        return ApiResponse.ok(defenseService.gradeSummary());
+    public ApiResponse<Page<GradeAggregate>> grades(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Long groupId,
+            @RequestParam(required = false) Long orgId,
+            @RequestParam(required = false) String type) {
+        if (size > 100) {
+            size = 100;
+        }
+        if (size < 1) {
+            size = 20;
+        }
+        Pageable pageable = PageRequest.of(Math.max(page, 0), size, Sort.by(Sort.Direction.ASC, "studentId"));
+        return ApiResponse.ok(gradeAggregateService.page(pageable, groupId, orgId, type));
+    }
+
+    @PostMapping("/grades/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<GradeAggregateService.RebuildResult> rebuildGrades() {
+        return ApiResponse.ok(gradeAggregateService.rebuild());
+    }
+
+    /** 最近一次评分分析结果，尚未运行过时返回空。 */
+    @GetMapping("/analytics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<ScoreAnalyticsService.Snapshot> scoreAnalytics() {
+        return ApiResponse.ok(scoreAnalyticsService.latest().orElse(null));
+    }
+
+    @PostMapping("/analytics/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<ScoreAnalyticsService.Snapshot> runScoreAnalytics() {
+        return ApiResponse.ok(scoreAnalyticsService.run());
+    }
+
+    @GetMapping("/analytics/normalized")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ApiResponse<List<ScoreAnalyticsService.NormalizedScore>> normalizedScores(@RequestParam Long groupId) {
+        return ApiResponse.ok(scoreAnalyticsService.normalizedForGroup(groupId));
     }
 
     @PostMapping("/groups/{groupId}/members")
     @PreAuthorize("hasRole('ADMIN')")
-    public ApiResponse<GroupMember> addMember(@PathVariable Long groupId, @RequestBody Map<String, Object> body, Principal principal) {
-        // 安全修复：确保principal不为null
-        if (principal == null) {
+    public ApiResponse<GroupMember> addMember(@PathVariable Long groupId, @RequestBody Map<String, Object> body, CurrentUser user) {
+        // 安全修复：确保当前用户不为null
+        if (user == null) {
             throw new SecurityException("需要登录才能添加成员");
         }
         
@@ -238,12 +296,14 @@ public class DefenseController {
 
     @PostMapping("/reviews/auto-cross")
     @PreAuthorize("hasRole('ADMIN')")
-    public ApiResponse<List<ReviewAssignment>> autoCrossReview(Principal principal) {
-        // 安全修复：确保principal不为null
-        if (principal == null) {
+    public ApiResponse<CrossReviewService.CrossReviewResult> autoCrossReview(
+            @RequestParam(value = "reviewers", required = false) Integer reviewers,
+            CurrentUser user) {
+        // 安全修复：确保当前用户不为null
+        if (user == null) {
             throw new SecurityException("需要登录才能执行自动生成交叉评阅");
         }
-        return ApiResponse.ok(defenseService.autoCrossReview());
+        return ApiResponse.ok(crossReviewService.autoAssign(reviewers));
     }
 
     @GetMapping("/reviews")
@@ -251,12 +311,9 @@ public class DefenseController {
     public ApiResponse<List<ReviewAssignment>> reviewerTasks(@RequestParam("reviewerId") Long reviewerId,
                                                   @RequestParam(value = "status", required = false) String status,
                                                   @RequestParam(value = "type", required = false) String type,
-                                                  Principal principal) {
-        if (!isAdmin(principal)) {
-            Long currentId = currentUserId(principal);
-            if (currentId == null || !currentId.equals(reviewerId)) {
-                throw new SecurityException("无权查看他人评阅任务");
-            }
+                                                  CurrentUser user) {
+        if (user == null || (!user.isAdmin() && !user.id().equals(reviewerId))) {
+            throw new SecurityException("无权查看他人评阅任务");
         }
         return ApiResponse.ok(defenseService.reviewerTasks(reviewerId, status, type));
     }
@@ -269,18 +326,15 @@ public class DefenseController {
             @RequestParam("reviewerId") Long reviewerId,
             @RequestParam(value = "status", required = false) String status,
             @RequestParam(value = "type", required = false) String type,
-            Principal principal) {
-        // 安全修复：确保principal不为null
-        if (principal == null) {
+            CurrentUser user) {
+        // 安全修复：确保当前用户不为null
+        if (user == null) {
             throw new SecurityException("需要登录才能查看评阅任务");
         }
         
         // 权限检查：非管理员只能查看自己的评阅任务
-        if (!isAdmin(principal)) {
-            Long currentId = currentUserId(principal);
-            if (currentId == null || !currentId.equals(reviewerId)) {
-                throw new SecurityException("无权查看他人评阅任务");
-            }
+        if (!user.isAdmin() && !user.id().equals(reviewerId)) {
+            throw new SecurityException("无权查看他人评阅任务");
         }
         
         // 安全修复：限制分页大小，防止DoS攻击
@@ -295,19 +349,10 @@ public class DefenseController {
         return ApiResponse.ok(defenseService.findReviewTasks(pageable, reviewerId, status, type));
     }
 
-    private Long currentUserId(Principal principal) {
-        if (principal == null) return null;
-        return defenseService.findUserId(principal.getName());
-    }
-
-    private boolean isAdmin(Principal principal) {
-        return defenseService.isAdmin(principal);
-    }
-
     @GetMapping("/my-group")
     @PreAuthorize("hasRole('STUDENT')")
-    public ApiResponse<GroupMember> getMyGroup(Principal principal) {
-        Long studentId = currentUserId(principal);
+    public ApiResponse<GroupMember> getMyGroup(CurrentUser user) {
+        Long studentId = user != null ? user.id() : null;
         if (studentId == null) {
             throw new IllegalArgumentException("无法识别学生身份");
         }
@@ -316,8 +361,8 @@ public class DefenseController {
 
     @GetMapping("/my-scores")
     @PreAuthorize("hasRole('STUDENT')")
-    public ApiResponse<List<DefenseScore>> getMyScores(Principal principal) {
-        Long studentId = currentUserId(principal);
+    public ApiResponse<List<DefenseScore>> getMyScores(CurrentUser user) {
+        Long studentId = user != null ? user.id() : null;
         if (studentId == null) {
             throw new IllegalArgumentException("无法识别学生身份");
         }
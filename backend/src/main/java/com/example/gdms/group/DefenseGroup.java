@@ -15,6 +15,9 @@ public class DefenseGroup {
     private String name;
     private String type; // OPENING / FINAL
     private Integer capacity = 8;
+    // 只由 DefenseGroupRepository 的条件更新维护，保存实体时不写回；GroupMemberCountReconciler 定期校正
+    @Column(nullable = false, updatable = false)
+    private Integer memberCount = 0;
     private LocalDateTime createdAt = LocalDateTime.now();
 }
 
@@ -0,0 +1,181 @@
+package com.example.gdms.group;
+
+import java.util.*;
+
+/**
+ * 答辩分组规划，全部在内存中以下标计算。
+ * <p>
+ * 学生带有指导教师与方向两个属性（方向取指导教师所在单位），两种策略：
+ * <ul>
+ *   <li>SPREAD：同一指导教师的学生尽量分散到不同组，方向也尽量均匀，组间人数保持平衡；</li>
+ *   <li>TOGETHER：同一指导教师的学生整体放入同一组（超过容量时按容量拆分），同方向的教师优先合组。</li>
+ * </ul>
+ * 已有分组只用剩余容量参与分配，不足时追加新组。
+ */
+final class DefenseGroupPlanner {
+
+    enum Policy {
+        SPREAD, TOGETHER
+    }
+
+    private final int capacity;
+    private final List<Group> groups = new ArrayList<>();
+    private int existingCount;
+
+    /**
+     * @param capacity 新建分组的容量
+     */
+    DefenseGroupPlanner(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /** 登记一个已有分组，返回其下标。 */
+    int addExisting(int groupCapacity) {
+        groups.add(new Group(groupCapacity));
+        return existingCount++;
+    }
+
+    /** 已有分组中的成员，用于计入该组的指导教师与方向分布。 */
+    void addExistingMember(int group, int supervisor, int area) {
+        groups.get(group).add(supervisor, area);
+    }
+
+    /** 已有分组数之后的下标均为新建分组。 */
+    int existingCount() {
+        return existingCount;
+    }
+
+    int groupCount() {
+        return groups.size();
+    }
+
+    /**
+     * @param supervisor supervisor[s] 为学生 s 的指导教师下标，未知为 -1
+     * @param area       area[s] 为学生 s 的方向下标，未知为 -1
+     * @return groupOf[s] 为学生 s 分到的分组下标
+     */
+    int[] plan(int[] supervisor, int[] area, Policy policy) {
+        return policy == Policy.TOGETHER ? together(supervisor, area) : spread(supervisor, area);
+    }
+
+    private int[] spread(int[] supervisor, int[] area) {
+        int n = supervisor.length;
+        long spare = 0;
+        for (Group g : groups) spare += g.spare();
+        // 一次性补足新组，使各组人数能够均衡
+        for (long missing = n - spare; missing > 0; missing -= capacity) {
+            groups.add(new Group(capacity));
+        }
+        // 按方向、指导教师排序后依次放入：同一教师的学生相邻，逐个落到该教师人数最少的组
+        Integer[] order = sortedBy(supervisor, area);
+        int[] groupOf = new int[n];
+        for (int s : order) {
+            int best = -1;
+            for (int g = 0; g < groups.size(); g++) {
+                Group group = groups.get(g);
+                if (group.spare() <= 0) continue;
+                if (best < 0 || group.compareForSpread(groups.get(best), supervisor[s], area[s]) < 0) best = g;
+            }
+            groups.get(best).add(supervisor[s], area[s]);
+            groupOf[s] = best;
+        }
+        return groupOf;
+    }
+
+    private int[] together(int[] supervisor, int[] area) {
+        int n = supervisor.length;
+        int[] groupOf = new int[n];
+        // 以指导教师为块；未知教师的学生各自成块
+        Map<Integer, List<Integer>> blocks = new LinkedHashMap<>();
+        int solo = -2;
+        for (int s = 0; s < n; s++) {
+            blocks.computeIfAbsent(supervisor[s] >= 0 ? supervisor[s] : solo--, k -> new ArrayList<>()).add(s);
+        }
+        // 同方向的块相邻，方向内大块优先（First Fit Decreasing）
+        List<List<Integer>> ordered = new ArrayList<>(blocks.values());
+        ordered.sort(Comparator.<List<Integer>>comparingInt(b -> area[b.get(0)])
+                .thenComparing(Comparator.<List<Integer>>comparingInt(List::size).reversed()));
+        for (List<Integer> block : ordered) {
+            int blockArea = area[block.get(0)];
+            int sup = supervisor[block.get(0)];
+            int next = 0;
+            while (next < block.size()) {
+                int remaining = block.size() - next;
+                int target = bestFit(remaining, blockArea);
+                if (target < 0) {
+                    groups.add(new Group(capacity));
+                    target = groups.size() - 1;
+                }
+                int take = Math.min(remaining, groups.get(target).spare());
+                for (int i = 0; i < take; i++) {
+                    int s = block.get(next++);
+                    groups.get(target).add(sup, blockArea);
+                    groupOf[s] = target;
+                }
+            }
+        }
+        return groupOf;
+    }
+
+    /** 能整体容纳该块的分组中，同方向人数最多、剩余容量最小者；都放不下时返回 -1。 */
+    private int bestFit(int size, int blockArea) {
+        int best = -1;
+        for (int g = 0; g < groups.size(); g++) {
+            Group group = groups.get(g);
+            if (group.spare() < Math.min(size, capacity)) continue;
+            if (best < 0) {
+                best = g;
+                continue;
+            }
+            Group b = groups.get(best);
+            int cmp = Integer.compare(b.areaCount(blockArea), group.areaCount(blockArea));
+            if (cmp == 0) cmp = Integer.compare(group.spare(), b.spare());
+            if (cmp < 0) best = g;
+        }
+        return best;
+    }
+
+    private static Integer[] sortedBy(int[] supervisor, int[] area) {
+        Integer[] order = new Integer[supervisor.length];
+        for (int s = 0; s < order.length; s++) order[s] = s;
+        Arrays.sort(order, Comparator.<Integer>comparingInt(s -> area[s]).thenComparingInt(s -> supervisor[s]));
+        return order;
+    }
+
+    private static final class Group {
+        private final int capacity;
+        private int size;
+        private final Map<Integer, Integer> supervisors = new HashMap<>();
+        private final Map<Integer, Integer> areas = new HashMap<>();
+
+        Group(int capacity) {
+            this.capacity = capacity;
+        }
+
+        int spare() {
+            return capacity - size;
+        }
+
+        int areaCount(int area) {
+            return area < 0 ? 0 : areas.getOrDefault(area, 0);
+        }
+
+        int supervisorCount(int supervisor) {
+            return supervisor < 0 ? 0 : supervisors.getOrDefault(supervisor, 0);
+        }
+
+        void add(int supervisor, int area) {
+            size++;
+            if (supervisor >= 0) supervisors.merge(supervisor, 1, Integer::sum);
+            if (area >= 0) areas.merge(area, 1, Integer::sum);
+        }
+
+        /** 依次比较：该教师已有人数、组人数、同方向人数，越少越优先。 */
+        int compareForSpread(Group other, int supervisor, int area) {
+            int cmp = Integer.compare(supervisorCount(supervisor), other.supervisorCount(supervisor));
+            if (cmp == 0) cmp = Integer.compare(size, other.size);
+            if (cmp == 0) cmp = Integer.compare(areaCount(area), other.areaCount(area));
+            return cmp;
+        }
+    }
+}
@@ -2,7 +2,24 @@ package com.example.gdms.group;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface DefenseGroupRepository extends JpaRepository<DefenseGroup, Long>, JpaSpecificationExecutor<DefenseGroup> {
+
+    /** 仍有空位时成员数加一，返回 0 表示已满或分组不存在。 */
+    @Modifying
+    @Query("update DefenseGroup g set g.memberCount = g.memberCount + 1 where g.id = :id and g.memberCount < g.capacity")
+    int tryIncrementMemberCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("update DefenseGroup g set g.memberCount = g.memberCount - 1 where g.id = :id and g.memberCount > 0")
+    int decrementMemberCount(@Param("id") Long id);
+
+    /** 新容量不小于当前成员数时才修改，返回 0 表示成员数已超过新容量。 */
+    @Modifying
+    @Query("update DefenseGroup g set g.capacity = :capacity where g.id = :id and g.memberCount <= :capacity")
+    int tryUpdateCapacity(@Param("id") Long id, @Param("capacity") int capacity);
 }
 
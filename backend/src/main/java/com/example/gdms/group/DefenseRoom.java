@@ -0,0 +1,18 @@
+package com.example.gdms.group;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "defense_room")
+@Data
+public class DefenseRoom {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String name;
+    private String location;
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
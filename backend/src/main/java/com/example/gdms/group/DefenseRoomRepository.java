@@ -0,0 +1,9 @@
+package com.example.gdms.group;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface DefenseRoomRepository extends JpaRepository<DefenseRoom, Long> {
+    List<DefenseRoom> findAllByOrderByIdAsc();
+}
@@ -0,0 +1,29 @@
+package com.example.gdms.group;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/** 一次排程；求解在后台进行，同一类型以最新一次成功的排程为准。 */
+@Entity
+@Table(name = "defense_schedule")
+@Data
+public class DefenseSchedule {
+    public enum Status { RUNNING, SUCCEEDED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String type; // OPENING / FINAL
+    private Integer panelSize;
+    private Integer groupCount;
+    private Long hardViolations; // 0 表示所有硬约束均满足
+    private Long softCost;
+    private Long elapsedMs;
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    private String message; // 失败原因
+    private Long createdBy;
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
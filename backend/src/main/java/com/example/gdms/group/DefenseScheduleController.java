@@ -0,0 +1,124 @@
+package com.example.gdms.group;
+
+import com.example.gdms.common.ApiResponse;
+import com.example.gdms.security.CurrentUser;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/defense/schedule")
+public class DefenseScheduleController {
+    private final DefenseScheduleService scheduleService;
+
+    public DefenseScheduleController(DefenseScheduleService scheduleService) {
+        this.scheduleService = scheduleService;
+    }
+
+    @GetMapping("/rooms")
+    public ApiResponse<List<DefenseRoom>> rooms() {
+        return ApiResponse.ok(scheduleService.rooms());
+    }
+
+    @PostMapping("/rooms")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<DefenseRoom> createRoom(@RequestBody DefenseRoom room) {
+        room.setId(null);
+        return ApiResponse.ok(scheduleService.saveRoom(room));
+    }
+
+    @DeleteMapping("/rooms/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<?> deleteRoom(@PathVariable Long id) {
+        scheduleService.deleteRoom(id);
+        return ApiResponse.ok();
+    }
+
+    @GetMapping("/slots")
+    public ApiResponse<List<DefenseSlot>> slots() {
+        return ApiResponse.ok(scheduleService.slots());
+    }
+
+    @PostMapping("/slots")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<DefenseSlot> createSlot(@RequestBody DefenseSlot slot) {
+        slot.setId(null);
+        return ApiResponse.ok(scheduleService.saveSlot(slot));
+    }
+
+    @DeleteMapping("/slots/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<?> deleteSlot(@PathVariable Long id) {
+        scheduleService.deleteSlot(id);
+        return ApiResponse.ok();
+    }
+
+    /** 教师查看自己的不可用时段；管理员可指定 teacherId。 */
+    @GetMapping("/unavailability")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ApiResponse<List<Long>> unavailability(@RequestParam(required = false) Long teacherId, CurrentUser user) {
+        return ApiResponse.ok(scheduleService.unavailableSlots(resolveTeacher(teacherId, user)));
+    }
+
+    @PutMapping("/unavailability")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ApiResponse<List<Long>> setUnavailability(@RequestParam(required = false) Long teacherId,
+                                                     @RequestBody List<Long> slotIds,
+                                                     CurrentUser user) {
+        return ApiResponse.ok(scheduleService.setUnavailableSlots(resolveTeacher(teacherId, user), slotIds));
+    }
+
+    /** 立即返回 RUNNING 状态的排程，求解在后台进行；客户端轮询 /schedules 查看状态与结果。 */
+    @PostMapping("/generate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<DefenseSchedule> generate(@RequestBody Map<String, Object> body, CurrentUser user) {
+        String type = String.valueOf(body.getOrDefault("type", "FINAL"));
+        int panelSize;
+        Long budgetSeconds;
+        try {
+            panelSize = Integer.parseInt(String.valueOf(body.getOrDefault("panelSize", 3)));
+            budgetSeconds = body.get("budgetSeconds") == null ? null : Long.valueOf(body.get("budgetSeconds").toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的排程参数");
+        }
+        return ApiResponse.ok(scheduleService.generate(type, panelSize, budgetSeconds, user != null ? user.id() : null));
+    }
+
+    @GetMapping("/schedules")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ApiResponse<List<DefenseSchedule>> schedules() {
+        return ApiResponse.ok(scheduleService.schedules());
+    }
+
+    @GetMapping("/schedules/{id}/sessions")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ApiResponse<List<DefenseScheduleService.SessionView>> sessions(@PathVariable Long id) {
+        return ApiResponse.ok(scheduleService.sessions(id));
+    }
+
+    /** 当前用户在该类型最新排程中的安排：教师为其参加的答辩组，学生为其答辩时间与考场。 */
+    @GetMapping("/my")
+    public ApiResponse<List<DefenseScheduleService.SessionView>> my(@RequestParam(defaultValue = "FINAL") String type,
+                                                                    CurrentUser user) {
+        if (user == null || user.id() == null) {
+            throw new IllegalArgumentException("无法识别用户身份");
+        }
+        boolean teacher = "TEACHER".equalsIgnoreCase(user.role()) || user.isAdmin();
+        return ApiResponse.ok(scheduleService.mySessions(type, user.id(), teacher));
+    }
+
+    private Long resolveTeacher(Long teacherId, CurrentUser user) {
+        if (user == null || user.id() == null) {
+            throw new IllegalArgumentException("无法识别教师身份");
+        }
+        if (teacherId == null || teacherId.equals(user.id())) {
+            return user.id();
+        }
+        if (!user.isAdmin()) {
+            throw new SecurityException("无权修改他人的不可用时段");
+        }
+        return teacherId;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.gdms.group;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface DefenseScheduleRepository extends JpaRepository<DefenseSchedule, Long> {
+    List<DefenseSchedule> findAllByOrderByIdDesc();
+
+    // status 为空的是加入状态字段之前生成的排程，均已完成
+    @Query("select s from DefenseSchedule s where s.type = :type and (s.status is null or s.status = :status) order by s.id desc")
+    List<DefenseSchedule> findLatest(@Param("type") String type, @Param("status") DefenseSchedule.Status status, Pageable pageable);
+}
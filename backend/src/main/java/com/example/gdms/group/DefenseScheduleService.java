@@ -0,0 +1,400 @@
+package com.example.gdms.group;
+
+import com.example.gdms.common.DaemonThreadFactory;
+import com.example.gdms.common.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * 答辩排程：维护考场、时段与教师不可用时段，调用 {@link DefenseScheduler} 为某类答辩的全部分组排出时间、考场与答辩教师，
+ * 结果按学生、按教师各存一份（schedule_id + 用户ID 索引），个人查询只需一次索引查找。
+ */
+@Service
+public class DefenseScheduleService {
+    private static final Logger log = LoggerFactory.getLogger(DefenseScheduleService.class);
+    private static final String GROUP_MEMBERS_SQL = """
+            SELECT gm.group_id, gm.student_id, t.creator_id
+            FROM group_member gm
+            JOIN defense_group g ON g.id = gm.group_id
+            LEFT JOIN topics t ON t.id = gm.topic_id
+            WHERE g.type = ?
+            ORDER BY gm.group_id
+            """;
+    private static final String TEACHERS_SQL =
+            "SELECT id FROM users WHERE role = 'TEACHER' AND (enabled IS NULL OR enabled = TRUE) ORDER BY id";
+    private static final String INSERT_SESSION_SQL =
+            "INSERT INTO defense_session (schedule_id, group_id, room_id, slot_id) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_EXAMINER_SQL =
+            "INSERT INTO defense_session_examiner (schedule_id, teacher_id, group_id, room_id, slot_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_STUDENT_SQL =
+            "INSERT INTO defense_session_student (schedule_id, student_id, group_id, room_id, slot_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String FAIL_INTERRUPTED_SQL =
+            "UPDATE defense_schedule SET status = 'FAILED', message = ? WHERE status = 'RUNNING'";
+    private static final String SESSIONS_SQL = """
+            SELECT s.group_id, g.name AS group_name, s.room_id, r.name AS room_name, s.slot_id, sl.start_at, sl.end_at,
+                   (SELECT GROUP_CONCAT(e.teacher_id ORDER BY e.teacher_id) FROM defense_session_examiner e
+                     WHERE e.schedule_id = s.schedule_id AND e.group_id = s.group_id) AS examiner_ids
+            FROM defense_session s
+            LEFT JOIN defense_group g ON g.id = s.group_id
+            LEFT JOIN defense_room r ON r.id = s.room_id
+            LEFT JOIN defense_slot sl ON sl.id = s.slot_id
+            WHERE s.schedule_id = ?
+            ORDER BY sl.start_at, r.name
+            """;
+    private static final String MY_AS_EXAMINER_SQL = """
+            SELECT e.group_id, g.name AS group_name, e.room_id, r.name AS room_name, e.slot_id, sl.start_at, sl.end_at, NULL AS examiner_ids
+            FROM defense_session_examiner e
+            LEFT JOIN defense_group g ON g.id = e.group_id
+            LEFT JOIN defense_room r ON r.id = e.room_id
+            LEFT JOIN defense_slot sl ON sl.id = e.slot_id
+            WHERE e.schedule_id = ? AND e.teacher_id = ?
+            ORDER BY sl.start_at
+            """;
+    private static final String MY_AS_STUDENT_SQL = """
+            SELECT st.group_id, g.name AS group_name, st.room_id, r.name AS room_name, st.slot_id, sl.start_at, sl.end_at,
+                   (SELECT GROUP_CONCAT(e.teacher_id ORDER BY e.teacher_id) FROM defense_session_examiner e
+                     WHERE e.schedule_id = st.schedule_id AND e.group_id = st.group_id) AS examiner_ids
+            FROM defense_session_student st
+            LEFT JOIN defense_group g ON g.id = st.group_id
+            LEFT JOIN defense_room r ON r.id = st.room_id
+            LEFT JOIN defense_slot sl ON sl.id = st.slot_id
+            WHERE st.schedule_id = ? AND st.student_id = ?
+            """;
+
+    private final DefenseRoomRepository roomRepository;
+    private final DefenseSlotRepository slotRepository;
+    private final TeacherUnavailabilityRepository unavailabilityRepository;
+    private final DefenseScheduleRepository scheduleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService solverPool;
+    /** 发起求解并等待结果的后台线程；不能用 solverPool，否则会占住一个搜索线程 */
+    private final ExecutorService runner;
+    private final int threads;
+    private final long defaultBudgetSeconds;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public DefenseScheduleService(DefenseRoomRepository roomRepository,
+                                  DefenseSlotRepository slotRepository,
+                                  TeacherUnavailabilityRepository unavailabilityRepository,
+                                  DefenseScheduleRepository scheduleRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${app.defense-schedule.threads:0}") int threads,
+                                  @Value("${app.defense-schedule.time-budget-seconds:30}") long defaultBudgetSeconds) {
+        this.roomRepository = roomRepository;
+        this.slotRepository = slotRepository;
+        this.unavailabilityRepository = unavailabilityRepository;
+        this.scheduleRepository = scheduleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.defaultBudgetSeconds = defaultBudgetSeconds;
+        this.solverPool = Executors.newFixedThreadPool(this.threads, new DaemonThreadFactory("defense-schedule-"));
+        this.runner = Executors.newSingleThreadExecutor(new DaemonThreadFactory("defense-schedule-runner-"));
+    }
+
+    // ===== 考场与时段 =====
+
+    public List<DefenseRoom> rooms() {
+        return roomRepository.findAllByOrderByIdAsc();
+    }
+
+    public DefenseRoom saveRoom(DefenseRoom room) {
+        if (room.getName() == null || room.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("考场名称不能为空");
+        }
+        room.setName(room.getName().trim());
+        return roomRepository.save(room);
+    }
+
+    public void deleteRoom(Long id) {
+        roomRepository.deleteById(id);
+    }
+
+    public List<DefenseSlot> slots() {
+        return slotRepository.findAllByOrderByStartAtAsc();
+    }
+
+    public DefenseSlot saveSlot(DefenseSlot slot) {
+        if (slot.getStartAt() == null || slot.getEndAt() == null) {
+            throw new IllegalArgumentException("时段的开始和结束时间不能为空");
+        }
+        if (!slot.getEndAt().isAfter(slot.getStartAt())) {
+            throw new IllegalArgumentException("结束时间必须晚于开始时间");
+        }
+        return slotRepository.save(slot);
+    }
+
+    public void deleteSlot(Long id) {
+        slotRepository.deleteById(id);
+    }
+
+    public List<Long> unavailableSlots(Long teacherId) {
+        return unavailabilityRepository.findByTeacherId(teacherId).stream().map(TeacherUnavailability::getSlotId).toList();
+    }
+
+    /** 整体替换教师的不可用时段。 */
+    @Transactional
+    public List<Long> setUnavailableSlots(Long teacherId, Collection<Long> slotIds) {
+        unavailabilityRepository.deleteByTeacher(teacherId);
+        List<TeacherUnavailability> rows = new ArrayList<>();
+        for (Long slotId : new LinkedHashSet<>(slotIds)) {
+            TeacherUnavailability u = new TeacherUnavailability();
+            u.setTeacherId(teacherId);
+            u.setSlotId(slotId);
+            rows.add(u);
+        }
+        unavailabilityRepository.saveAll(rows);
+        return unavailableSlots(teacherId);
+    }
+
+    // ===== 排程 =====
+
+    /**
+     * 为某类答辩的全部非空分组排程。在请求线程上读取分组、教师与考场时段并校验，随即登记一条 RUNNING 状态的排程返回；
+     * 求解在后台并行进行（最多 budgetSeconds 秒），完成后在一个事务中批量写入并置为 SUCCEEDED，失败时置为 FAILED。
+     * 客户端轮询排程列表获取结果。同一时间只允许一个排程任务。
+     */
+    public DefenseSchedule generate(String type, int panelSize, Long budgetSeconds, Long operatorId) {
+        if (!"OPENING".equals(type) && !"FINAL".equals(type)) {
+            throw new IllegalArgumentException("无效的分组类型，只支持OPENING或FINAL");
+        }
+        if (panelSize < 1 || panelSize > 9) {
+            throw new IllegalArgumentException("答辩教师人数必须在1-9之间");
+        }
+        long budget = budgetSeconds == null ? defaultBudgetSeconds : budgetSeconds;
+        if (budget < 1 || budget > 300) {
+            throw new IllegalArgumentException("求解时间必须在1-300秒之间");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new ServiceBusyException("已有排程任务正在运行，请稍后重试", budget);
+        }
+        try {
+            Plan plan = plan(type, panelSize);
+            DefenseSchedule schedule = new DefenseSchedule();
+            schedule.setType(type);
+            schedule.setPanelSize(panelSize);
+            schedule.setGroupCount(plan.groupIds().size());
+            schedule.setStatus(DefenseSchedule.Status.RUNNING);
+            schedule.setCreatedBy(operatorId);
+            DefenseSchedule saved = scheduleRepository.save(schedule);
+            runner.execute(() -> solve(saved, plan, budget));
+            return saved;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /** 服务重启时后台求解随之中断，把遗留的 RUNNING 排程标记为失败。 */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterrupted() {
+        int n = jdbcTemplate.update(FAIL_INTERRUPTED_SQL, "服务重启，排程中断");
+        if (n > 0) {
+            log.warn("{} 个未完成的答辩排程已标记为失败", n);
+        }
+    }
+
+    private Plan plan(String type, int panelSize) {
+        List<DefenseRoom> rooms = rooms();
+        List<DefenseSlot> slots = slots();
+        if (rooms.isEmpty() || slots.isEmpty()) {
+            throw new IllegalStateException("请先配置答辩考场和时段");
+        }
+        List<Long> teacherIds = jdbcTemplate.queryForList(TEACHERS_SQL, Long.class);
+        Map<Long, Integer> teacherIndex = new HashMap<>();
+        for (int i = 0; i < teacherIds.size(); i++) teacherIndex.put(teacherIds.get(i), i);
+
+        // 分组 -> 学生与需回避的指导教师
+        Map<Long, List<Long>> groupStudents = new LinkedHashMap<>();
+        Map<Long, Set<Integer>> groupConflicts = new HashMap<>();
+        jdbcTemplate.query(GROUP_MEMBERS_SQL, rs -> {
+            long groupId = rs.getLong(1);
+            groupStudents.computeIfAbsent(groupId, g -> new ArrayList<>()).add(rs.getLong(2));
+            Integer supervisor = teacherIndex.get(rs.getLong(3));
+            if (supervisor != null) groupConflicts.computeIfAbsent(groupId, g -> new HashSet<>()).add(supervisor);
+        }, type);
+        if (groupStudents.isEmpty()) {
+            throw new IllegalStateException("没有需要排程的答辩分组");
+        }
+        List<Long> groupIds = new ArrayList<>(groupStudents.keySet());
+
+        Map<Long, Integer> slotIndex = new HashMap<>();
+        int[] slotDay = new int[slots.size()];
+        Map<LocalDate, Integer> dayIndex = new HashMap<>();
+        for (int s = 0; s < slots.size(); s++) {
+            slotIndex.put(slots.get(s).getId(), s);
+            slotDay[s] = dayIndex.computeIfAbsent(slots.get(s).getStartAt().toLocalDate(), d -> dayIndex.size());
+        }
+        boolean[][] unavailable = new boolean[teacherIds.size()][slots.size()];
+        for (TeacherUnavailability u : unavailabilityRepository.findAll()) {
+            Integer t = teacherIndex.get(u.getTeacherId());
+            Integer s = slotIndex.get(u.getSlotId());
+            if (t != null && s != null) unavailable[t][s] = true;
+        }
+        int[][] eligible = new int[groupIds.size()][];
+        for (int g = 0; g < groupIds.size(); g++) {
+            Set<Integer> conflicts = groupConflicts.getOrDefault(groupIds.get(g), Set.of());
+            eligible[g] = IntStream.range(0, teacherIds.size()).filter(t -> !conflicts.contains(t)).toArray();
+        }
+
+        if (groupIds.size() > (long) rooms.size() * slots.size()) {
+            throw new IllegalStateException("考场与时段组合数少于分组数，无法排程");
+        }
+        DefenseScheduler.Problem problem = new DefenseScheduler.Problem(
+                rooms.size(), slots.size(), teacherIds.size(), panelSize, slotDay, unavailable, eligible);
+        return new Plan(rooms, slots, teacherIds, groupIds, groupStudents, problem);
+    }
+
+    /** 后台线程：求解并写入结果，结束时放开排程锁。 */
+    private void solve(DefenseSchedule schedule, Plan plan, long budgetSeconds) {
+        long start = System.currentTimeMillis();
+        try {
+            DefenseScheduler.Result result = DefenseScheduler.solve(plan.problem(), budgetSeconds * 1000, threads, solverPool);
+            long elapsed = System.currentTimeMillis() - start;
+            log.info("{} 答辩排程完成：{} 个分组，硬约束冲突 {}，软代价 {}，{} 线程共 {} 步，耗时 {}ms",
+                    schedule.getType(), plan.groupIds().size(), result.hard(), result.soft(), threads,
+                    result.iterations(), elapsed);
+            transactionTemplate.executeWithoutResult(tx -> {
+                schedule.setHardViolations(result.hard());
+                schedule.setSoftCost(result.soft());
+                schedule.setElapsedMs(elapsed);
+                schedule.setStatus(DefenseSchedule.Status.SUCCEEDED);
+                scheduleRepository.save(schedule);
+                persist(schedule.getId(), plan.groupIds(), plan.groupStudents(), plan.rooms(), plan.slots(),
+                        plan.teacherIds(), result);
+            });
+        } catch (Exception e) {
+            String message;
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                message = "排程被中断";
+            } else {
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                message = "排程失败：" + cause.getMessage();
+            }
+            log.warn("{} 答辩排程 {} 失败", schedule.getType(), schedule.getId(), e);
+            fail(schedule, message, System.currentTimeMillis() - start);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void fail(DefenseSchedule schedule, String message, long elapsed) {
+        schedule.setStatus(DefenseSchedule.Status.FAILED);
+        schedule.setMessage(message.length() > 255 ? message.substring(0, 255) : message);
+        schedule.setElapsedMs(elapsed);
+        try {
+            scheduleRepository.save(schedule);
+        } catch (RuntimeException e) {
+            log.warn("记录答辩排程 {} 失败状态出错：{}", schedule.getId(), e.getMessage());
+        }
+    }
+
+    private void persist(long scheduleId, List<Long> groupIds, Map<Long, List<Long>> groupStudents,
+                         List<DefenseRoom> rooms, List<DefenseSlot> slots, List<Long> teacherIds,
+                         DefenseScheduler.Result result) {
+        List<long[]> sessions = new ArrayList<>(); // [groupId, roomId, slotId]
+        List<long[]> examiners = new ArrayList<>(); // [teacherId, groupId, roomId, slotId]
+        List<long[]> students = new ArrayList<>(); // [studentId, groupId, roomId, slotId]
+        for (int g = 0; g < groupIds.size(); g++) {
+            long groupId = groupIds.get(g);
+            long roomId = rooms.get(result.room()[g]).getId();
+            long slotId = slots.get(result.slot()[g]).getId();
+            sessions.add(new long[]{groupId, roomId, slotId});
+            for (int t : result.panel()[g]) {
+                examiners.add(new long[]{teacherIds.get(t), groupId, roomId, slotId});
+            }
+            for (Long studentId : groupStudents.get(groupId)) {
+                students.add(new long[]{studentId, groupId, roomId, slotId});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SESSION_SQL, sessions, 1000, (ps, r) -> {
+            ps.setLong(1, scheduleId);
+            ps.setLong(2, r[0]);
+            ps.setLong(3, r[1]);
+            ps.setLong(4, r[2]);
+        });
+        jdbcTemplate.batchUpdate(INSERT_EXAMINER_SQL, examiners, 1000, (ps, r) -> {
+            ps.setLong(1, scheduleId);
+            for (int i = 0; i < 4; i++) ps.setLong(i + 2, r[i]);
+        });
+        jdbcTemplate.batchUpdate(INSERT_STUDENT_SQL, students, 1000, (ps, r) -> {
+            ps.setLong(1, scheduleId);
+            for (int i = 0; i < 4; i++) ps.setLong(i + 2, r[i]);
+        });
+    }
+
+    public List<DefenseSchedule> schedules() {
+        return scheduleRepository.findAllByOrderByIdDesc();
+    }
+
+    public List<SessionView> sessions(Long scheduleId) {
+        return jdbcTemplate.query(SESSIONS_SQL, (rs, i) -> sessionView(rs), scheduleId);
+    }
+
+    /** 当前用户在该类型最新排程中的安排：教师为其参加的答辩组，学生为其所在分组。 */
+    public List<SessionView> mySessions(String type, Long userId, boolean teacher) {
+        List<DefenseSchedule> latest = scheduleRepository.findLatest(type, DefenseSchedule.Status.SUCCEEDED, PageRequest.of(0, 1));
+        if (latest.isEmpty()) {
+            return List.of();
+        }
+        String sql = teacher ? MY_AS_EXAMINER_SQL : MY_AS_STUDENT_SQL;
+        return jdbcTemplate.query(sql, (rs, i) -> sessionView(rs), latest.get(0).getId(), userId);
+    }
+
+    private static SessionView sessionView(ResultSet rs) throws SQLException {
+        String examinerIds = rs.getString("examiner_ids");
+        List<Long> examiners = examinerIds == null || examinerIds.isEmpty()
+                ? List.of()
+                : Arrays.stream(examinerIds.split(",")).map(Long::valueOf).toList();
+        return new SessionView(
+                rs.getLong("group_id"),
+                rs.getString("group_name"),
+                rs.getLong("room_id"),
+                rs.getString("room_name"),
+                rs.getLong("slot_id"),
+                toLocal(rs.getTimestamp("start_at")),
+                toLocal(rs.getTimestamp("end_at")),
+                examiners);
+    }
+
+    private static LocalDateTime toLocal(Timestamp ts) {
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        solverPool.shutdownNow();
+    }
+
+    /** 请求线程上准备好的求解输入。 */
+    private record Plan(List<DefenseRoom> rooms, List<DefenseSlot> slots, List<Long> teacherIds, List<Long> groupIds,
+                        Map<Long, List<Long>> groupStudents, DefenseScheduler.Problem problem) {}
+
+    public record SessionView(Long groupId, String groupName, Long roomId, String roomName, Long slotId,
+                              LocalDateTime startAt, LocalDateTime endAt, List<Long> examinerIds) {}
+}
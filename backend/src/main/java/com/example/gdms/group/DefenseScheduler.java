@@ -0,0 +1,284 @@
+package com.example.gdms.group;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 答辩排程求解器：为每个答辩分组安排一个（时段, 考场）并选出若干名答辩教师。
+ * <p>
+ * 硬约束：同一时段同一考场只安排一个分组；教师同一时段只参加一个答辩组；教师不可用时段不安排；
+ * 教师不评审自己指导的学生（通过候选教师表在构造时排除）。
+ * 软约束：教师答辩场次均衡（负载平方和），以及教师出场的天数尽量少。
+ * <p>
+ * 先贪心构造初始解，再由多个线程以不同随机种子并行做模拟退火，时间预算用尽或长时间无改进时停止，取代价最小者。
+ * 每一步只改动一个分组的位置或一名教师，代价按增量计算。
+ */
+final class DefenseScheduler {
+    static final long HARD_WEIGHT = 100_000L;
+    static final long DAY_WEIGHT = 3L;
+
+    private DefenseScheduler() {
+    }
+
+    /** 以下标描述的排程问题。 */
+    static final class Problem {
+        final int rooms;
+        final int slots;
+        final int teachers;
+        final int panelSize;
+        final int[] slotDay;
+        final boolean[][] unavailable;
+        final int[][] eligible;
+
+        /**
+         * @param slotDay     slotDay[s] 为时段所在日期下标
+         * @param unavailable unavailable[t][s] 为教师 t 在时段 s 不可用
+         * @param eligible    eligible[g] 为分组 g 可选的答辩教师下标（已排除组内学生的指导教师）
+         */
+        Problem(int rooms, int slots, int teachers, int panelSize, int[] slotDay, boolean[][] unavailable, int[][] eligible) {
+            this.rooms = rooms;
+            this.slots = slots;
+            this.teachers = teachers;
+            this.panelSize = panelSize;
+            this.slotDay = slotDay;
+            this.unavailable = unavailable;
+            this.eligible = eligible;
+        }
+
+        int groups() {
+            return eligible.length;
+        }
+
+        int days() {
+            int d = 0;
+            for (int day : slotDay) d = Math.max(d, day + 1);
+            return d;
+        }
+    }
+
+    /**
+     * @param slot       slot[g] 为分组 g 的时段下标
+     * @param room       room[g] 为分组 g 的考场下标
+     * @param panel      panel[g] 为分组 g 的答辩教师下标
+     * @param hard       剩余的硬约束冲突数，0 表示方案可行
+     * @param iterations 所有线程累计尝试的步数
+     */
+    record Result(int[] slot, int[] room, int[][] panel, long hard, long soft, long iterations) {}
+
+    static Result solve(Problem p, long budgetMs, int threads, ExecutorService executor) throws Exception {
+        if (p.groups() > (long) p.rooms * p.slots) {
+            throw new IllegalStateException("考场与时段组合数少于分组数，无法排程");
+        }
+        for (int g = 0; g < p.groups(); g++) {
+            if (p.eligible[g].length < p.panelSize) {
+                throw new IllegalStateException("第 " + (g + 1) + " 个分组可选答辩教师不足 " + p.panelSize + " 人");
+            }
+        }
+        long deadline = System.nanoTime() + budgetMs * 1_000_000L;
+        long seed = ThreadLocalRandom.current().nextLong();
+        List<Future<State>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long s = seed + i * 0x9E3779B97F4A7C15L;
+            futures.add(executor.submit(() -> new State(p, new SplittableRandom(s)).anneal(deadline)));
+        }
+        State best = null;
+        long iterations = 0;
+        for (Future<State> f : futures) {
+            State st = f.get();
+            iterations += st.iterations;
+            if (best == null || st.bestCost < best.bestCost) best = st;
+        }
+        return new Result(best.bestPos[0], best.bestPos[1], best.bestPanel, best.bestHard, best.bestCost - best.bestHard * HARD_WEIGHT, iterations);
+    }
+
+    /** 单个线程的搜索状态，所有计数都随移动增量维护。 */
+    private static final class State {
+        private final Problem p;
+        private final SplittableRandom random;
+        private final int[] pos;       // 分组 -> 时段 * rooms + 考场
+        private final int[] occupant;  // 位置 -> 分组，空为 -1
+        private final int[][] panel;
+        private final int[][] busy;    // [教师][时段]
+        private final int[][] dayCount; // [教师][日期]
+        private final int[] load;
+        private long hard;
+        private long soft;
+
+        long iterations;
+        long bestCost = Long.MAX_VALUE;
+        long bestHard;
+        int[][] bestPos;
+        int[][] bestPanel;
+
+        State(Problem p, SplittableRandom random) {
+            this.p = p;
+            this.random = random;
+            int g = p.groups();
+            this.pos = new int[g];
+            this.occupant = new int[p.rooms * p.slots];
+            Arrays.fill(occupant, -1);
+            this.panel = new int[g][p.panelSize];
+            this.busy = new int[p.teachers][p.slots];
+            this.dayCount = new int[p.teachers][p.days()];
+            this.load = new int[p.teachers];
+            construct();
+        }
+
+        /** 贪心初始解：候选教师少的分组先排，时段选当前最空的，教师选该时段空闲且负载最小的。 */
+        private void construct() {
+            int groups = p.groups();
+            Integer[] order = new Integer[groups];
+            for (int g = 0; g < groups; g++) order[g] = g;
+            // 同样候选数的分组随机打乱，使各线程的初始解不同
+            Integer[] tie = new Integer[groups];
+            for (int g = 0; g < groups; g++) tie[g] = random.nextInt();
+            Arrays.sort(order, Comparator.<Integer>comparingInt(g -> p.eligible[g].length).thenComparingInt(g -> tie[g]));
+            int[] used = new int[p.slots];
+            for (int g : order) {
+                int slot = -1;
+                for (int s = 0; s < p.slots; s++) {
+                    if (used[s] < p.rooms && (slot < 0 || used[s] < used[slot])) slot = s;
+                }
+                int q = slot * p.rooms + used[slot]++;
+                pos[g] = q;
+                occupant[q] = g;
+                int[] candidates = p.eligible[g].clone();
+                for (int i = 0; i < p.panelSize; i++) {
+                    int best = -1;
+                    for (int c = i; c < candidates.length; c++) {
+                        if (best < 0 || constructCost(candidates[c], slot) < constructCost(candidates[best], slot)) best = c;
+                    }
+                    int t = candidates[best];
+                    candidates[best] = candidates[i];
+                    candidates[i] = t;
+                    panel[g][i] = t;
+                    addTeacher(t, slot);
+                }
+            }
+            recordBest();
+        }
+
+        private long constructCost(int t, int slot) {
+            long c = (long) load[t] * 2;
+            if (busy[t][slot] > 0) c += 1000;
+            if (p.unavailable[t][slot]) c += 1000;
+            return c;
+        }
+
+        State anneal(long deadline) {
+            long start = System.nanoTime();
+            long total = Math.max(1, deadline - start);
+            double t0 = 50.0;
+            double t1 = 0.05;
+            double temperature = t0;
+            long lastImprovement = start;
+            long positions = (long) p.rooms * p.slots;
+            for (long i = 0; ; i++) {
+                if ((i & 1023) == 0) {
+                    long now = System.nanoTime();
+                    if (now >= deadline) break;
+                    // 已可行且长时间没有改进时提前结束
+                    if (bestHard == 0 && now - lastImprovement > total / 4) break;
+                    double progress = (double) (now - start) / total;
+                    temperature = t0 * Math.pow(t1 / t0, progress);
+                }
+                iterations++;
+                int g = random.nextInt(pos.length);
+                long before = cost();
+                if (random.nextInt(3) == 0) {
+                    int q = (int) random.nextLong(positions);
+                    int from = pos[g];
+                    if (q == from) continue;
+                    moveGroup(g, q);
+                    if (!accept(cost() - before, temperature)) moveGroup(g, from);
+                } else {
+                    int idx = random.nextInt(p.panelSize);
+                    int[] candidates = p.eligible[g];
+                    int u = candidates[random.nextInt(candidates.length)];
+                    if (inPanel(g, u)) continue;
+                    int t = panel[g][idx];
+                    replaceTeacher(g, idx, u);
+                    if (!accept(cost() - before, temperature)) replaceTeacher(g, idx, t);
+                }
+                if (cost() < bestCost) {
+                    recordBest();
+                    lastImprovement = System.nanoTime();
+                }
+            }
+            return this;
+        }
+
+        private boolean accept(long delta, double temperature) {
+            return delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature);
+        }
+
+        private long cost() {
+            return hard * HARD_WEIGHT + soft;
+        }
+
+        /** 把分组移到位置 q；q 已有分组时二者互换。 */
+        private void moveGroup(int g, int q) {
+            int from = pos[g];
+            int other = occupant[q];
+            relocate(g, from, q);
+            if (other >= 0) relocate(other, q, from);
+            occupant[q] = g;
+            occupant[from] = other;
+        }
+
+        private void relocate(int g, int from, int to) {
+            pos[g] = to;
+            int fromSlot = from / p.rooms;
+            int toSlot = to / p.rooms;
+            if (fromSlot == toSlot) return;
+            for (int t : panel[g]) {
+                removeTeacher(t, fromSlot);
+                addTeacher(t, toSlot);
+            }
+        }
+
+        private void replaceTeacher(int g, int idx, int u) {
+            int slot = pos[g] / p.rooms;
+            removeTeacher(panel[g][idx], slot);
+            panel[g][idx] = u;
+            addTeacher(u, slot);
+        }
+
+        private boolean inPanel(int g, int u) {
+            for (int t : panel[g]) {
+                if (t == u) return true;
+            }
+            return false;
+        }
+
+        private void addTeacher(int t, int slot) {
+            if (busy[t][slot]++ > 0) hard++;
+            if (p.unavailable[t][slot]) hard++;
+            soft += 2L * load[t]++ + 1;
+            if (dayCount[t][p.slotDay[slot]]++ == 0) soft += DAY_WEIGHT;
+        }
+
+        private void removeTeacher(int t, int slot) {
+            if (--busy[t][slot] > 0) hard--;
+            if (p.unavailable[t][slot]) hard--;
+            soft -= 2L * --load[t] + 1;
+            if (--dayCount[t][p.slotDay[slot]] == 0) soft -= DAY_WEIGHT;
+        }
+
+        private void recordBest() {
+            bestCost = cost();
+            bestHard = hard;
+            int[] slot = new int[pos.length];
+            int[] room = new int[pos.length];
+            for (int g = 0; g < pos.length; g++) {
+                slot[g] = pos[g] / p.rooms;
+                room[g] = pos[g] % p.rooms;
+            }
+            bestPos = new int[][]{slot, room};
+            bestPanel = new int[panel.length][];
+            for (int g = 0; g < panel.length; g++) bestPanel[g] = panel[g].clone();
+        }
+    }
+}
@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
-@Table(name = "defense_score")
+@Table(name = "defense_score", uniqueConstraints = @UniqueConstraint(columnNames = {"group_id", "student_id"}))
 @Data
 public class DefenseScore {
     @Id
@@ -3,9 +3,12 @@ package com.example.gdms.group;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface DefenseScoreRepository extends JpaRepository<DefenseScore, Long> {
     List<DefenseScore> findByGroupId(Long groupId);
     List<DefenseScore> findByStudentId(Long studentId);
+    long countByGroupId(Long groupId);
+    Optional<DefenseScore> findFirstByGroupIdAndStudentId(Long groupId, Long studentId);
 }
 
@@ -1,41 +1,85 @@
 package com.example.gdms.group;
 
-import com.example.gdms.topic.StudentSelection;
-import com.example.gdms.topic.StudentSelectionRepository;
 import com.example.gdms.user.User;
 import com.example.gdms.user.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
-import java.security.Principal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class DefenseService {
+    private static final String SELECTIONS_WITH_SUPERVISOR_SQL = """
+            SELECT s.student_id, s.topic_id, t.creator_id, u.org_id
+            FROM student_selections s
+            JOIN topics t ON t.id = s.topic_id
+            LEFT JOIN users u ON u.id = t.creator_id
+            WHERE s.status IN ('SELECTED', 'LOCKED')
+            ORDER BY s.id
+            """;
+    private static final String GROUPS_WITH_SIZE_SQL =
+            "SELECT id, capacity FROM defense_group WHERE type = ? ORDER BY id";
+    private static final String GROUP_MEMBERS_WITH_SUPERVISOR_SQL = """
+            SELECT gm.group_id, gm.student_id, t.creator_id, u.org_id
+            FROM group_member gm
+            JOIN defense_group g ON g.id = gm.group_id
+            LEFT JOIN topics t ON t.id = gm.topic_id
+            LEFT JOIN users u ON u.id = t.creator_id
+            WHERE g.type = ?
+            """;
+    private static final String INSERT_GROUP_SQL =
+            "INSERT INTO defense_group (name, type, capacity, created_at) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_MEMBER_SQL =
+            "INSERT INTO group_member (group_id, student_id, topic_id) VALUES (?, ?, ?)";
+    private static final String ADD_MEMBER_COUNT_SQL =
+            "UPDATE defense_group SET member_count = member_count + ? WHERE id = ? AND member_count + ? <= capacity";
+
+    private static final String UPSERT_SCORE_SQL = """
+            INSERT INTO defense_score (group_id, student_id, score, comment) VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE score = VALUES(score), comment = VALUES(comment)
+            """;
+    private static final int MAX_BATCH_SCORES = 500;
+
     private final DefenseGroupRepository groupRepository;
     private final GroupMemberRepository memberRepository;
     private final ReviewAssignmentRepository reviewRepository;
     private final DefenseScoreRepository scoreRepository;
-    private final StudentSelectionRepository selectionRepository;
     private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final GradeAggregateService gradeAggregateService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public DefenseService(DefenseGroupRepository groupRepository,
                           GroupMemberRepository memberRepository,
                           ReviewAssignmentRepository reviewRepository,
                           DefenseScoreRepository scoreRepository,
-                          StudentSelectionRepository selectionRepository,
-                          UserRepository userRepository) {
+                          UserRepository userRepository,
+                          JdbcTemplate jdbcTemplate,
+                          GradeAggregateService gradeAggregateService,
+                          ApplicationEventPublisher eventPublisher) {
         this.groupRepository = groupRepository;
         this.memberRepository = memberRepository;
         this.reviewRepository = reviewRepository;
         this.scoreRepository = scoreRepository;
-        this.selectionRepository = selectionRepository;
         this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.gradeAggregateService = gradeAggregateService;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<DefenseGroup> listGroups() {
@@ -71,6 +115,8 @@ public class DefenseService {
                 throw new IllegalArgumentException("分组容量不能超过100");
             }
         }
+        // 成员数只由添加、移除成员时的条件更新维护，忽略请求体中的值
+        g.setMemberCount(0);
         
         return groupRepository.save(g);
     }
@@ -84,6 +130,7 @@ public class DefenseService {
                 .orElseThrow(() -> new IllegalArgumentException("分组不存在"));
     }
 
+    @Transactional
     public DefenseGroup updateGroup(Long id, DefenseGroup g) {
         DefenseGroup existing = getGroupById(id);
         
@@ -111,10 +158,9 @@ public class DefenseService {
             if (g.getCapacity() > 100) {
                 throw new IllegalArgumentException("分组容量不能超过100");
             }
-            // 检查当前成员数是否超过新容量
-            List<GroupMember> members = memberRepository.findByGroupId(id);
-            if (members.size() > g.getCapacity()) {
-                throw new IllegalStateException("当前成员数(" + members.size() + ")已超过新容量(" + g.getCapacity() + ")");
+            // 检查当前成员数是否超过新容量：条件更新与添加成员的计数更新在同一行上串行
+            if (groupRepository.tryUpdateCapacity(id, g.getCapacity()) == 0) {
+                throw new IllegalStateException("当前成员数(" + existing.getMemberCount() + ")已超过新容量(" + g.getCapacity() + ")");
             }
             existing.setCapacity(g.getCapacity());
         }
@@ -125,8 +171,7 @@ public class DefenseService {
     @Transactional
     public void deleteGroup(Long id) {
         // 检查是否有成员
-        List<GroupMember> members = memberRepository.findByGroupId(id);
-        if (!members.isEmpty()) {
+        if (memberRepository.existsByGroupId(id)) {
             throw new IllegalStateException("该分组下存在成员，无法删除");
         }
         groupRepository.deleteById(id);
@@ -173,8 +218,15 @@ public class DefenseService {
         return reviewRepository.findAll(spec, pageable);
     }
 
+    /**
+     * 自动分组：一次读出有效选题（含指导教师及其单位）与已有分组，在内存中规划后用 JDBC 批量写入。
+     *
+     * @param incremental 为 true 时只安置尚未分组的学生，优先填入该类型已有分组的剩余容量；
+     *                    为 false 时要求所有学生均未分组，全部放入新建分组
+     * @param policy      同一指导教师的学生分散（SPREAD）或集中（TOGETHER）
+     */
     @Transactional
-    public List<GroupMember> autoAssign(String type, int capacity) {
+    public AutoAssignResult autoAssign(String type, int capacity, boolean incremental, DefenseGroupPlanner.Policy policy) {
         // 输入验证
         if (type == null || type.trim().isEmpty()) {
             throw new IllegalArgumentException("分组类型不能为空");
@@ -188,47 +240,136 @@ public class DefenseService {
         if (capacity > 100) {
             throw new IllegalArgumentException("分组容量不能超过100");
         }
-        
-        List<StudentSelection> selections = selectionRepository.findAll().stream()
-                .filter(s -> s.getStatus() == StudentSelection.SelectionStatus.SELECTED
-                        || s.getStatus() == StudentSelection.SelectionStatus.LOCKED)
-                .toList();
-        if (selections.isEmpty()) {
-            return List.of();
-        }
 
-        // 检查学生是否已经在其他分组中
-        for (StudentSelection s : selections) {
-            List<GroupMember> existing = memberRepository.findByStudentId(s.getStudentId());
-            if (!existing.isEmpty()) {
-                throw new IllegalStateException("学生ID " + s.getStudentId() + " 已在其他分组中，无法自动分配");
+        // 已分组学生（与手动添加成员的规则一致：一个学生只能在一个分组中）
+        Set<Long> grouped = new HashSet<>(jdbcTemplate.queryForList("SELECT student_id FROM group_member", Long.class));
+
+        Map<Long, Integer> supervisorIndex = new HashMap<>();
+        Map<Long, Integer> areaIndex = new HashMap<>();
+        List<long[]> students = new ArrayList<>(); // [studentId, topicId]
+        List<int[]> attrs = new ArrayList<>(); // [supervisor, area]
+        Set<Long> seen = new HashSet<>();
+        int[] alreadyGrouped = {0};
+        jdbcTemplate.query(SELECTIONS_WITH_SUPERVISOR_SQL, rs -> {
+            long studentId = rs.getLong(1);
+            if (!seen.add(studentId)) return;
+            if (grouped.contains(studentId)) {
+                alreadyGrouped[0]++;
+                return;
+            }
+            students.add(new long[]{studentId, rs.getLong(2)});
+            attrs.add(supervisorAndArea(rs, supervisorIndex, areaIndex));
+        });
+        if (!incremental && alreadyGrouped[0] > 0) {
+            throw new IllegalStateException("已有 " + alreadyGrouped[0] + " 名学生在其他分组中，无法全量自动分配，请使用增量模式");
+        }
+        if (students.isEmpty()) {
+            return new AutoAssignResult(0, 0, 0, alreadyGrouped[0]);
+        }
+
+        DefenseGroupPlanner planner = new DefenseGroupPlanner(capacity);
+        List<Long> existingGroupIds = new ArrayList<>();
+        Map<Long, Integer> existingIndex = new HashMap<>();
+        if (incremental) {
+            jdbcTemplate.query(GROUPS_WITH_SIZE_SQL, rs -> {
+                long groupId = rs.getLong(1);
+                existingIndex.put(groupId, planner.addExisting(rs.getInt(2)));
+                existingGroupIds.add(groupId);
+            }, type);
+            jdbcTemplate.query(GROUP_MEMBERS_WITH_SUPERVISOR_SQL, rs -> {
+                int[] a = supervisorAndArea(rs, supervisorIndex, areaIndex);
+                planner.addExistingMember(existingIndex.get(rs.getLong(1)), a[0], a[1]);
+            }, type);
+        }
+
+        int n = students.size();
+        int[] supervisor = new int[n];
+        int[] area = new int[n];
+        for (int i = 0; i < n; i++) {
+            supervisor[i] = attrs.get(i)[0];
+            area[i] = attrs.get(i)[1];
+        }
+        int[] groupOf = planner.plan(supervisor, area, policy);
+
+        // 新建分组：编号接在该类型已有分组之后，一次批量插入并取回自增ID
+        int existing = planner.existingCount();
+        int created = planner.groupCount() - existing;
+        Long typeCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM defense_group WHERE type = ?", Long.class, type);
+        long startNo = (typeCount == null ? 0 : typeCount) + 1;
+        List<Long> groupIds = new ArrayList<>(existingGroupIds);
+        groupIds.addAll(insertGroups(type, capacity, startNo, created));
+
+        Set<Integer> filled = new HashSet<>();
+        List<long[]> rows = new ArrayList<>(n); // [groupId, studentId, topicId]
+        for (int i = 0; i < n; i++) {
+            if (groupOf[i] < existing) filled.add(groupOf[i]);
+            rows.add(new long[]{groupIds.get(groupOf[i]), students.get(i)[0], students.get(i)[1]});
+        }
+        jdbcTemplate.batchUpdate(INSERT_MEMBER_SQL, rows, 1000, (ps, r) -> {
+            ps.setLong(1, r[0]);
+            ps.setLong(2, r[1]);
+            ps.setLong(3, r[2]);
+        });
+        // 按分组累加成员数；规划后有人手动加入导致超出容量时整体回滚
+        Map<Long, Integer> added = new HashMap<>();
+        for (long[] r : rows) added.merge(r[0], 1, Integer::sum);
+        int[][] counted = jdbcTemplate.batchUpdate(ADD_MEMBER_COUNT_SQL, new ArrayList<>(added.entrySet()), 1000, (ps, e) -> {
+            ps.setInt(1, e.getValue());
+            ps.setLong(2, e.getKey());
+            ps.setInt(3, e.getValue());
+        });
+        for (int[] batch : counted) {
+            for (int c : batch) {
+                if (c == 0) {
+                    throw new IllegalStateException("分组成员在分配过程中发生变化，请重试");
+                }
             }
         }
+        return new AutoAssignResult(n, created, filled.size(), alreadyGrouped[0]);
+    }
 
-        int groupCount = (int) Math.ceil((double) selections.size() / capacity);
-        List<DefenseGroup> groups = new ArrayList<>();
-        for (int i = 0; i < groupCount; i++) {
-            DefenseGroup g = new DefenseGroup();
-            g.setName(type + "-G" + (i + 1));
-            g.setType(type);
-            g.setCapacity(capacity);
-            groups.add(groupRepository.save(g));
-        }
-
-        List<GroupMember> members = new ArrayList<>();
-        int idx = 0;
-        for (StudentSelection s : selections) {
-            DefenseGroup g = groups.get(idx % groupCount);
-            GroupMember gm = new GroupMember();
-            gm.setGroupId(g.getId());
-            gm.setStudentId(s.getStudentId());
-            gm.setTopicId(s.getTopicId());
-            members.add(memberRepository.save(gm));
-            idx++;
-        }
-        return members;
+    private List<Long> insertGroups(String type, int capacity, long startNo, int count) {
+        if (count == 0) return List.of();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_GROUP_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int i = 0; i < count; i++) {
+                    ps.setString(1, type + "-G" + (startNo + i));
+                    ps.setString(2, type);
+                    ps.setInt(3, capacity);
+                    ps.setTimestamp(4, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Long> ids = new ArrayList<>(count);
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) ids.add(keys.getLong(1));
+                }
+                if (ids.size() != count) {
+                    throw new IllegalStateException("新建分组ID数量不一致");
+                }
+                return ids;
+            }
+        });
     }
 
+    // 结果集第 3、4 列为指导教师ID与其单位ID，单位作为课题方向
+    private static int[] supervisorAndArea(ResultSet rs, Map<Long, Integer> supervisorIndex, Map<Long, Integer> areaIndex) throws SQLException {
+        long sup = rs.getLong(3);
+        int supervisor = rs.wasNull() ? -1 : supervisorIndex.computeIfAbsent(sup, k -> supervisorIndex.size());
+        long org = rs.getLong(4);
+        int area = rs.wasNull() ? -1 : areaIndex.computeIfAbsent(org, k -> areaIndex.size());
+        return new int[]{supervisor, area};
+    }
+
+    /**
+     * @param placed         本次安置的学生数
+     * @param groupsCreated  新建分组数
+     * @param groupsFilled   本次补入了学生的已有分组数
+     * @param alreadyGrouped 已在分组中而跳过的学生数
+     */
+    public record AutoAssignResult(int placed, int groupsCreated, int groupsFilled, int alreadyGrouped) {}
+
     public List<GroupMember> members(Long groupId) {
         return memberRepository.findByGroupId(groupId);
     }
@@ -288,6 +429,7 @@ public class DefenseService {
         return all;
     }
 
+    @Transactional
     public GroupMember addMember(Long groupId, Long studentId, Long topicId) {
         // 输入验证
         if (groupId == null || groupId <= 0) {
@@ -297,64 +439,44 @@ public class DefenseService {
             throw new IllegalArgumentException("无效的学生ID");
         }
         
-        DefenseGroup group = getGroupById(groupId);
+        getGroupById(groupId);
         
         // 检查学生是否已经在其他分组中
-        List<GroupMember> studentGroups = memberRepository.findByStudentId(studentId);
-        if (!studentGroups.isEmpty()) {
+        if (memberRepository.existsByStudentId(studentId)) {
             throw new IllegalStateException("该学生已在其他分组中，无法重复添加");
         }
         
-        List<GroupMember> existing = memberRepository.findByGroupId(groupId);
-        if (existing.size() >= group.getCapacity()) {
-            throw new IllegalStateException("分组容量已满");
-        }
-        
         // 验证学生是否存在
-        User student = userRepository.findById(studentId).orElse(null);
-        if (student == null) {
+        if (!userRepository.existsById(studentId)) {
             throw new IllegalArgumentException("学生不存在");
         }
         
+        // 占用名额：条件更新在行锁下原子地检查并增加成员数
+        if (groupRepository.tryIncrementMemberCount(groupId) == 0) {
+            throw new IllegalStateException("分组容量已满");
+        }
+        
         GroupMember gm = new GroupMember();
         gm.setGroupId(groupId);
         gm.setStudentId(studentId);
         gm.setTopicId(topicId);
-        return memberRepository.save(gm);
-    }
-
-    public void removeMember(Long memberId) {
-        memberRepository.deleteById(memberId);
+        try {
+            return memberRepository.saveAndFlush(gm);
+        } catch (DataIntegrityViolationException e) {
+            // 并发添加同一学生时由唯一约束拦截，抛出后事务回滚，已占用的名额一并撤销
+            throw new IllegalStateException("该学生已在其他分组中，无法重复添加");
+        }
     }
 
     @Transactional
-    public List<ReviewAssignment> autoCrossReview() {
-        List<StudentSelection> selections = selectionRepository.findAll().stream()
-                .filter(s -> s.getStatus() == StudentSelection.SelectionStatus.SELECTED
-                        || s.getStatus() == StudentSelection.SelectionStatus.LOCKED)
-                .toList();
-        List<User> teachers = userRepository.findAll().stream()
-                .filter(u -> "TEACHER".equals(u.getRole()))
-                .toList();
-        if (teachers.isEmpty()) {
-            throw new IllegalStateException("没有可用教师");
-        }
-        List<ReviewAssignment> assignments = new ArrayList<>();
-        int teacherIdx = 0;
-        for (StudentSelection sel : selections) {
-            User teacher = teachers.get(teacherIdx % teachers.size());
-            if (!reviewRepository.existsByReviewerIdAndStudentIdAndType(teacher.getId(), sel.getStudentId(), "CROSS")) {
-                ReviewAssignment r = new ReviewAssignment();
-                r.setReviewerId(teacher.getId());
-                r.setStudentId(sel.getStudentId());
-                r.setTopicId(sel.getTopicId());
-                r.setType("CROSS");
-                r.setStatus("PENDING");
-                assignments.add(reviewRepository.save(r));
-            }
-            teacherIdx++;
+    public void removeMember(Long memberId) {
+        GroupMember member = memberRepository.findById(memberId).orElse(null);
+        if (member == null) {
+            return;
+        }
+        if (memberRepository.deleteMember(memberId) > 0) {
+            groupRepository.decrementMemberCount(member.getGroupId());
         }
-        return assignments;
     }
 
     public ReviewAssignment completeReview(Long reviewId, String comment, Double score, Long actorId, boolean isAdmin) {
@@ -386,9 +508,12 @@ public class DefenseService {
         r.setStatus("DONE");
         r.setComment(comment != null ? comment.trim() : null);
         r.setScore(score);
-        return reviewRepository.save(r);
+        ReviewAssignment saved = reviewRepository.save(r);
+        eventPublisher.publishEvent(new ScoreChangedEvent(saved.getStudentId()));
+        return saved;
     }
 
+    @Transactional
     public DefenseScore recordScore(Long groupId, Long studentId, Double score, String comment) {
         // 输入验证
         if (groupId == null || groupId <= 0) {
@@ -408,10 +533,7 @@ public class DefenseService {
         getGroupById(groupId);
         
         // 验证学生是否在该分组中
-        List<GroupMember> members = memberRepository.findByGroupId(groupId);
-        boolean studentInGroup = members.stream()
-                .anyMatch(m -> m.getStudentId().equals(studentId));
-        if (!studentInGroup) {
+        if (!memberRepository.existsByGroupIdAndStudentId(groupId, studentId)) {
             throw new IllegalStateException("该学生不在指定分组中");
         }
         
@@ -420,38 +542,74 @@ public class DefenseService {
             throw new IllegalArgumentException("评论长度不能超过1000个字符");
         }
         
-        DefenseScore ds = new DefenseScore();
-        ds.setGroupId(groupId);
-        ds.setStudentId(studentId);
-        ds.setScore(score);
-        ds.setComment(comment != null ? comment.trim() : null);
-        return scoreRepository.save(ds);
+        // 每个学生在一个分组只保留一条成绩：与批量录入相同，按 (分组, 学生) upsert 后按学生重算汇总，
+        // 并发的首次录入由唯一键合并为一条而不是冲突报错
+        jdbcTemplate.update(UPSERT_SCORE_SQL, groupId, studentId, score, comment != null ? comment.trim() : null);
+        gradeAggregateService.refreshStudents(List.of(studentId));
+        eventPublisher.publishEvent(new ScoreChangedEvent(studentId));
+        return scoreRepository.findFirstByGroupIdAndStudentId(groupId, studentId).orElseThrow();
     }
 
-    public List<DefenseScore> scoresByGroup(Long groupId) {
-        return scoreRepository.findByGroupId(groupId);
-    }
+    /**
+     * 一次录入某分组多个学生的成绩。成员关系只查询一次，成绩按 (分组, 学生) 批量 upsert，
+     * 随后按学生重算成绩汇总，返回该组的成绩概况和这些学生的汇总。
+     */
+    @Transactional
+    public BatchScoreResult recordScores(Long groupId, List<ScoreEntry> entries) {
+        DefenseGroup group = getGroupById(groupId);
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException("成绩列表不能为空");
+        }
+        if (entries.size() > MAX_BATCH_SCORES) {
+            throw new IllegalArgumentException("单次最多录入" + MAX_BATCH_SCORES + "条成绩");
+        }
+        Set<Long> members = new HashSet<>();
+        for (GroupMember m : memberRepository.findByGroupId(groupId)) {
+            members.add(m.getStudentId());
+        }
+        Set<Long> studentIds = new LinkedHashSet<>();
+        List<Long> notMembers = new ArrayList<>();
+        for (ScoreEntry e : entries) {
+            if (e == null || e.studentId() == null || e.studentId() <= 0) {
+                throw new IllegalArgumentException("无效的学生ID");
+            }
+            if (e.score() == null) {
+                throw new IllegalArgumentException("学生 " + e.studentId() + " 的分数不能为空");
+            }
+            if (e.score() < 0 || e.score() > 100) {
+                throw new IllegalArgumentException("学生 " + e.studentId() + " 的分数必须在0-100之间");
+            }
+            if (e.comment() != null && e.comment().length() > 1000) {
+                throw new IllegalArgumentException("学生 " + e.studentId() + " 的评论长度不能超过1000个字符");
+            }
+            if (!studentIds.add(e.studentId())) {
+                throw new IllegalArgumentException("学生 " + e.studentId() + " 的成绩重复提交");
+            }
+            if (!members.contains(e.studentId())) {
+                notMembers.add(e.studentId());
+            }
+        }
+        if (!notMembers.isEmpty()) {
+            throw new IllegalStateException("以下学生不在该分组中：" + notMembers);
+        }
 
-    public List<Map<String, Object>> gradeSummary() {
-        Map<Long, List<DefenseScore>> byStudent = scoreRepository.findAll().stream()
-                .collect(Collectors.groupingBy(DefenseScore::getStudentId));
-        List<Map<String, Object>> result = new ArrayList<>();
-        byStudent.forEach((sid, scores) -> {
-            double avg = scores.stream().mapToDouble(DefenseScore::getScore).average().orElse(0);
-            result.add(Map.of("studentId", sid, "avgScore", avg, "count", scores.size()));
+        jdbcTemplate.batchUpdate(UPSERT_SCORE_SQL, entries, 1000, (ps, e) -> {
+            ps.setLong(1, groupId);
+            ps.setLong(2, e.studentId());
+            ps.setDouble(3, e.score());
+            ps.setString(4, e.comment() != null ? e.comment().trim() : null);
         });
-        return result;
-    }
-
-    public Long findUserId(String username) {
-        return userRepository.findByUsername(username).map(User::getId).orElse(null);
+        gradeAggregateService.refreshStudents(studentIds);
+        for (Long studentId : studentIds) {
+            eventPublisher.publishEvent(new ScoreChangedEvent(studentId));
+        }
+        return new BatchScoreResult(entries.size(),
+                gradeAggregateService.groupSummary(groupId, members.size()),
+                gradeAggregateService.forStudents(studentIds, group.getType()));
     }
 
-    public boolean isAdmin(Principal principal) {
-        if (principal == null) return false;
-        return userRepository.findByUsername(principal.getName())
-                .map(u -> "ADMIN".equalsIgnoreCase(u.getRole()))
-                .orElse(false);
+    public List<DefenseScore> scoresByGroup(Long groupId) {
+        return scoreRepository.findByGroupId(groupId);
     }
 
     public Optional<GroupMember> getStudentGroup(Long studentId) {
@@ -469,13 +627,10 @@ public class DefenseService {
     // 获取分组详情（包含成员数量）
     public Map<String, Object> getGroupDetail(Long groupId) {
         DefenseGroup group = getGroupById(groupId);
-        List<GroupMember> members = memberRepository.findByGroupId(groupId);
-        List<DefenseScore> scores = scoreRepository.findByGroupId(groupId);
-        
         return Map.of(
                 "group", group,
-                "memberCount", members.size(),
-                "scoreCount", scores.size()
+                "memberCount", group.getMemberCount(),
+                "scoreCount", scoreRepository.countByGroupId(groupId)
         );
     }
 
@@ -507,5 +662,13 @@ public class DefenseService {
             return detail;
         }).collect(Collectors.toList());
     }
-}
 
+    public record ScoreEntry(Long studentId, Double score, String comment) {}
+
+    /**
+     * @param written  提交的成绩条数（新增与覆盖之和）
+     * @param group    写入后该组的成绩概况
+     * @param students 本次涉及学生的成绩汇总
+     */
+    public record BatchScoreResult(int written, GradeAggregateService.GroupSummary group, List<GradeAggregate> students) {}
+}
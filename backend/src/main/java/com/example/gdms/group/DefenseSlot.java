@@ -0,0 +1,19 @@
+package com.example.gdms.group;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/** 答辩时段，如某日上午；同一天的时段用于计算教师出场天数。 */
+@Entity
+@Table(name = "defense_slot")
+@Data
+public class DefenseSlot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private LocalDateTime startAt;
+    private LocalDateTime endAt;
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,9 @@
+package com.example.gdms.group;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface DefenseSlotRepository extends JpaRepository<DefenseSlot, Long> {
+    List<DefenseSlot> findAllByOrderByStartAtAsc();
+}
@@ -0,0 +1,31 @@
+package com.example.gdms.group;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 学生某类答辩成绩的汇总，随录入成绩增量维护，可由 {@link GradeAggregateService#rebuild()} 从 defense_score 重算。
+ */
+@Entity
+@Table(name = "grade_aggregate")
+@Data
+public class GradeAggregate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long studentId;
+    private String type; // OPENING / FINAL，取自成绩所属分组
+    private Long groupId; // 最近一次评分所在分组
+    private Long orgId; // 学生所在单位
+    private Double scoreSum;
+    private Integer scoreCount;
+    private Double scoreMin;
+    private Double scoreMax;
+    private LocalDateTime updatedAt;
+
+    public Double getAvgScore() {
+        return scoreCount == null || scoreCount == 0 ? null : scoreSum / scoreCount;
+    }
+}
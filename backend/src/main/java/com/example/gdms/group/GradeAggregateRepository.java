@@ -0,0 +1,11 @@
+package com.example.gdms.group;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface GradeAggregateRepository extends JpaRepository<GradeAggregate, Long>, JpaSpecificationExecutor<GradeAggregate> {
+    List<GradeAggregate> findByStudentIdInAndTypeOrderByStudentId(Collection<Long> studentIds, String type);
+}
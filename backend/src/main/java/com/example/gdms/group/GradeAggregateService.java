@@ -0,0 +1,190 @@
+package com.example.gdms.group;
+
+import com.example.gdms.common.DaemonThreadFactory;
+import com.example.gdms.common.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.criteria.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 答辩成绩汇总：录入成绩时在同一事务中按学生从原始成绩重算 (和, 次数, 最小, 最大) 并 upsert 到汇总表，
+ * 查询直接分页读取汇总表，代价只与页大小有关。重算任务按学生ID区间并行地从原始成绩表覆盖写回。
+ */
+@Service
+public class GradeAggregateService {
+    private static final Logger log = LoggerFactory.getLogger(GradeAggregateService.class);
+    // 最近一次评分所在分组取该学生该类型下 ID 最大的成绩记录
+    private static final String REBUILD_RANGE_SQL = """
+            INSERT INTO grade_aggregate (student_id, type, group_id, org_id, score_sum, score_count, score_min, score_max, updated_at)
+            SELECT ds.student_id, COALESCE(g.type, ''),
+                   (SELECT ds2.group_id FROM defense_score ds2 JOIN defense_group g2 ON g2.id = ds2.group_id
+                     WHERE ds2.student_id = ds.student_id AND g2.type <=> g.type ORDER BY ds2.id DESC LIMIT 1),
+                   MAX(u.org_id), SUM(ds.score), COUNT(*), MIN(ds.score), MAX(ds.score), ?
+            FROM defense_score ds
+            LEFT JOIN defense_group g ON g.id = ds.group_id
+            LEFT JOIN users u ON u.id = ds.student_id
+            WHERE ds.student_id BETWEEN ? AND ? AND ds.score IS NOT NULL
+            GROUP BY ds.student_id, g.type
+            ON DUPLICATE KEY UPDATE
+                score_sum = VALUES(score_sum),
+                score_count = VALUES(score_count),
+                score_min = VALUES(score_min),
+                score_max = VALUES(score_max),
+                group_id = VALUES(group_id),
+                org_id = VALUES(org_id),
+                updated_at = VALUES(updated_at)
+            """;
+    // 本轮未被写到的汇总行说明原始成绩已不存在
+    private static final String DELETE_STALE_SQL =
+            "DELETE FROM grade_aggregate WHERE student_id BETWEEN ? AND ? AND updated_at < ?";
+
+    private static final String GROUP_SUMMARY_SQL =
+            "SELECT COUNT(*), AVG(score), MIN(score), MAX(score) FROM defense_score WHERE group_id = ? AND score IS NOT NULL";
+
+    private final GradeAggregateRepository aggregateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService rebuildPool;
+    private final int partitions;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public GradeAggregateService(GradeAggregateRepository aggregateRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${app.grade-aggregate.rebuild-threads:4}") int rebuildThreads,
+                                 @Value("${app.grade-aggregate.rebuild-partitions:16}") int partitions) {
+        this.aggregateRepository = aggregateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitions = Math.max(1, partitions);
+        this.rebuildPool = Executors.newFixedThreadPool(Math.max(1, rebuildThreads), new DaemonThreadFactory("grade-rebuild-"));
+    }
+
+    /** 按原始成绩重算指定学生的汇总，须在写入 defense_score 的同一事务中调用。 */
+    public void refreshStudents(Collection<Long> studentIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(REBUILD_RANGE_SQL, studentIds, 1000, (ps, id) -> {
+            ps.setTimestamp(1, now);
+            ps.setLong(2, id);
+            ps.setLong(3, id);
+        });
+    }
+
+    public List<GradeAggregate> forStudents(Collection<Long> studentIds, String type) {
+        return aggregateRepository.findByStudentIdInAndTypeOrderByStudentId(studentIds, type == null ? "" : type);
+    }
+
+    public GroupSummary groupSummary(Long groupId, int memberCount) {
+        return jdbcTemplate.queryForObject(GROUP_SUMMARY_SQL, (rs, i) -> {
+            double avg = rs.getDouble(2);
+            boolean none = rs.wasNull();
+            return new GroupSummary(groupId, memberCount, rs.getInt(1),
+                    none ? null : Math.round(avg * 100) / 100.0,
+                    none ? null : rs.getDouble(3),
+                    none ? null : rs.getDouble(4));
+        }, groupId);
+    }
+
+    public Page<GradeAggregate> page(Pageable pageable, Long groupId, Long orgId, String type) {
+        Specification<GradeAggregate> spec = (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (groupId != null) {
+                predicates.add(cb.equal(root.get("groupId"), groupId));
+            }
+            if (orgId != null) {
+                predicates.add(cb.equal(root.get("orgId"), orgId));
+            }
+            if (type != null && !type.isBlank()) {
+                predicates.add(cb.equal(root.get("type"), type.trim()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+        return aggregateRepository.findAll(spec, pageable);
+    }
+
+    /**
+     * 从原始成绩表重算全部汇总。学生ID范围切成若干区间并行执行，每个区间一条 INSERT ... SELECT 覆盖写回，
+     * 再删除该区间内本轮未写到的行。可重复执行；INSERT ... SELECT 会对读到的成绩行加共享锁，宜在录入低峰期运行。
+     */
+    public RebuildResult rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new ServiceBusyException("成绩汇总正在重算，请稍后重试", 30);
+        }
+        long start = System.currentTimeMillis();
+        try {
+            Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                    "SELECT MIN(student_id) AS lo, MAX(student_id) AS hi FROM (SELECT student_id FROM defense_score UNION ALL SELECT student_id FROM grade_aggregate) ids");
+            if (bounds.get("lo") == null) {
+                return new RebuildResult(0, 0, 0, System.currentTimeMillis() - start);
+            }
+            long lo = ((Number) bounds.get("lo")).longValue();
+            long hi = ((Number) bounds.get("hi")).longValue();
+            // 写入时间截断到秒，与 DATETIME 精度一致，便于识别本轮未覆盖的行
+            Timestamp stamp = Timestamp.valueOf(LocalDateTime.now().withNano(0));
+            long width = Math.max(1, (hi - lo + partitions) / partitions);
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (long from = lo; from <= hi; from += width) {
+                long a = from;
+                long b = Math.min(hi, from + width - 1);
+                futures.add(rebuildPool.submit(() -> new int[]{
+                        jdbcTemplate.update(REBUILD_RANGE_SQL, stamp, a, b),
+                        jdbcTemplate.update(DELETE_STALE_SQL, a, b, stamp)
+                }));
+            }
+            int written = 0;
+            int deleted = 0;
+            for (Future<int[]> f : futures) {
+                int[] r = f.get();
+                written += r[0];
+                deleted += r[1];
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            log.info("成绩汇总重算完成：{} 个区间，写入 {} 行，删除 {} 行，耗时 {}ms", futures.size(), written, deleted, elapsed);
+            return new RebuildResult(futures.size(), written, deleted, elapsed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("成绩汇总重算被中断");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("成绩汇总重算失败：" + e.getCause().getMessage(), e.getCause());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /** 定期兜底重算，默认关闭（cron 为 "-"）。 */
+    @Scheduled(cron = "${app.grade-aggregate.rebuild-cron:-}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (ServiceBusyException e) {
+            log.info("跳过定时成绩汇总重算：{}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildPool.shutdownNow();
+    }
+
+    /**
+     * @param written MySQL 对 upsert 的影响行数（新插入计 1，更新计 2，未变化计 0）
+     */
+    public record RebuildResult(int partitions, int written, int deleted, long elapsedMs) {}
+
+    /** @param scored 已有成绩的学生数 */
+    public record GroupSummary(Long groupId, int memberCount, int scored, Double avgScore, Double minScore, Double maxScore) {}
+}
@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
-@Table(name = "group_member")
+@Table(name = "group_member", uniqueConstraints = @UniqueConstraint(columnNames = "student_id"))
 @Data
 public class GroupMember {
     @Id
@@ -0,0 +1,42 @@
+package com.example.gdms.group;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按 group_member 重新计算 defense_group.member_count，修正手工改库或新增该列前已有的分组。
+ * 单条 UPDATE 只改写不一致的行。
+ */
+@Component
+public class GroupMemberCountReconciler {
+    private static final Logger log = LoggerFactory.getLogger(GroupMemberCountReconciler.class);
+    private static final String RECONCILE_SQL = """
+            UPDATE defense_group g
+            LEFT JOIN (
+                SELECT group_id, COUNT(*) AS cnt
+                FROM group_member
+                GROUP BY group_id
+            ) m ON m.group_id = g.id
+            SET g.member_count = COALESCE(m.cnt, 0)
+            WHERE g.member_count <> COALESCE(m.cnt, 0)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public GroupMemberCountReconciler(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Scheduled(initialDelayString = "${app.group-reconcile.initial-delay-ms:30000}",
+            fixedDelayString = "${app.group-reconcile.interval-ms:600000}")
+    public int reconcile() {
+        int fixed = jdbcTemplate.update(RECONCILE_SQL);
+        if (fixed > 0) {
+            log.warn("已校正 {} 个答辩分组的成员数", fixed);
+        }
+        return fixed;
+    }
+}
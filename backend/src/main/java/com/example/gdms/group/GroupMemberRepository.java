@@ -1,11 +1,22 @@
 package com.example.gdms.group;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface GroupMemberRepository extends JpaRepository<GroupMember, Long> {
     List<GroupMember> findByGroupId(Long groupId);
     List<GroupMember> findByStudentId(Long studentId);
+    boolean existsByStudentId(Long studentId);
+    boolean existsByGroupId(Long groupId);
+    boolean existsByGroupIdAndStudentId(Long groupId, Long studentId);
+
+    /** 返回实际删除的行数，并发重复删除时只有一方得到 1。 */
+    @Modifying
+    @Query("delete from GroupMember m where m.id = :id")
+    int deleteMember(@Param("id") Long id);
 }
 
@@ -0,0 +1,197 @@
+package com.example.gdms.group;
+
+import com.example.gdms.common.ServiceBusyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 评分宽严分析：单遍流式读取全部答辩成绩与已完成评阅，按答辩组、评阅教师累计分布（均值、方差、分位数），
+ * 与同类评分整体比较找出明显偏宽或偏严的评分方，并可按组做 z 分数标准化。
+ * <p>
+ * 结果快照保存在内存中，重新运行分析时整体替换。
+ */
+@Service
+public class ScoreAnalyticsService {
+    private static final Logger log = LoggerFactory.getLogger(ScoreAnalyticsService.class);
+    private static final String DEFENSE = "DEFENSE";
+    private static final String SCORES_SQL = """
+            SELECT 'DEFENSE', group_id, score FROM defense_score WHERE score IS NOT NULL
+            UNION ALL
+            SELECT type, reviewer_id, score FROM review_assignment WHERE status = 'DONE' AND score IS NOT NULL
+            """;
+    private static final String GROUP_SCORES_SQL =
+            "SELECT student_id, score FROM defense_score WHERE group_id = ? AND score IS NOT NULL ORDER BY student_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double compression;
+    private final int minCount;
+    private final double outlierZ;
+    private final double minEffect;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicReference<Result> latest = new AtomicReference<>();
+
+    public ScoreAnalyticsService(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.score-analytics.compression:100}") double compression,
+                                 @Value("${app.score-analytics.min-count:5}") int minCount,
+                                 @Value("${app.score-analytics.outlier-z:3}") double outlierZ,
+                                 @Value("${app.score-analytics.min-effect:0.5}") double minEffect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.compression = compression;
+        this.minCount = minCount;
+        this.outlierZ = outlierZ;
+        this.minEffect = minEffect;
+    }
+
+    public Optional<Snapshot> latest() {
+        return Optional.ofNullable(latest.get()).map(Result::snapshot);
+    }
+
+    /** 运行一次分析并替换快照；同一时间只允许一次。 */
+    public Snapshot run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ServiceBusyException("评分分析正在运行，请稍后重试", 10);
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, ScoreStats> overall = new TreeMap<>();
+            Map<String, Map<Long, ScoreStats>> byScorer = new TreeMap<>();
+            long[] rows = new long[1];
+            // MySQL 驱动在 fetchSize 为 Integer.MIN_VALUE 时逐行流式返回，不缓存整个结果集
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SCORES_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(Integer.MIN_VALUE);
+                return ps;
+            }, rs -> {
+                String kind = rs.getString(1);
+                long scorer = rs.getLong(2);
+                boolean noScorer = rs.wasNull();
+                double score = rs.getDouble(3);
+                if (kind == null) return;
+                rows[0]++;
+                overall.computeIfAbsent(kind, k -> new ScoreStats(compression)).add(score);
+                if (!noScorer) {
+                    byScorer.computeIfAbsent(kind, k -> new HashMap<>())
+                            .computeIfAbsent(scorer, s -> new ScoreStats(compression)).add(score);
+                }
+            });
+
+            List<Distribution> kinds = new ArrayList<>();
+            overall.forEach((kind, stats) -> kinds.add(distribution(kind, null, stats, null)));
+            List<Distribution> scorers = new ArrayList<>();
+            Map<Long, ScoreStats> groups = new HashMap<>();
+            byScorer.forEach((kind, map) -> {
+                ScoreStats all = overall.get(kind);
+                map.entrySet().stream()
+                        .sorted(Map.Entry.comparingByKey())
+                        .forEach(e -> scorers.add(distribution(kind, e.getKey(), e.getValue(), all)));
+                if (DEFENSE.equals(kind)) groups.putAll(map);
+            });
+            long elapsed = System.currentTimeMillis() - start;
+            long flagged = scorers.stream().filter(d -> d.flag() != null).count();
+            Snapshot snapshot = new Snapshot(LocalDateTime.now(), rows[0], elapsed, kinds, scorers);
+            latest.set(new Result(snapshot, groups, overall.get(DEFENSE)));
+            log.info("评分分析完成：读取 {} 条成绩，评分方 {} 个，标记异常 {} 个，耗时 {}ms", rows[0], scorers.size(), flagged, elapsed);
+            return snapshot;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /** 定期重新分析，默认关闭（cron 为 "-"）。 */
+    @Scheduled(cron = "${app.score-analytics.cron:-}")
+    public void scheduledRun() {
+        try {
+            run();
+        } catch (ServiceBusyException e) {
+            log.info("跳过定时评分分析：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 把某答辩组的成绩按组内 z 分数映射到全部答辩成绩的分布上：normalized = 全体均值 + (原始分 - 组均值) / 组标准差 × 全体标准差。
+     * 组内样本不足或标准差为 0 时只平移均值。
+     */
+    public List<NormalizedScore> normalizedForGroup(Long groupId) {
+        Result last = latest.get();
+        if (last == null) {
+            throw new IllegalStateException("尚未生成评分分析，请先运行分析");
+        }
+        ScoreStats group = last.groups().get(groupId);
+        ScoreStats all = last.defense();
+        List<NormalizedScore> result = new ArrayList<>();
+        if (group == null || all == null) {
+            return result;
+        }
+        double groupMean = group.mean();
+        double groupSd = group.stddev();
+        boolean scale = group.count() >= minCount && groupSd > 0;
+        jdbcTemplate.query(GROUP_SCORES_SQL, rs -> {
+            double raw = rs.getDouble(2);
+            double normalized = scale
+                    ? all.mean() + (raw - groupMean) / groupSd * all.stddev()
+                    : raw - groupMean + all.mean();
+            normalized = Math.max(0, Math.min(100, normalized));
+            result.add(new NormalizedScore(rs.getLong(1), raw, round(normalized),
+                    scale ? round((raw - groupMean) / groupSd) : null));
+        }, groupId);
+        return result;
+    }
+
+    /**
+     * 评分方与同类整体比较：z 为其均值相对整体均值的标准误倍数，effect 为以整体标准差计的差距。
+     * 样本数达到下限且两者都超过阈值时标记为偏宽（LENIENT）或偏严（HARSH）。
+     */
+    private Distribution distribution(String kind, Long scorerId, ScoreStats s, ScoreStats all) {
+        Double z = null;
+        Double effect = null;
+        String flag = null;
+        if (all != null && all.stddev() > 0) {
+            double diff = s.mean() - all.mean();
+            effect = round(diff / all.stddev());
+            z = round(diff / (all.stddev() / Math.sqrt(s.count())));
+            if (s.count() >= minCount && Math.abs(z) >= outlierZ && Math.abs(effect) >= minEffect) {
+                flag = diff > 0 ? "LENIENT" : "HARSH";
+            }
+        }
+        return new Distribution(kind, scorerId, s.count(), round(s.mean()), round(s.stddev()),
+                round(s.min()), round(s.quantile(0.25)), round(s.quantile(0.5)), round(s.quantile(0.75)),
+                round(s.quantile(0.9)), round(s.max()), z, effect, flag);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+
+    /**
+     * @param kind     DEFENSE（评分方为答辩组）、ADVISOR 或 CROSS（评分方为评阅教师）
+     * @param scorerId 答辩组ID或评阅教师ID，整体分布为空
+     * @param flag     LENIENT / HARSH，未见明显偏差为空
+     */
+    public record Distribution(String kind, Long scorerId, long count, double mean, double stddev,
+                               double min, double p25, double median, double p75, double p90, double max,
+                               Double z, Double effect, String flag) {}
+
+    /**
+     * @param kinds   各类评分的整体分布
+     * @param scorers 各评分方的分布
+     */
+    public record Snapshot(LocalDateTime generatedAt, long rows, long elapsedMs,
+                           List<Distribution> kinds, List<Distribution> scorers) {}
+
+    /** 快照及标准化所需的答辩组分布。 */
+    private record Result(Snapshot snapshot, Map<Long, ScoreStats> groups, ScoreStats defense) {}
+
+    /** @param z 组内 z 分数，组内样本不足时为空 */
+    public record NormalizedScore(Long studentId, double raw, double normalized, Double z) {}
+}
@@ -0,0 +1,5 @@
+package com.example.gdms.group;
+
+/** 学生的评阅或答辩成绩发生变化，事务提交后由最终成绩计算按学生增量重算。 */
+public record ScoreChangedEvent(Long studentId) {
+}
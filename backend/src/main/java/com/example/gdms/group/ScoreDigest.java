@@ -0,0 +1,126 @@
+package com.example.gdms.group;
+
+import java.util.Arrays;
+
+/**
+ * 分位数草图（合并式 t-digest）：新值先进缓冲区，满后排序并与已有质心按 k1 尺度函数合并，
+ * 内存只与压缩参数有关，两端分位数更精确。最小、最大值精确保留。
+ */
+final class ScoreDigest {
+    private final double compression;
+    private final int bufferLimit;
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private int centroids;
+    private double[] buffer = new double[16];
+    private int buffered;
+    private double totalWeight;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    ScoreDigest(double compression) {
+        this.compression = compression;
+        this.bufferLimit = (int) Math.max(32, compression * 5);
+    }
+
+    void add(double x) {
+        if (buffered == buffer.length) {
+            if (buffered >= bufferLimit) {
+                compress();
+            } else {
+                buffer = Arrays.copyOf(buffer, Math.min(bufferLimit, buffer.length * 2));
+            }
+        }
+        buffer[buffered++] = x;
+        if (Double.isNaN(min) || x < min) min = x;
+        if (Double.isNaN(max) || x > max) max = x;
+    }
+
+    long size() {
+        return (long) (totalWeight + buffered);
+    }
+
+    /** 把缓冲区与已有质心按均值归并后重新合并，相邻质心在 k 尺度上跨度不超过 1。 */
+    private void compress() {
+        if (buffered == 0) return;
+        Arrays.sort(buffer, 0, buffered);
+        double total = totalWeight + buffered;
+        double[] outMeans = new double[centroids + buffered];
+        double[] outWeights = new double[centroids + buffered];
+        int out = 0;
+        int i = 0;
+        int j = 0;
+        double curMean = Double.NaN;
+        double curWeight = 0;
+        double weightSoFar = 0;
+        while (i < centroids || j < buffered) {
+            double m;
+            double w;
+            if (j >= buffered || (i < centroids && means[i] <= buffer[j])) {
+                m = means[i];
+                w = weights[i++];
+            } else {
+                m = buffer[j++];
+                w = 1;
+            }
+            if (curWeight == 0) {
+                curMean = m;
+                curWeight = w;
+                continue;
+            }
+            double proposed = curWeight + w;
+            if (k(weightSoFar / total) + 1 >= k((weightSoFar + proposed) / total)) {
+                curMean += (m - curMean) * w / proposed;
+                curWeight = proposed;
+            } else {
+                outMeans[out] = curMean;
+                outWeights[out++] = curWeight;
+                weightSoFar += curWeight;
+                curMean = m;
+                curWeight = w;
+            }
+        }
+        outMeans[out] = curMean;
+        outWeights[out++] = curWeight;
+        means = Arrays.copyOf(outMeans, out);
+        weights = Arrays.copyOf(outWeights, out);
+        centroids = out;
+        totalWeight = total;
+        buffered = 0;
+    }
+
+    private double k(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+
+    /** 在相邻质心中心之间线性插值；两端分别向精确的最小、最大值插值。 */
+    double quantile(double q) {
+        compress();
+        if (centroids == 0) return Double.NaN;
+        if (centroids == 1) return means[0];
+        double index = Math.min(1, Math.max(0, q)) * totalWeight;
+        if (index < weights[0] / 2) {
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+        double cumulative = 0;
+        for (int c = 0; c < centroids - 1; c++) {
+            double left = cumulative + weights[c] / 2;
+            double right = cumulative + weights[c] + weights[c + 1] / 2;
+            if (index < right) {
+                return means[c] + (means[c + 1] - means[c]) * (index - left) / (right - left);
+            }
+            cumulative += weights[c];
+        }
+        double lastCenter = totalWeight - weights[centroids - 1] / 2;
+        double tail = weights[centroids - 1] / 2;
+        return tail <= 0 ? max : means[centroids - 1] + (max - means[centroids - 1]) * Math.min(1, (index - lastCenter) / tail);
+    }
+
+    double min() {
+        return min;
+    }
+
+    double max() {
+        return max;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.gdms.group;
+
+/** 单遍累计的分数分布：Welford 算法维护均值与方差，{@link ScoreDigest} 估计分位数。 */
+final class ScoreStats {
+    private final ScoreDigest digest;
+    private long count;
+    private double mean;
+    private double m2;
+
+    ScoreStats(double compression) {
+        this.digest = new ScoreDigest(compression);
+    }
+
+    void add(double x) {
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+        digest.add(x);
+    }
+
+    long count() {
+        return count;
+    }
+
+    double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /** 样本方差，不足两个样本时为 0。 */
+    double variance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    double stddev() {
+        return Math.sqrt(variance());
+    }
+
+    double quantile(double q) {
+        return digest.quantile(q);
+    }
+
+    double min() {
+        return digest.min();
+    }
+
+    double max() {
+        return digest.max();
+    }
+}
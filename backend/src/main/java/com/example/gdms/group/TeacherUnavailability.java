@@ -0,0 +1,16 @@
+package com.example.gdms.group;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/** 教师不可参加答辩的时段，未登记的时段视为可用。 */
+@Entity
+@Table(name = "teacher_unavailability")
+@Data
+public class TeacherUnavailability {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long teacherId;
+    private Long slotId;
+}
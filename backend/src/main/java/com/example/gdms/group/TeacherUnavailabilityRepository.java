@@ -0,0 +1,16 @@
+package com.example.gdms.group;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TeacherUnavailabilityRepository extends JpaRepository<TeacherUnavailability, Long> {
+    List<TeacherUnavailability> findByTeacherId(Long teacherId);
+
+    @Modifying
+    @Query("delete from TeacherUnavailability u where u.teacherId = :teacherId")
+    int deleteByTeacher(@Param("teacherId") Long teacherId);
+}
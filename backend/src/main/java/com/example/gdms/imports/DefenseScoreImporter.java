@@ -0,0 +1,91 @@
+package com.example.gdms.imports;
+
+import com.example.gdms.group.GradeAggregateService;
+import com.example.gdms.group.ScoreChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 答辩成绩导入：groupId,studentId,score,comment。学生须是该答辩组成员；已有成绩时覆盖（与批量录入相同的 upsert），
+ * 写入后刷新成绩汇总并触发最终成绩重算。
+ */
+@Component
+class DefenseScoreImporter implements TableImporter<DefenseScoreImporter.Score> {
+    private static final String UPSERT_SQL = """
+            INSERT INTO defense_score (group_id, student_id, score, comment) VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE score = VALUES(score), comment = VALUES(comment)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final GradeAggregateService gradeAggregateService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    DefenseScoreImporter(JdbcTemplate jdbcTemplate, GradeAggregateService gradeAggregateService,
+                         ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.gradeAggregateService = gradeAggregateService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String type() {
+        return "defense-scores";
+    }
+
+    @Override
+    public List<String> columns() {
+        return List.of("groupid", "studentid", "score", "comment");
+    }
+
+    @Override
+    public Session<Score> open() {
+        Map<Long, Long> membership = ImportLookups.groupMembership(jdbcTemplate);
+        Set<Long> seen = new HashSet<>();
+        return new Session<>() {
+            @Override
+            public Score parse(ImportRow row) {
+                long groupId = row.requiredLong("groupid", "答辩组ID");
+                long studentId = row.requiredLong("studentid", "学生ID");
+                Long memberOf = membership.get(studentId);
+                if (memberOf == null || memberOf != groupId) {
+                    throw new IllegalArgumentException("学生 " + studentId + " 不在答辩组 " + groupId + " 中");
+                }
+                Double score = row.getDouble("score", "分数");
+                if (score == null) {
+                    throw new IllegalArgumentException("分数不能为空");
+                }
+                if (score < 0 || score > 100) {
+                    throw new IllegalArgumentException("分数必须在0-100之间");
+                }
+                String comment = row.get("comment");
+                if (comment != null && comment.length() > 1000) {
+                    throw new IllegalArgumentException("评论长度不能超过1000个字符");
+                }
+                // 每名学生只在一个组中，按学生去重即可
+                if (!seen.add(studentId)) {
+                    throw new IllegalArgumentException("文件中学生 " + studentId + " 的成绩重复");
+                }
+                return new Score(groupId, studentId, score, comment);
+            }
+
+            @Override
+            public Map<Long, String> write(List<Parsed<Score>> rows) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, r) -> {
+                    ps.setLong(1, r.value().groupId());
+                    ps.setLong(2, r.value().studentId());
+                    ps.setDouble(3, r.value().score());
+                    ps.setString(4, r.value().comment());
+                });
+                List<Long> studentIds = rows.stream().map(r -> r.value().studentId()).toList();
+                gradeAggregateService.refreshStudents(studentIds);
+                studentIds.forEach(id -> eventPublisher.publishEvent(new ScoreChangedEvent(id)));
+                return Map.of();
+            }
+        };
+    }
+
+    record Score(long groupId, long studentId, double score, String comment) {}
+}
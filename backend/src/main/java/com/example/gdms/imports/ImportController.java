@@ -0,0 +1,41 @@
+package com.example.gdms.imports;
+
+import com.example.gdms.common.ApiResponse;
+import com.example.gdms.common.ImportReport;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * CSV 批量导入：/api/imports/{topics|topic-approvals|selections|defense-scores} 上传文件，
+ * 返回任务报告后轮询 /api/imports/jobs/{jobId} 查看进度与逐行错误。
+ */
+@RestController
+@RequestMapping("/api/imports")
+@PreAuthorize("hasRole('ADMIN')")
+public class ImportController {
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @GetMapping
+    public ApiResponse<Set<String>> types() {
+        return ApiResponse.ok(importService.types());
+    }
+
+    @PostMapping(value = "/{type}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ApiResponse<ImportReport> submit(@PathVariable String type, @RequestParam("file") MultipartFile file) throws IOException {
+        return ApiResponse.ok(importService.submit(type, file));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ApiResponse<ImportReport> status(@PathVariable String jobId) {
+        return ApiResponse.ok(importService.getReport(jobId));
+    }
+}
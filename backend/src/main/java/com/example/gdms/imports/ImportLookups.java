@@ -0,0 +1,39 @@
+package com.example.gdms.imports;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/** 导入开始时一次性预取的查找集合，逐行校验只查内存。 */
+final class ImportLookups {
+    private ImportLookups() {
+    }
+
+    /** 指定角色的用户ID。 */
+    static Set<Long> userIds(JdbcTemplate jdbcTemplate, String... roles) {
+        String in = String.join(", ", Collections.nCopies(roles.length, "?"));
+        return longSet(jdbcTemplate, "SELECT id FROM users WHERE role IN (" + in + ")", (Object[]) roles);
+    }
+
+    static Set<Long> topicIds(JdbcTemplate jdbcTemplate) {
+        return longSet(jdbcTemplate, "SELECT id FROM topics");
+    }
+
+    /** 学生ID → 所在答辩组ID（每名学生只在一个组中）。 */
+    static Map<Long, Long> groupMembership(JdbcTemplate jdbcTemplate) {
+        Map<Long, Long> result = new HashMap<>();
+        jdbcTemplate.query("SELECT student_id, group_id FROM group_member",
+                rs -> { result.put(rs.getLong(1), rs.getLong(2)); });
+        return result;
+    }
+
+    static Set<Long> longSet(JdbcTemplate jdbcTemplate, String sql, Object... args) {
+        Set<Long> result = new HashSet<>();
+        jdbcTemplate.query(sql, rs -> { result.add(rs.getLong(1)); }, args);
+        return result;
+    }
+}
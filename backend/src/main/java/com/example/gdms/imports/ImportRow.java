@@ -0,0 +1,49 @@
+package com.example.gdms.imports;
+
+import java.util.Map;
+
+/** CSV 中的一行：按列名取值，空字段为 null。 */
+record ImportRow(long line, Map<String, String> values) {
+
+    String get(String column) {
+        return values.get(column);
+    }
+
+    String required(String column, String label) {
+        String v = values.get(column);
+        if (v == null) {
+            throw new IllegalArgumentException(label + "不能为空");
+        }
+        return v;
+    }
+
+    Long getLong(String column, String label) {
+        String v = values.get(column);
+        if (v == null) return null;
+        try {
+            return Long.valueOf(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(label + "格式错误：" + v);
+        }
+    }
+
+    long requiredLong(String column, String label) {
+        Long v = getLong(column, label);
+        if (v == null) {
+            throw new IllegalArgumentException(label + "不能为空");
+        }
+        return v;
+    }
+
+    Double getDouble(String column, String label) {
+        String v = values.get(column);
+        if (v == null) return null;
+        try {
+            double d = Double.parseDouble(v);
+            if (!Double.isFinite(d)) throw new NumberFormatException();
+            return d;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(label + "格式错误：" + v);
+        }
+    }
+}
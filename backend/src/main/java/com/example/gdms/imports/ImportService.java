@@ -0,0 +1,184 @@
+package com.example.gdms.imports;
+
+import com.example.gdms.common.CsvReader;
+import com.example.gdms.common.DaemonThreadFactory;
+import com.example.gdms.common.ImportReport;
+import com.example.gdms.common.ServiceBusyException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 通用 CSV 批量导入：后台任务流式读取上传文件，逐行按预取的查找集合校验，
+ * 每块在一个事务内用 JDBC 批量写入。进度与逐行错误通过 {@link ImportReport} 轮询获取。
+ * 具体导入类型见 {@link TableImporter} 的实现。
+ */
+@Service
+public class ImportService {
+    private static final Logger log = LoggerFactory.getLogger(ImportService.class);
+
+    private final Map<String, TableImporter<?>> importers = new LinkedHashMap<>();
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final ThreadPoolExecutor jobExecutor;
+    private final Cache<String, ImportReport> reports = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofHours(2))
+            .build();
+
+    public ImportService(List<TableImporter<?>> importers,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${app.import.chunk-size:500}") int chunkSize,
+                         @Value("${app.import.max-pending-jobs:4}") int maxPendingJobs) {
+        for (TableImporter<?> importer : importers) {
+            this.importers.put(importer.type(), importer);
+        }
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.jobExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxPendingJobs), new DaemonThreadFactory("csv-import-"));
+    }
+
+    public Set<String> types() {
+        return importers.keySet();
+    }
+
+    /** 上传的 CSV 先落到临时文件，请求结束后由后台任务流式读取。 */
+    public ImportReport submit(String type, MultipartFile file) throws IOException {
+        TableImporter<?> importer = importers.get(type);
+        if (importer == null) {
+            throw new IllegalArgumentException("不支持的导入类型：" + type);
+        }
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("导入文件不能为空");
+        }
+        Path tmp = Files.createTempFile(type + "-import-", ".csv");
+        file.transferTo(tmp);
+        ImportReport report = new ImportReport(type);
+        reports.put(report.getId(), report);
+        try {
+            jobExecutor.execute(() -> run(report, importer, tmp));
+        } catch (RejectedExecutionException e) {
+            reports.invalidate(report.getId());
+            Files.deleteIfExists(tmp);
+            throw new ServiceBusyException("导入任务排队已满，请稍后重试", 30);
+        }
+        return report;
+    }
+
+    public ImportReport getReport(String id) {
+        ImportReport report = reports.getIfPresent(id);
+        if (report == null) {
+            throw new IllegalArgumentException("导入任务不存在或已过期");
+        }
+        return report;
+    }
+
+    private <T> void run(ImportReport report, TableImporter<T> importer, Path file) {
+        report.start();
+        long start = System.currentTimeMillis();
+        try (CsvReader reader = new CsvReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            TableImporter.Session<T> session = importer.open();
+            List<String> columns = null;
+            List<TableImporter.Parsed<T>> chunk = new ArrayList<>(chunkSize);
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                if (CsvReader.isBlank(record)) continue;
+                if (columns == null) {
+                    List<String> header = record.stream()
+                            .map(h -> h.trim().replace("_", "").toLowerCase(Locale.ROOT))
+                            .toList();
+                    // 首行包含第一列列名时视为表头，否则按默认列顺序解析
+                    boolean hasHeader = header.contains(importer.columns().get(0));
+                    columns = hasHeader ? header : importer.columns();
+                    if (hasHeader) continue;
+                }
+                ImportRow row = toRow(reader.getRecordLine(), columns, record);
+                try {
+                    chunk.add(new TableImporter.Parsed<>(row.line(), session.parse(row)));
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    report.rowFailed(row.line(), e.getMessage());
+                }
+                if (chunk.size() >= chunkSize) {
+                    write(report, session, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                write(report, session, chunk);
+            }
+            report.succeed();
+            log.info("{} 导入任务 {} 完成：成功 {} 行，失败 {} 行，耗时 {}ms", importer.type(), report.getId(),
+                    report.getSucceeded(), report.getFailed(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("{} 导入任务 {} 失败", importer.type(), report.getId(), e);
+            report.fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("删除导入临时文件失败：{}", file, e);
+            }
+        }
+    }
+
+    private <T> void write(ImportReport report, TableImporter.Session<T> session, List<TableImporter.Parsed<T>> chunk) {
+        try {
+            tally(report, chunk, transactionTemplate.execute(status -> session.write(chunk)));
+        } catch (DataAccessException e) {
+            // 整块已回滚，逐行重试以定位出错的行
+            for (TableImporter.Parsed<T> row : chunk) {
+                List<TableImporter.Parsed<T>> single = List.of(row);
+                try {
+                    tally(report, single, transactionTemplate.execute(status -> session.write(single)));
+                } catch (DataAccessException ex) {
+                    session.failed(row);
+                    report.rowFailed(row.line(), "写入失败：" + NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+                }
+            }
+        }
+    }
+
+    private static <T> void tally(ImportReport report, List<TableImporter.Parsed<T>> rows, Map<Long, String> rejected) {
+        int succeeded = 0;
+        for (TableImporter.Parsed<T> row : rows) {
+            String error = rejected == null ? null : rejected.get(row.line());
+            if (error != null) {
+                report.rowFailed(row.line(), error);
+            } else {
+                succeeded++;
+            }
+        }
+        report.rowsSucceeded(succeeded);
+    }
+
+    private static ImportRow toRow(long line, List<String> columns, List<String> record) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < record.size() && i < columns.size(); i++) {
+            String v = record.get(i).trim();
+            values.put(columns.get(i), v.isEmpty() ? null : v);
+        }
+        return new ImportRow(line, values);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.gdms.imports;
+
+import com.example.gdms.topic.SeatReservationEngine;
+import com.example.gdms.topic.StudentSelection;
+import com.example.gdms.topic.TopicWaitlistEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 选题导入：studentId,topicId,status（SELECTED 或 LOCKED，默认 SELECTED）。
+ * 与学生自选相同：每名学生只能有一个有效选题，经名额引擎预占名额，维护课题的有效选题数并撤下该学生的候补。
+ * 名额不足时超出的行记为失败。
+ */
+@Component
+class SelectionImporter implements TableImporter<SelectionImporter.Selection> {
+    private static final String INSERT_SQL = "INSERT INTO student_selections (student_id, topic_id, status, created_at) VALUES (?, ?, ?, ?)";
+    private static final String COUNT_SQL = "UPDATE topics SET active_selection_count = active_selection_count + ? WHERE id = ?";
+    private static final String LEAVE_WAITLIST_SQL = "UPDATE topic_waitlist SET status = ?, updated_at = ? WHERE student_id = ? AND status = ?";
+    private static final String ACTIVE_SQL = "SELECT DISTINCT student_id FROM student_selections WHERE status IN ('SELECTED', 'LOCKED')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SeatReservationEngine seatEngine;
+
+    SelectionImporter(JdbcTemplate jdbcTemplate, SeatReservationEngine seatEngine) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.seatEngine = seatEngine;
+    }
+
+    @Override
+    public String type() {
+        return "selections";
+    }
+
+    @Override
+    public List<String> columns() {
+        return List.of("studentid", "topicid", "status");
+    }
+
+    @Override
+    public Session<Selection> open() {
+        Set<Long> students = ImportLookups.userIds(jdbcTemplate, "STUDENT");
+        Set<Long> topics = ImportLookups.topicIds(jdbcTemplate);
+        // 已有有效选题的学生，随导入成功的行增加
+        Set<Long> selected = ImportLookups.longSet(jdbcTemplate, ACTIVE_SQL);
+        return new Session<>() {
+            @Override
+            public Selection parse(ImportRow row) {
+                long studentId = row.requiredLong("studentid", "学生ID");
+                if (!students.contains(studentId)) {
+                    throw new IllegalArgumentException("学生不存在：" + studentId);
+                }
+                long topicId = row.requiredLong("topicid", "课题ID");
+                if (!topics.contains(topicId)) {
+                    throw new IllegalArgumentException("课题不存在：" + topicId);
+                }
+                String s = row.get("status");
+                StudentSelection.SelectionStatus status = StudentSelection.SelectionStatus.SELECTED;
+                if (s != null) {
+                    status = switch (s.toUpperCase(Locale.ROOT)) {
+                        case "SELECTED" -> StudentSelection.SelectionStatus.SELECTED;
+                        case "LOCKED" -> StudentSelection.SelectionStatus.LOCKED;
+                        default -> throw new IllegalArgumentException("选题状态无效：" + s);
+                    };
+                }
+                if (!selected.add(studentId)) {
+                    throw new IllegalStateException("学生已有选题：" + studentId);
+                }
+                return new Selection(studentId, topicId, status);
+            }
+
+            @Override
+            public Map<Long, String> write(List<Parsed<Selection>> rows) {
+                Map<Long, List<Parsed<Selection>>> byTopic = new LinkedHashMap<>();
+                for (Parsed<Selection> r : rows) {
+                    byTopic.computeIfAbsent(r.value().topicId(), k -> new ArrayList<>()).add(r);
+                }
+                Map<Long, String> rejected = new HashMap<>();
+                List<Parsed<Selection>> accepted = new ArrayList<>(rows.size());
+                Map<Long, Integer> counts = new LinkedHashMap<>();
+                byTopic.forEach((topicId, list) -> {
+                    // 事务回滚时名额由引擎归还
+                    int seats = seatEngine.reserveUpTo(topicId, list.size()).granted();
+                    if (seats > 0) {
+                        accepted.addAll(list.subList(0, seats));
+                        counts.put(topicId, seats);
+                    }
+                    for (Parsed<Selection> r : list.subList(seats, list.size())) {
+                        rejected.put(r.line(), "课题容量已满：" + topicId);
+                        selected.remove(r.value().studentId());
+                    }
+                });
+                if (accepted.isEmpty()) return rejected;
+
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                jdbcTemplate.batchUpdate(INSERT_SQL, accepted, accepted.size(), (ps, r) -> {
+                    ps.setLong(1, r.value().studentId());
+                    ps.setLong(2, r.value().topicId());
+                    ps.setString(3, r.value().status().name());
+                    ps.setTimestamp(4, now);
+                });
+                jdbcTemplate.batchUpdate(COUNT_SQL, counts.entrySet(), counts.size(), (ps, e) -> {
+                    ps.setInt(1, e.getValue());
+                    ps.setLong(2, e.getKey());
+                });
+                jdbcTemplate.batchUpdate(LEAVE_WAITLIST_SQL, accepted, accepted.size(), (ps, r) -> {
+                    ps.setString(1, TopicWaitlistEntry.WaitStatus.LEFT.name());
+                    ps.setTimestamp(2, now);
+                    ps.setLong(3, r.value().studentId());
+                    ps.setString(4, TopicWaitlistEntry.WaitStatus.WAITING.name());
+                });
+                return rejected;
+            }
+
+            @Override
+            public void failed(Parsed<Selection> row) {
+                // 没有写入成功，该学生的后续行仍可导入
+                selected.remove(row.value().studentId());
+            }
+        };
+    }
+
+    record Selection(long studentId, long topicId, StudentSelection.SelectionStatus status) {}
+}
@@ -0,0 +1,35 @@
+package com.example.gdms.imports;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一种 CSV 批量导入：列定义、逐行校验转换、按块写库。实现为 Spring 组件，由 {@link ImportService} 按 {@link #type()} 调度。
+ *
+ * @param <T> 校验通过后的行
+ */
+interface TableImporter<T> {
+
+    /** 导入类型，即 /api/imports/{type} */
+    String type();
+
+    /** 列名（小写、去掉下划线）。首行含第一列列名时视为表头，否则按此顺序解析。 */
+    List<String> columns();
+
+    /** 每个导入任务开始时调用一次，预取校验所需的查找集合；返回的会话只在导入线程中使用。 */
+    Session<T> open();
+
+    interface Session<T> {
+        /** 校验并转换一行，不合法时抛出 IllegalArgumentException / IllegalStateException，消息记为该行错误。 */
+        T parse(ImportRow row);
+
+        /** 在块事务内批量写入，返回被拒绝的行（行号 → 原因），其余行视为成功。 */
+        Map<Long, String> write(List<Parsed<T>> rows);
+
+        /** 该行最终写入失败（块事务与逐行重试都失败）后调用，用于撤销 parse 时记下的状态。 */
+        default void failed(Parsed<T> row) {
+        }
+    }
+
+    record Parsed<T>(long line, T value) {}
+}
@@ -0,0 +1,93 @@
+package com.example.gdms.imports;
+
+import com.example.gdms.topic.TopicCatalogCache;
+import com.example.gdms.topic.TopicStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 课题审批导入：topicId,reviewerId,decision,comment，decision 为 APPROVED 或 REJECTED（默认 APPROVED）。与逐个审批相同，写入审批记录并把课题状态改为审批结论；
+ * 同一课题有多条记录时以文件中最后一条为准。
+ */
+@Component
+class TopicApprovalImporter implements TableImporter<TopicApprovalImporter.Approval> {
+    private static final String INSERT_SQL = "INSERT INTO topic_approvals (topic_id, reviewer_id, decision, comment, created_at) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATUS_SQL = "UPDATE topics SET status = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TopicCatalogCache catalogCache;
+
+    TopicApprovalImporter(JdbcTemplate jdbcTemplate, TopicCatalogCache catalogCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogCache = catalogCache;
+    }
+
+    @Override
+    public String type() {
+        return "topic-approvals";
+    }
+
+    @Override
+    public List<String> columns() {
+        return List.of("topicid", "reviewerid", "decision", "comment");
+    }
+
+    @Override
+    public Session<Approval> open() {
+        Set<Long> topics = ImportLookups.topicIds(jdbcTemplate);
+        Set<Long> reviewers = ImportLookups.userIds(jdbcTemplate, "TEACHER", "ADMIN");
+        return new Session<>() {
+            @Override
+            public Approval parse(ImportRow row) {
+                long topicId = row.requiredLong("topicid", "课题ID");
+                if (!topics.contains(topicId)) {
+                    throw new IllegalArgumentException("课题不存在：" + topicId);
+                }
+                long reviewerId = row.requiredLong("reviewerid", "审批人ID");
+                if (!reviewers.contains(reviewerId)) {
+                    throw new IllegalArgumentException("审批人不存在：" + reviewerId);
+                }
+                String d = row.get("decision");
+                TopicStatus decision = TopicStatus.APPROVED;
+                if (d != null) {
+                    decision = switch (d.toUpperCase(Locale.ROOT)) {
+                        case "APPROVED" -> TopicStatus.APPROVED;
+                        case "REJECTED" -> TopicStatus.REJECTED;
+                        default -> throw new IllegalArgumentException("审批结论只能为 APPROVED 或 REJECTED：" + d);
+                    };
+                }
+                return new Approval(topicId, reviewerId, decision, row.required("comment", "审批意见"));
+            }
+
+            @Override
+            public Map<Long, String> write(List<Parsed<Approval>> rows) {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, r) -> {
+                    Approval a = r.value();
+                    ps.setLong(1, a.topicId());
+                    ps.setLong(2, a.reviewerId());
+                    ps.setString(3, a.decision().name());
+                    ps.setString(4, a.comment());
+                    ps.setTimestamp(5, now);
+                });
+                Map<Long, TopicStatus> latest = new LinkedHashMap<>();
+                for (Parsed<Approval> r : rows) {
+                    latest.put(r.value().topicId(), r.value().decision());
+                }
+                jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, latest.entrySet(), latest.size(), (ps, e) -> {
+                    ps.setString(1, e.getValue().name());
+                    ps.setLong(2, e.getKey());
+                });
+                latest.keySet().forEach(catalogCache::invalidate);
+                return Map.of();
+            }
+        };
+    }
+
+    record Approval(long topicId, long reviewerId, TopicStatus decision, String comment) {}
+}
@@ -0,0 +1,90 @@
+package com.example.gdms.imports;
+
+import com.example.gdms.topic.TopicCatalogCache;
+import com.example.gdms.topic.TopicStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/** 课题导入：title,description,creatorId,capacity,status；状态默认 DRAFT，容量默认 1。 */
+@Component
+class TopicImporter implements TableImporter<TopicImporter.NewTopic> {
+    private static final String INSERT_SQL = "INSERT INTO topics (title, description, creator_id, capacity, active_selection_count, status, created_at) "
+            + "VALUES (?, ?, ?, ?, 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TopicCatalogCache catalogCache;
+
+    TopicImporter(JdbcTemplate jdbcTemplate, TopicCatalogCache catalogCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogCache = catalogCache;
+    }
+
+    @Override
+    public String type() {
+        return "topics";
+    }
+
+    @Override
+    public List<String> columns() {
+        return List.of("title", "description", "creatorid", "capacity", "status");
+    }
+
+    @Override
+    public Session<NewTopic> open() {
+        Set<Long> teachers = ImportLookups.userIds(jdbcTemplate, "TEACHER", "ADMIN");
+        return new Session<>() {
+            @Override
+            public NewTopic parse(ImportRow row) {
+                String title = row.required("title", "课题标题");
+                if (title.length() > 500) {
+                    throw new IllegalArgumentException("课题标题过长");
+                }
+                long creatorId = row.requiredLong("creatorid", "指导教师ID");
+                if (!teachers.contains(creatorId)) {
+                    throw new IllegalArgumentException("指导教师不存在：" + creatorId);
+                }
+                Long capacity = row.getLong("capacity", "容量");
+                if (capacity != null && (capacity < 1 || capacity > Integer.MAX_VALUE)) {
+                    throw new IllegalArgumentException("容量必须为正整数：" + capacity);
+                }
+                TopicStatus status = TopicStatus.DRAFT;
+                String s = row.get("status");
+                if (s != null) {
+                    try {
+                        status = TopicStatus.valueOf(s.toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("课题状态无效：" + s);
+                    }
+                }
+                return new NewTopic(title, row.get("description"), creatorId,
+                        capacity == null ? 1 : capacity.intValue(), status);
+            }
+
+            @Override
+            public Map<Long, String> write(List<Parsed<NewTopic>> rows) {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, r) -> {
+                    NewTopic t = r.value();
+                    ps.setString(1, t.title());
+                    ps.setString(2, t.description());
+                    ps.setLong(3, t.creatorId());
+                    ps.setInt(4, t.capacity());
+                    ps.setString(5, t.status().name());
+                    ps.setTimestamp(6, now);
+                });
+                // 新课题的名额在首次访问时按需加载，只需让目录缓存失效
+                catalogCache.invalidate(null);
+                return Map.of();
+            }
+        };
+    }
+
+    record NewTopic(String title, String description, long creatorId, int capacity, TopicStatus status) {}
+}
@@ -0,0 +1,45 @@
+package com.example.gdms.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * 认证主体，在 UserDetails 之外携带用户ID、角色和组织，供 {@link CurrentUser} 直接使用，无需再查询 users 表。
+ */
+public class AuthUser extends User {
+    private final Long id;
+    private final String role;
+    private final Long orgId;
+    private final String fullName;
+
+    public AuthUser(Long id, String username, String password, boolean enabled, String role, Long orgId, String fullName,
+                    Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.id = id;
+        this.role = role;
+        this.orgId = orgId;
+        this.fullName = fullName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Long getOrgId() {
+        return orgId;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public CurrentUser toCurrentUser() {
+        return new CurrentUser(id, getUsername(), role, orgId, fullName);
+    }
+}
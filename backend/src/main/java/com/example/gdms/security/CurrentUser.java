@@ -0,0 +1,23 @@
+package com.example.gdms.security;
+
+/**
+ * 当前登录用户，作为控制器方法参数注入，由 {@link CurrentUserArgumentResolver} 从认证信息解析。
+ */
+public record CurrentUser(Long id, String username, String role, Long orgId, String fullName) {
+
+    public boolean hasRole(String r) {
+        return r != null && r.equalsIgnoreCase(role);
+    }
+
+    public boolean isAdmin() {
+        return hasRole("ADMIN");
+    }
+
+    public boolean isTeacher() {
+        return hasRole("TEACHER");
+    }
+
+    public boolean isStudent() {
+        return hasRole("STUDENT");
+    }
+}
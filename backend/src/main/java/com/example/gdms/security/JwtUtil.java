@@ -1,13 +1,22 @@
 package com.example.gdms.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
 
@@ -16,16 +25,30 @@ public class JwtUtil {
 
     private final SecretKey secretKey;
     private final long expirationSeconds;
+    // JwtParser 线程安全，构建一次复用
+    private final JwtParser parser;
+    // 已验签令牌缓存：令牌摘要 -> Claims，命中时跳过验签和 base64/JSON 解码
+    private final Cache<String, VerifiedToken> verified;
 
     public JwtUtil(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration:86400}") long expirationSeconds
+            @Value("${jwt.expiration:86400}") long expirationSeconds,
+            @Value("${jwt.verified-cache-size:4096}") long verifiedCacheSize,
+            MeterRegistry meterRegistry
     ) {
         if (secret == null || secret.startsWith("change-me")) {
             throw new IllegalStateException("请在配置中设置安全的 jwt.secret");
         }
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
         this.expirationSeconds = expirationSeconds;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt-verified");
     }
 
     public String generateToken(String username, Map<String, Object> claims) {
@@ -40,12 +63,36 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * 验签并返回令牌的 Claims。Claims 是可变的 Map，缓存里保存一份私有副本，
+     * 每次返回新的副本，调用方修改返回值不会影响其他请求。
+     */
     public Claims parse(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        String key = digest(token);
+        VerifiedToken cached = verified.getIfPresent(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > System.currentTimeMillis()) {
+                return Jwts.claims(cached.claims());
+            }
+            // 已过期，交给解析器抛出 ExpiredJwtException
+            verified.invalidate(key);
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            verified.put(key, new VerifiedToken(Jwts.claims(claims), expiration.getTime()));
+        }
+        return claims;
     }
-}
 
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedToken(Claims claims, long expiresAtMillis) {}
+}
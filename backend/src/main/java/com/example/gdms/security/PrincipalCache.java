@@ -0,0 +1,98 @@
+package com.example.gdms.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 认证主体缓存：JwtAuthFilter 每个请求都要加载用户，这里按用户名缓存 UserDetails，
+ * 容量有上限并按 TTL 过期。
+ * 每个用户维护一个版本号，禁用、改角色、重置密码等操作递增版本号，旧版本的缓存条目随即失效。
+ */
+@Component
+public class PrincipalCache {
+
+    private final Cache<String, Entry> cache;
+    /**
+     * 只保留最近递增过的版本号。条目在两倍 TTL 后过期，此时按旧版本写入的缓存条目早已过期；
+     * 移除版本号时顺带失效该用户的缓存条目，避免版本号回到 0 后误命中。
+     */
+    private final Cache<String, AtomicLong> versions;
+
+    public PrincipalCache(
+            @Value("${app.principal-cache.max-size:10000}") long maxSize,
+            @Value("${app.principal-cache.ttl-seconds:60}") long ttlSeconds,
+            MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds * 2))
+                .removalListener((String username, AtomicLong v, RemovalCause cause) -> {
+                    if (cause != RemovalCause.REPLACED) cache.invalidate(username);
+                })
+                .build();
+        // 暴露 cache.gets{result=hit|miss}、cache.evictions 等指标
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principal");
+    }
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long version = currentVersion(username);
+        Entry entry = cache.getIfPresent(username);
+        if (entry != null && entry.version() == version) {
+            return entry.details();
+        }
+        // 先读版本号再加载，加载期间若被递增，写入的条目天然过期
+        UserDetails details = loader.apply(username);
+        cache.put(username, new Entry(details, version));
+        return details;
+    }
+
+    /**
+     * 递增用户版本号。处于事务中时推迟到提交之后，避免并发请求在提交前重新加载到旧数据。
+     */
+    public void bumpVersion(String username) {
+        if (username == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doBump(username);
+                }
+            });
+        } else {
+            doBump(username);
+        }
+    }
+
+    private void doBump(String username) {
+        // compute 会刷新写入时间，保证版本号至少比其后写入的缓存条目活得久
+        versions.asMap().compute(username, (k, v) -> {
+            AtomicLong next = v == null ? new AtomicLong() : v;
+            next.incrementAndGet();
+            return next;
+        });
+        cache.invalidate(username);
+    }
+
+    private long currentVersion(String username) {
+        AtomicLong v = versions.getIfPresent(username);
+        return v == null ? 0L : v.get();
+    }
+
+    private record Entry(UserDetails details, long version) {}
+}
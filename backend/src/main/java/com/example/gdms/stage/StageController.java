@@ -1,12 +1,10 @@
 package com.example.gdms.stage;
 
-import com.example.gdms.user.User;
-import com.example.gdms.user.UserRepository;
+import com.example.gdms.security.CurrentUser;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 
@@ -14,11 +12,9 @@ import java.util.Map;
 @RequestMapping("/api/stages")
 public class StageController {
     private final StageService stageService;
-    private final UserRepository userRepository;
 
-    public StageController(StageService stageService, UserRepository userRepository) {
+    public StageController(StageService stageService) {
         this.stageService = stageService;
-        this.userRepository = userRepository;
     }
 
     @GetMapping
@@ -53,13 +49,8 @@ public class StageController {
 
     @PostMapping("/{id}/tasks")
     @PreAuthorize("hasRole('STUDENT')")
-    public StageTask submitTask(@PathVariable Long id, @RequestBody Map<String, Object> body, Principal principal) {
-        Long studentId = null;
-        if (principal != null) {
-            studentId = userRepository.findByUsername(principal.getName())
-                    .map(User::getId)
-                    .orElse(null);
-        }
+    public StageTask submitTask(@PathVariable Long id, @RequestBody Map<String, Object> body, CurrentUser user) {
+        Long studentId = user != null ? user.id() : null;
         Long topicId = body.get("topicId") == null ? null : Long.parseLong(body.get("topicId").toString());
         String content = (String) body.getOrDefault("content", "");
         return stageService.submitTask(id, studentId, topicId, content);
@@ -82,16 +73,11 @@ public class StageController {
 
     @PostMapping("/tasks/{taskId}/review")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ResponseEntity<?> review(@PathVariable Long taskId, @RequestBody Map<String, String> body, Principal principal) {
+    public ResponseEntity<?> review(@PathVariable Long taskId, @RequestBody Map<String, String> body, CurrentUser user) {
         String decisionStr = body.getOrDefault("decision", "APPROVED");
         String comment = body.getOrDefault("comment", "");
         StageTask.TaskStatus decision = StageTask.TaskStatus.valueOf(decisionStr);
-        Long reviewerId = null;
-        if (principal != null) {
-            reviewerId = userRepository.findByUsername(principal.getName())
-                    .map(User::getId)
-                    .orElse(null);
-        }
+        Long reviewerId = user != null ? user.id() : null;
         return ResponseEntity.ok(stageService.review(taskId, reviewerId, decision, comment));
     }
 }
@@ -0,0 +1,69 @@
+package com.example.gdms.topic;
+
+import com.example.gdms.common.ApiResponse;
+import com.example.gdms.security.CurrentUser;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/topics/allocation")
+public class AllocationController {
+    private final AllocationService allocationService;
+
+    public AllocationController(AllocationService allocationService) {
+        this.allocationService = allocationService;
+    }
+
+    @GetMapping("/rounds")
+    public ApiResponse<List<AllocationRound>> rounds() {
+        return ApiResponse.ok(allocationService.rounds());
+    }
+
+    @PostMapping("/rounds")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<AllocationRound> createRound(@RequestBody AllocationRound body) {
+        return ApiResponse.ok(allocationService.createRound(body));
+    }
+
+    @PutMapping("/rounds/{roundId}/preferences")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ApiResponse<List<TopicPreference>> submitPreferences(@PathVariable Long roundId, @RequestBody PreferenceRequest req, CurrentUser user) {
+        if (user == null) {
+            throw new IllegalArgumentException("无法识别学生身份");
+        }
+        return ApiResponse.ok(allocationService.submitPreferences(roundId, user.id(), req.topicIds()));
+    }
+
+    @GetMapping("/rounds/{roundId}/preferences/me")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ApiResponse<List<TopicPreference>> myPreferences(@PathVariable Long roundId, CurrentUser user) {
+        if (user == null) {
+            throw new IllegalArgumentException("无法识别学生身份");
+        }
+        return ApiResponse.ok(allocationService.myPreferences(roundId, user.id()));
+    }
+
+    @GetMapping("/rounds/{roundId}/topics/{topicId}/applicants")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ApiResponse<List<AllocationService.Applicant>> applicants(@PathVariable Long roundId, @PathVariable Long topicId, CurrentUser user) {
+        return ApiResponse.ok(allocationService.applicants(roundId, topicId, user));
+    }
+
+    @PutMapping("/rounds/{roundId}/topics/{topicId}/ranking")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ApiResponse<?> rankApplicants(@PathVariable Long roundId, @PathVariable Long topicId, @RequestBody RankingRequest req, CurrentUser user) {
+        allocationService.rankApplicants(roundId, topicId, req.studentIds(), user);
+        return ApiResponse.ok();
+    }
+
+    @PostMapping("/rounds/{roundId}/allocate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<AllocationService.AllocationResult> allocate(@PathVariable Long roundId) {
+        return ApiResponse.ok(allocationService.allocate(roundId));
+    }
+
+    public record PreferenceRequest(List<Long> topicIds) {}
+    public record RankingRequest(List<Long> studentIds) {}
+}
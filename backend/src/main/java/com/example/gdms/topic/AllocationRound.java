@@ -0,0 +1,31 @@
+package com.example.gdms.topic;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 志愿分配轮次：窗口期内学生填报志愿、教师对申请者排序，截止后统一计算稳定匹配。
+ */
+@Entity
+@Table(name = "allocation_rounds")
+@Data
+public class AllocationRound {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String name;
+    private LocalDateTime startAt;
+    private LocalDateTime endAt;
+    @Enumerated(EnumType.STRING)
+    private RoundStatus status = RoundStatus.OPEN;
+    private Integer matchedCount;
+    private Integer unmatchedCount;
+    private LocalDateTime allocatedAt;
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public enum RoundStatus {
+        OPEN, ALLOCATED
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.gdms.topic;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AllocationRoundRepository extends JpaRepository<AllocationRound, Long> {
+    List<AllocationRound> findAllByOrderByIdDesc();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from AllocationRound r where r.id = :id")
+    Optional<AllocationRound> findForUpdate(@Param("id") Long id);
+}
@@ -0,0 +1,307 @@
+package com.example.gdms.topic;
+
+import com.example.gdms.security.CurrentUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 志愿分配模式：学生在窗口期内提交有序志愿，教师可对申请者排序，截止后一次性计算稳定匹配并批量写入选题记录。
+ * 与先到先得的 {@link TopicService#select} 共用 {@link SeatReservationEngine} 的名额。
+ */
+@Service
+public class AllocationService {
+    private static final Logger log = LoggerFactory.getLogger(AllocationService.class);
+    private static final String INSERT_SELECTION_SQL =
+            "INSERT INTO student_selections (student_id, topic_id, status, created_at) VALUES (?, ?, 'SELECTED', ?)";
+
+    private final AllocationRoundRepository roundRepository;
+    private final TopicPreferenceRepository preferenceRepository;
+    private final ApplicantRankRepository rankRepository;
+    private final TopicRepository topicRepository;
+    private final StudentSelectionRepository selectionRepository;
+    private final SeatReservationEngine seatEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxPreferences;
+
+    public AllocationService(AllocationRoundRepository roundRepository,
+                             TopicPreferenceRepository preferenceRepository,
+                             ApplicantRankRepository rankRepository,
+                             TopicRepository topicRepository,
+                             StudentSelectionRepository selectionRepository,
+                             SeatReservationEngine seatEngine,
+                             JdbcTemplate jdbcTemplate,
+                             @Value("${app.allocation.max-preferences:10}") int maxPreferences) {
+        this.roundRepository = roundRepository;
+        this.preferenceRepository = preferenceRepository;
+        this.rankRepository = rankRepository;
+        this.topicRepository = topicRepository;
+        this.selectionRepository = selectionRepository;
+        this.seatEngine = seatEngine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxPreferences = maxPreferences;
+    }
+
+    public List<AllocationRound> rounds() {
+        return roundRepository.findAllByOrderByIdDesc();
+    }
+
+    public AllocationRound createRound(AllocationRound body) {
+        if (body.getStartAt() != null && body.getEndAt() != null && body.getEndAt().isBefore(body.getStartAt())) {
+            throw new IllegalArgumentException("结束时间不能早于开始时间");
+        }
+        AllocationRound round = new AllocationRound();
+        round.setName(body.getName());
+        round.setStartAt(body.getStartAt());
+        round.setEndAt(body.getEndAt());
+        return roundRepository.save(round);
+    }
+
+    @Transactional
+    public List<TopicPreference> submitPreferences(Long roundId, Long studentId, List<Long> topicIds) {
+        AllocationRound round = openRound(roundId);
+        LocalDateTime now = LocalDateTime.now();
+        if (round.getStartAt() != null && now.isBefore(round.getStartAt())) {
+            throw new IllegalStateException("志愿填报尚未开始");
+        }
+        if (round.getEndAt() != null && now.isAfter(round.getEndAt())) {
+            throw new IllegalStateException("志愿填报已截止");
+        }
+        if (topicIds == null || topicIds.isEmpty()) {
+            throw new IllegalArgumentException("志愿列表不能为空");
+        }
+        if (topicIds.size() > maxPreferences) {
+            throw new IllegalArgumentException("最多填报 " + maxPreferences + " 个志愿");
+        }
+        if (new HashSet<>(topicIds).size() != topicIds.size()) {
+            throw new IllegalArgumentException("志愿中存在重复课题");
+        }
+        List<Topic> topics = topicRepository.findAllById(topicIds);
+        if (topics.size() != topicIds.size()
+                || topics.stream().anyMatch(t -> t.getStatus() != TopicStatus.APPROVED)) {
+            throw new IllegalArgumentException("只能填报已审批通过的课题");
+        }
+
+        preferenceRepository.deleteByRoundIdAndStudentId(roundId, studentId);
+        List<TopicPreference> prefs = new ArrayList<>(topicIds.size());
+        for (int i = 0; i < topicIds.size(); i++) {
+            TopicPreference p = new TopicPreference();
+            p.setRoundId(roundId);
+            p.setStudentId(studentId);
+            p.setTopicId(topicIds.get(i));
+            p.setRankNo(i + 1);
+            prefs.add(p);
+        }
+        return preferenceRepository.saveAll(prefs);
+    }
+
+    public List<TopicPreference> myPreferences(Long roundId, Long studentId) {
+        return preferenceRepository.findByRoundIdAndStudentIdOrderByRankNoAsc(roundId, studentId);
+    }
+
+    public List<Applicant> applicants(Long roundId, Long topicId, CurrentUser user) {
+        checkTopicOwner(topicId, user);
+        Map<Long, Integer> teacherRanks = new HashMap<>();
+        for (ApplicantRank r : rankRepository.findByRoundIdAndTopicIdOrderByRankNoAsc(roundId, topicId)) {
+            teacherRanks.put(r.getStudentId(), r.getRankNo());
+        }
+        return preferenceRepository.findByRoundIdAndTopicIdOrderByCreatedAtAsc(roundId, topicId).stream()
+                .map(p -> new Applicant(p.getStudentId(), p.getRankNo(), teacherRanks.get(p.getStudentId())))
+                .toList();
+    }
+
+    /** 教师按顺序提交申请者学生ID，覆盖之前的排序。 */
+    @Transactional
+    public void rankApplicants(Long roundId, Long topicId, List<Long> studentIds, CurrentUser user) {
+        openRound(roundId);
+        checkTopicOwner(topicId, user);
+        if (studentIds == null) {
+            throw new IllegalArgumentException("排序列表不能为空");
+        }
+        Set<Long> applied = new HashSet<>();
+        preferenceRepository.findByRoundIdAndTopicIdOrderByCreatedAtAsc(roundId, topicId)
+                .forEach(p -> applied.add(p.getStudentId()));
+        if (new HashSet<>(studentIds).size() != studentIds.size() || !applied.containsAll(studentIds)) {
+            throw new IllegalArgumentException("只能对填报了该课题的学生排序，且不能重复");
+        }
+
+        rankRepository.deleteByRoundIdAndTopicId(roundId, topicId);
+        List<ApplicantRank> ranks = new ArrayList<>(studentIds.size());
+        for (int i = 0; i < studentIds.size(); i++) {
+            ApplicantRank r = new ApplicantRank();
+            r.setRoundId(roundId);
+            r.setTopicId(topicId);
+            r.setStudentId(studentIds.get(i));
+            r.setRankNo(i + 1);
+            ranks.add(r);
+        }
+        rankRepository.saveAll(ranks);
+    }
+
+    /**
+     * 截止后执行分配：已有有效选题的学生不参与；课题可用名额在匹配前从名额引擎预占，未用完的匹配后归还，
+     * 教师未排序的申请者之间按本轮固定种子的抽签顺序决定优先级，结果可复现。
+     */
+    @Transactional
+    public AllocationResult allocate(Long roundId) {
+        long started = System.nanoTime();
+        AllocationRound round = roundRepository.findForUpdate(roundId)
+                .orElseThrow(() -> new IllegalArgumentException("分配轮次不存在"));
+        if (round.getStatus() != AllocationRound.RoundStatus.OPEN) {
+            throw new IllegalStateException("该轮次已完成分配");
+        }
+
+        Set<Long> alreadySelected = new HashSet<>(
+                selectionRepository.findStudentIdsByStatusIn(SeatReservationEngine.ACTIVE_STATUSES));
+        Map<Long, Integer> topicIndex = new HashMap<>();
+        List<Long> topicIds = new ArrayList<>();
+        Map<Long, Integer> studentIndex = new HashMap<>();
+        List<Long> studentIds = new ArrayList<>();
+        List<int[]> prefList = new ArrayList<>();
+
+        // 查询结果按学生、志愿顺序排列，逐个学生收集志愿
+        List<Object[]> pairs = preferenceRepository.findPairsByRound(roundId);
+        int[] buffer = new int[maxPreferences];
+        int len = 0;
+        Long current = null;
+        for (Object[] row : pairs) {
+            Long studentId = (Long) row[0];
+            if (!studentId.equals(current)) {
+                if (current != null) addStudent(current, buffer, len, studentIndex, studentIds, prefList);
+                current = studentId;
+                len = 0;
+            }
+            if (alreadySelected.contains(studentId) || len == buffer.length) continue;
+            Long topicId = (Long) row[1];
+            Integer t = topicIndex.get(topicId);
+            if (t == null) {
+                t = topicIds.size();
+                topicIndex.put(topicId, t);
+                topicIds.add(topicId);
+            }
+            buffer[len++] = t;
+        }
+        if (current != null) addStudent(current, buffer, len, studentIndex, studentIds, prefList);
+
+        int n = studentIds.size();
+        int m = topicIds.size();
+        // 先按申请人数预占名额再匹配，期间先到先得的选题只会拿到剩下的名额，不会让本轮分配失败
+        int[] applicants = new int[m];
+        for (int[] prefs : prefList) {
+            for (int t : prefs) applicants[t]++;
+        }
+        SeatReservationEngine.Hold[] holds = new SeatReservationEngine.Hold[m];
+        int[] capacity = new int[m];
+        for (int t = 0; t < m; t++) {
+            holds[t] = seatEngine.reserveUpTo(topicIds.get(t), applicants[t]);
+            capacity[t] = holds[t].granted();
+        }
+        int[][] ranked = new int[m][];
+        int[][] rankOf = new int[m][];
+        collectRanks(roundId, topicIndex, studentIndex, ranked, rankOf);
+        int[] lottery = lottery(n, roundId);
+
+        int[] match = StableMatcher.match(prefList.toArray(new int[0][]), capacity, ranked, rankOf, lottery);
+
+        int[] filled = new int[m];
+        List<long[]> rows = new ArrayList<>();
+        for (int s = 0; s < n; s++) {
+            if (match[s] >= 0) {
+                filled[match[s]]++;
+                rows.add(new long[]{studentIds.get(s), topicIds.get(match[s])});
+            }
+        }
+        for (int t = 0; t < m; t++) {
+            holds[t].keep(filled[t]);
+            if (filled[t] > 0) {
+                topicRepository.adjustActiveSelectionCount(topicIds.get(t), filled[t]);
+            }
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SELECTION_SQL, rows, 1000, (ps, r) -> {
+            ps.setLong(1, r[0]);
+            ps.setLong(2, r[1]);
+            ps.setTimestamp(3, now);
+        });
+
+        round.setStatus(AllocationRound.RoundStatus.ALLOCATED);
+        round.setMatchedCount(rows.size());
+        round.setUnmatchedCount(n - rows.size());
+        round.setAllocatedAt(LocalDateTime.now());
+        roundRepository.save(round);
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("志愿分配完成：轮次 {}，学生 {}，课题 {}，录取 {}，耗时 {} ms", roundId, n, m, rows.size(), elapsedMs);
+        return new AllocationResult(roundId, n, rows.size(), n - rows.size(), elapsedMs);
+    }
+
+    private static void addStudent(Long studentId, int[] buffer, int len, Map<Long, Integer> studentIndex,
+                                   List<Long> studentIds, List<int[]> prefList) {
+        if (len == 0) return;
+        studentIndex.put(studentId, studentIds.size());
+        studentIds.add(studentId);
+        prefList.add(Arrays.copyOf(buffer, len));
+    }
+
+    private void collectRanks(Long roundId, Map<Long, Integer> topicIndex, Map<Long, Integer> studentIndex,
+                              int[][] ranked, int[][] rankOf) {
+        Map<Integer, List<long[]>> byTopic = new HashMap<>();
+        for (Object[] row : rankRepository.findTriplesByRound(roundId)) {
+            Integer t = topicIndex.get((Long) row[0]);
+            Integer s = studentIndex.get((Long) row[1]);
+            if (t == null || s == null) continue;
+            byTopic.computeIfAbsent(t, k -> new ArrayList<>()).add(new long[]{s, ((Number) row[2]).longValue()});
+        }
+        byTopic.forEach((t, list) -> {
+            // 按学生下标升序存放，匹配时二分查找名次
+            list.sort(Comparator.comparingLong(a -> a[0]));
+            ranked[t] = new int[list.size()];
+            rankOf[t] = new int[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                ranked[t][i] = (int) list.get(i)[0];
+                rankOf[t][i] = (int) list.get(i)[1];
+            }
+        });
+    }
+
+    private static int[] lottery(int n, long seed) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    private AllocationRound openRound(Long roundId) {
+        AllocationRound round = roundRepository.findById(roundId)
+                .orElseThrow(() -> new IllegalArgumentException("分配轮次不存在"));
+        if (round.getStatus() != AllocationRound.RoundStatus.OPEN) {
+            throw new IllegalStateException("该轮次已完成分配");
+        }
+        return round;
+    }
+
+    private void checkTopicOwner(Long topicId, CurrentUser user) {
+        Topic topic = topicRepository.findById(topicId)
+                .orElseThrow(() -> new IllegalArgumentException("课题不存在"));
+        if (user == null || (!user.isAdmin() && !user.id().equals(topic.getCreatorId()))) {
+            throw new IllegalStateException("只能查看或排序自己课题的申请者");
+        }
+    }
+
+    public record Applicant(Long studentId, Integer preferenceRank, Integer teacherRank) {}
+
+    public record AllocationResult(Long roundId, int students, int matched, int unmatched, long elapsedMs) {}
+}
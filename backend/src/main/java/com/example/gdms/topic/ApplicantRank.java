@@ -0,0 +1,20 @@
+package com.example.gdms.topic;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * 教师对本课题申请者的排序，未排序的申请者排在已排序者之后。
+ */
+@Entity
+@Table(name = "topic_applicant_ranks")
+@Data
+public class ApplicantRank {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long roundId;
+    private Long topicId;
+    private Long studentId;
+    private Integer rankNo;
+}
@@ -0,0 +1,20 @@
+package com.example.gdms.topic;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ApplicantRankRepository extends JpaRepository<ApplicantRank, Long> {
+    List<ApplicantRank> findByRoundIdAndTopicIdOrderByRankNoAsc(Long roundId, Long topicId);
+
+    @Modifying
+    @Query("delete from ApplicantRank r where r.roundId = :roundId and r.topicId = :topicId")
+    void deleteByRoundIdAndTopicId(@Param("roundId") Long roundId, @Param("topicId") Long topicId);
+
+    // 返回 [topicId, studentId, rankNo]
+    @Query("select r.topicId, r.studentId, r.rankNo from ApplicantRank r where r.roundId = :roundId")
+    List<Object[]> findTriplesByRound(@Param("roundId") Long roundId);
+}
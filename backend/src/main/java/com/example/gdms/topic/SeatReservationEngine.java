@@ -0,0 +1,260 @@
+package com.example.gdms.topic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 课题名额预占引擎：内存中按课题维护剩余名额，选题时 CAS 扣减，常数时间判定，名额已满时不访问数据库。
+ * <p>
+ * 名额在事务内扣减；事务回滚时通过事务同步归还，取消选题、调整容量则在提交后生效。
+ * 启动时从数据库预热，未预热的课题在首次访问时按需加载。
+ */
+@Component
+public class SeatReservationEngine {
+    private static final Logger log = LoggerFactory.getLogger(SeatReservationEngine.class);
+    static final List<StudentSelection.SelectionStatus> ACTIVE_STATUSES =
+            List.of(StudentSelection.SelectionStatus.SELECTED, StudentSelection.SelectionStatus.LOCKED);
+
+    private final TopicRepository topicRepository;
+    private final StudentSelectionRepository selectionRepository;
+    private final ConcurrentHashMap<Long, AtomicInteger> remaining = new ConcurrentHashMap<>();
+    // 任一课题名额变化时递增，用于课题列表的 ETag
+    private final AtomicLong version = new AtomicLong();
+    // 自上次 drainChanged 以来名额有变化的课题，供实时推送合并发送
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    public SeatReservationEngine(TopicRepository topicRepository, StudentSelectionRepository selectionRepository) {
+        this.topicRepository = topicRepository;
+        this.selectionRepository = selectionRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Map<Long, Integer> active = new HashMap<>();
+        for (Object[] row : selectionRepository.countGroupedByTopic(ACTIVE_STATUSES)) {
+            active.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        for (Object[] row : topicRepository.findAllCapacities()) {
+            Long topicId = (Long) row[0];
+            int capacity = row[1] == null ? 1 : ((Number) row[1]).intValue();
+            remaining.putIfAbsent(topicId, new AtomicInteger(capacity - active.getOrDefault(topicId, 0)));
+        }
+        log.info("课题名额预热完成，共 {} 个课题", remaining.size());
+    }
+
+    /**
+     * 在当前事务中预占一个名额，名额已满抛出 {@link TopicFullException}。
+     * 事务未提交（回滚）时名额自动归还。
+     */
+    public void reserve(Long topicId) {
+        reserve(topicId, 1);
+    }
+
+    /** 一次预占多个名额（批量分配），剩余不足时整体拒绝。 */
+    public void reserve(Long topicId, int count) {
+        AtomicInteger seats = seats(topicId);
+        int r;
+        do {
+            r = seats.get();
+            if (r < count) {
+                throw new TopicFullException(topicId);
+            }
+        } while (!seats.compareAndSet(r, r - count));
+        changed(topicId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        seats.addAndGet(count);
+                        changed(topicId);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 在当前事务中预占至多 max 个名额，剩余不足时有多少占多少。用于批量分配先锁定名额再计算匹配，
+     * 匹配后通过 {@link Hold#keep} 归还未用完的部分；事务回滚时归还仍持有的全部名额。
+     */
+    public Hold reserveUpTo(Long topicId, int max) {
+        AtomicInteger seats = seats(topicId);
+        int r;
+        int granted;
+        do {
+            r = seats.get();
+            granted = Math.max(0, Math.min(r, max));
+            if (granted == 0) {
+                return new Hold(topicId, seats, new AtomicInteger());
+            }
+        } while (!seats.compareAndSet(r, r - granted));
+        changed(topicId);
+        Hold hold = new Hold(topicId, seats, new AtomicInteger(granted));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        int held = hold.held.getAndSet(0);
+                        if (held > 0) {
+                            seats.addAndGet(held);
+                            changed(topicId);
+                        }
+                    }
+                }
+            });
+        }
+        return hold;
+    }
+
+    /** {@link #reserveUpTo} 预占的名额。 */
+    public final class Hold {
+        private final Long topicId;
+        private final AtomicInteger seats;
+        private final AtomicInteger held;
+
+        private Hold(Long topicId, AtomicInteger seats, AtomicInteger held) {
+            this.topicId = topicId;
+            this.seats = seats;
+            this.held = held;
+        }
+
+        public int granted() {
+            return held.get();
+        }
+
+        /** 只保留 used 个名额，其余立即归还。 */
+        public void keep(int used) {
+            int current;
+            do {
+                current = held.get();
+                if (used >= current) return;
+            } while (!held.compareAndSet(current, used));
+            seats.addAndGet(current - used);
+            changed(topicId);
+        }
+    }
+
+    /** 释放一个名额（取消选题），事务提交后生效。 */
+    public void release(Long topicId) {
+        afterCommit(() -> {
+            AtomicInteger seats = remaining.get(topicId);
+            if (seats != null) seats.incrementAndGet();
+            changed(topicId);
+        });
+    }
+
+    /** 容量变更，按差值调整剩余名额，事务提交后生效。剩余可能为负，直到有学生取消。 */
+    public void capacityChanged(Long topicId, int oldCapacity, int newCapacity) {
+        if (oldCapacity == newCapacity) return;
+        afterCommit(() -> {
+            AtomicInteger seats = remaining.get(topicId);
+            if (seats != null) seats.addAndGet(newCapacity - oldCapacity);
+            changed(topicId);
+        });
+    }
+
+    /** 课题删除后移除计数，事务提交后生效。 */
+    public void evict(Long topicId) {
+        afterCommit(() -> {
+            remaining.remove(topicId);
+            changed(topicId);
+        });
+    }
+
+    /** 当前剩余名额；未加载的课题按需从数据库加载。 */
+    public int remaining(Long topicId) {
+        return Math.max(0, seats(topicId).get());
+    }
+
+    /** 已占用名额（含未提交的预占），课题已删除时返回 fallback。 */
+    public int taken(Long topicId, int capacity, int fallback) {
+        AtomicInteger seats = loaded(topicId);
+        return seats == null ? fallback : capacity - seats.get();
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    /** 已加载课题的原始剩余名额（可能为负），未加载或已删除返回 null，不触发加载。 */
+    public Integer remainingIfLoaded(Long topicId) {
+        AtomicInteger seats = remaining.get(topicId);
+        return seats == null ? null : seats.get();
+    }
+
+    /** 取出并清空自上次调用以来名额有变化的课题ID。 */
+    public Set<Long> drainChanged() {
+        Set<Long> drained = new HashSet<>();
+        for (Iterator<Long> it = changed.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    private void changed(Long topicId) {
+        version.incrementAndGet();
+        changed.add(topicId);
+    }
+
+    private AtomicInteger seats(Long topicId) {
+        AtomicInteger seats = loaded(topicId);
+        if (seats == null) {
+            throw new IllegalArgumentException("课题不存在");
+        }
+        return seats;
+    }
+
+    /**
+     * 取已加载的计数，未加载时在 map 之外查询数据库再 putIfAbsent，
+     * 避免在 computeIfAbsent 中做 I/O 阻塞同一分桶的其他更新。并发加载时以先放入的为准。
+     */
+    private AtomicInteger loaded(Long topicId) {
+        AtomicInteger seats = remaining.get(topicId);
+        if (seats != null) return seats;
+        AtomicInteger fresh = load(topicId);
+        if (fresh == null) return null;
+        AtomicInteger existing = remaining.putIfAbsent(topicId, fresh);
+        return existing != null ? existing : fresh;
+    }
+
+    private AtomicInteger load(Long topicId) {
+        return topicRepository.findById(topicId)
+                .map(t -> {
+                    int capacity = t.getCapacity() == null ? 1 : t.getCapacity();
+                    long active = selectionRepository.countByTopicIdAndStatusIn(topicId, ACTIVE_STATUSES);
+                    return new AtomicInteger(capacity - (int) active);
+                })
+                .orElse(null);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.gdms.topic;
+
+import java.util.Arrays;
+
+/**
+ * 带容量的学生提议 Gale–Shapley 算法（医院-住院医师模型），结果为学生最优的稳定匹配。
+ * <p>
+ * 全部使用下标与基本类型数组：每个课题维护一个以优先级为键的大顶堆，堆顶是当前最差的已录取者，
+ * 新的提议优于堆顶时替换并让被挤出的学生继续提议。复杂度 O(志愿总数 × log 容量)。
+ */
+final class StableMatcher {
+    private static final long UNRANKED = Integer.MAX_VALUE;
+
+    private StableMatcher() {
+    }
+
+    /**
+     * @param prefs    prefs[s] 为学生 s 按志愿顺序排列的课题下标
+     * @param capacity capacity[t] 为课题 t 的可用名额
+     * @param ranked   ranked[t] 为教师排过序的学生下标（升序），可为 null
+     * @param rankOf   rankOf[t][i] 为 ranked[t][i] 的名次，越小越优先
+     * @param lottery  lottery[s] 为学生的抽签序号（0..n-1 的排列），用于同名次之间的平局
+     * @return match[s] 为学生 s 分到的课题下标，未分配为 -1
+     */
+    static int[] match(int[][] prefs, int[] capacity, int[][] ranked, int[][] rankOf, int[] lottery) {
+        int n = prefs.length;
+        int[] match = new int[n];
+        Arrays.fill(match, -1);
+        int[] next = new int[n];
+        int[] byLottery = new int[n];
+        for (int s = 0; s < n; s++) {
+            byLottery[lottery[s]] = s;
+        }
+        long[][] heaps = new long[capacity.length][];
+        int[] sizes = new int[capacity.length];
+
+        int[] stack = new int[n];
+        int top = 0;
+        for (int s = n - 1; s >= 0; s--) {
+            if (prefs[s].length > 0) stack[top++] = s;
+        }
+        while (top > 0) {
+            int s = stack[--top];
+            while (next[s] < prefs[s].length) {
+                int t = prefs[s][next[s]++];
+                int cap = capacity[t];
+                if (cap <= 0) continue;
+                long key = key(t, s, ranked, rankOf, lottery);
+                long[] heap = heaps[t];
+                if (heap == null) {
+                    heap = heaps[t] = new long[cap];
+                }
+                if (sizes[t] < cap) {
+                    siftUp(heap, sizes[t]++, key);
+                    match[s] = t;
+                    break;
+                }
+                if (heap[0] > key) {
+                    int evicted = byLottery[(int) (heap[0] & 0xFFFFFFFFL)];
+                    siftDown(heap, sizes[t], key);
+                    match[evicted] = -1;
+                    match[s] = t;
+                    stack[top++] = evicted;
+                    break;
+                }
+            }
+        }
+        return match;
+    }
+
+    /** 高 32 位为教师给出的名次（未排序为最大值），低 32 位为抽签序号，键越小越优先且互不相同。 */
+    private static long key(int t, int s, int[][] ranked, int[][] rankOf, int[] lottery) {
+        long rank = UNRANKED;
+        if (ranked[t] != null) {
+            int i = Arrays.binarySearch(ranked[t], s);
+            if (i >= 0) rank = rankOf[t][i];
+        }
+        return (rank << 32) | lottery[s];
+    }
+
+    private static void siftUp(long[] heap, int i, long key) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] >= key) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = key;
+    }
+
+    /** 用 key 替换堆顶并下沉。 */
+    private static void siftDown(long[] heap, int size, long key) {
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && heap[right] > heap[child]) child = right;
+            if (key >= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = key;
+    }
+}
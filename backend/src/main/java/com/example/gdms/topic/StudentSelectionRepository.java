@@ -1,7 +1,11 @@
 package com.example.gdms.topic;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,5 +14,20 @@ public interface StudentSelectionRepository extends JpaRepository<StudentSelecti
     List<StudentSelection> findByStudentId(Long studentId);
     Optional<StudentSelection> findByStudentIdAndStatus(Long studentId, StudentSelection.SelectionStatus status);
     boolean existsByStudentIdAndStatus(Long studentId, StudentSelection.SelectionStatus status);
-}
+    boolean existsByStudentIdAndStatusIn(Long studentId, Collection<StudentSelection.SelectionStatus> statuses);
+    long countByTopicIdAndStatusIn(Long topicId, Collection<StudentSelection.SelectionStatus> statuses);
+
+    @Query("select distinct s.studentId from StudentSelection s where s.status in :statuses")
+    List<Long> findStudentIdsByStatusIn(@Param("statuses") Collection<StudentSelection.SelectionStatus> statuses);
 
+    // 返回 [topicId, count]
+    @Query("select s.topicId, count(s) from StudentSelection s where s.status in :statuses group by s.topicId")
+    List<Object[]> countGroupedByTopic(@Param("statuses") Collection<StudentSelection.SelectionStatus> statuses);
+
+    /** 仅当当前状态属于 from 时改为 to，返回实际改动的行数；并发的同一转换只有一个能返回 1。 */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StudentSelection s set s.status = :to where s.id = :id and s.status in :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") Collection<StudentSelection.SelectionStatus> from,
+                   @Param("to") StudentSelection.SelectionStatus to);
+}
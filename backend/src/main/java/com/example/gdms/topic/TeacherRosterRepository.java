@@ -0,0 +1,103 @@
+package com.example.gdms.topic;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 教师工作台名单：一条联表查询返回教师名下所有有效选题的学生、课题、选题状态及每个阶段最新的任务状态。
+ * 以选题ID做游标分页（keyset），翻页代价与偏移量无关。
+ */
+@Repository
+public class TeacherRosterRepository {
+    // 先在子查询中按游标取出一页选题，再关联用户、课题和每个阶段最新的任务（不存在更大ID的同阶段任务）
+    private static final String ROSTER_SQL = """
+            SELECT ss.id AS selection_id, ss.student_id, u.username, u.full_name,
+                   ss.topic_id, t.title, ss.status AS selection_status, ss.created_at,
+                   st.id AS task_id, st.stage_id, sc.name AS stage_name, st.status AS task_status, st.updated_at
+            FROM (
+                SELECT s.id, s.student_id, s.topic_id, s.status, s.created_at
+                FROM student_selections s
+                JOIN topics tp ON tp.id = s.topic_id
+                WHERE tp.creator_id = :teacherId
+                  AND s.status IN ('SELECTED', 'LOCKED')
+                  AND s.id > :afterId
+                ORDER BY s.id
+                LIMIT :limit
+            ) ss
+            JOIN topics t ON t.id = ss.topic_id
+            LEFT JOIN users u ON u.id = ss.student_id
+            LEFT JOIN stage_task st ON st.student_id = ss.student_id
+                AND NOT EXISTS (
+                    SELECT 1 FROM stage_task newer
+                    WHERE newer.student_id = st.student_id
+                      AND newer.stage_id = st.stage_id
+                      AND newer.id > st.id
+                )
+            LEFT JOIN stage_config sc ON sc.id = st.stage_id
+            ORDER BY ss.id, sc.order_index, st.stage_id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public TeacherRosterRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public RosterPage findRoster(Long teacherId, Long afterSelectionId, int size) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("teacherId", teacherId)
+                .addValue("afterId", afterSelectionId == null ? 0L : afterSelectionId)
+                .addValue("limit", size);
+        // 一个学生每个阶段一行，按选题ID折叠
+        Map<Long, RosterEntry> entries = new LinkedHashMap<>();
+        jdbcTemplate.query(ROSTER_SQL, params, rs -> {
+            long selectionId = rs.getLong("selection_id");
+            RosterEntry entry = entries.get(selectionId);
+            if (entry == null) {
+                entry = new RosterEntry(
+                        selectionId,
+                        rs.getLong("student_id"),
+                        rs.getString("username"),
+                        rs.getString("full_name"),
+                        rs.getLong("topic_id"),
+                        rs.getString("title"),
+                        rs.getString("selection_status"),
+                        toLocal(rs.getTimestamp("created_at")),
+                        new ArrayList<>());
+                entries.put(selectionId, entry);
+            }
+            long taskId = rs.getLong("task_id");
+            if (!rs.wasNull()) {
+                entry.stages().add(new StageProgress(
+                        rs.getLong("stage_id"),
+                        rs.getString("stage_name"),
+                        taskId,
+                        rs.getString("task_status"),
+                        toLocal(rs.getTimestamp("updated_at"))));
+            }
+        });
+        List<RosterEntry> items = new ArrayList<>(entries.values());
+        Long nextCursor = items.size() == size ? items.get(items.size() - 1).selectionId() : null;
+        return new RosterPage(items, nextCursor);
+    }
+
+    private static LocalDateTime toLocal(Timestamp ts) {
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+
+    public record RosterPage(List<RosterEntry> items, Long nextCursor) {}
+
+    public record RosterEntry(Long selectionId, Long studentId, String studentUsername, String studentName,
+                              Long topicId, String topicTitle, String selectionStatus, LocalDateTime createdAt,
+                              List<StageProgress> stages) {}
+
+    public record StageProgress(Long stageId, String stageName, Long taskId, String status, LocalDateTime updatedAt) {}
+}
@@ -16,8 +16,22 @@ public class Topic {
     private String description;
     private Long creatorId;
     private Integer capacity = 1;
+    // 有效选题数（SELECTED/LOCKED），只通过 TopicRepository.adjustActiveSelectionCount 增量维护，
+    // 保存实体时不写回以免覆盖并发的增量；TopicCountReconciler 定期校正
+    @Column(nullable = false, updatable = false)
+    private Integer activeSelectionCount = 0;
     @Enumerated(EnumType.STRING)
     private TopicStatus status = TopicStatus.DRAFT;
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    public int getRemainingSeats() {
+        int cap = capacity == null ? 1 : capacity;
+        int active = activeSelectionCount == null ? 0 : activeSelectionCount;
+        return Math.max(0, cap - active);
+    }
+
+    public boolean isOpen() {
+        return status == TopicStatus.APPROVED && getRemainingSeats() > 0;
+    }
 }
 
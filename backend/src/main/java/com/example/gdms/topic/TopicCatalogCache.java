@@ -0,0 +1,186 @@
+package com.example.gdms.topic;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 课题目录缓存：一级为进程内 Caffeine，可选 Redis 作为二级（多实例共享，app.topic-cache.redis.enabled）。
+ * <p>
+ * 列表、分页与单个课题的键都带目录版本号，课题新建、修改、提交、审批、删除后版本号递增，
+ * 各实例的旧条目随即失效，失效前已开始的加载也只会写入旧版本的键。启用 Redis 时版本号以 Redis 为准，
+ * Redis 不可用期间不读写缓存，避免各实例按本地版本号读到彼此未失效的旧条目。
+ * 返回前用 {@link SeatReservationEngine} 的实时计数覆盖已选人数，因此选题、取消不会使目录缓存失效，只改变 ETag 中的名额版本；
+ * 名额计数是各实例自己的，所以只有单实例（未启用 Redis）时才返回 ETag。
+ */
+@Component
+public class TopicCatalogCache {
+    private static final Logger log = LoggerFactory.getLogger(TopicCatalogCache.class);
+    private static final String REDIS_PREFIX = "gdms:topics:";
+    private static final String VERSION_KEY = REDIS_PREFIX + "version";
+
+    private final SeatReservationEngine seatEngine;
+    private final ObjectMapper objectMapper;
+    private final StringRedisTemplate redis;
+    private final Duration ttl;
+    private final Cache<String, Object> local;
+    private final AtomicLong localVersion = new AtomicLong();
+
+    public TopicCatalogCache(
+            SeatReservationEngine seatEngine,
+            ObjectMapper objectMapper,
+            ObjectProvider<StringRedisTemplate> redisProvider,
+            MeterRegistry meterRegistry,
+            @Value("${app.topic-cache.max-size:2000}") long maxSize,
+            @Value("${app.topic-cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${app.topic-cache.redis.enabled:false}") boolean redisEnabled
+    ) {
+        this.seatEngine = seatEngine;
+        this.objectMapper = objectMapper;
+        this.redis = redisEnabled ? redisProvider.getIfAvailable() : null;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "topic-catalog");
+    }
+
+    public List<Topic> list(Supplier<List<Topic>> loader) {
+        JavaType type = objectMapper.getTypeFactory().constructCollectionType(List.class, Topic.class);
+        List<Topic> topics = get("all", version(), type, loader);
+        return topics.stream().map(this::live).toList();
+    }
+
+    public Page<Topic> page(Pageable pageable, String keyword, TopicStatus status, Long creatorId, Supplier<Page<Topic>> loader) {
+        String key = "page:" + pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort()
+                + ":" + status + ":" + creatorId + ":" + (keyword == null ? "" : keyword.trim());
+        CachedPage cached = get(key, version(), objectMapper.constructType(CachedPage.class), () -> {
+            Page<Topic> page = loader.get();
+            return new CachedPage(page.getContent(), page.getTotalElements());
+        });
+        return new PageImpl<>(cached.content().stream().map(this::live).toList(), pageable, cached.total());
+    }
+
+    public Topic topic(Long id, Supplier<Topic> loader) {
+        return live(get("topic:" + id, version(), objectMapper.constructType(Topic.class), loader));
+    }
+
+    /**
+     * 目录版本与名额版本组成的弱 ETag，任一变化都会让客户端重新拉取。
+     * 名额版本只在本进程内递增，多实例部署时各实例互不可见，因此启用 Redis 时不返回 ETag（也就不会返回 304）。
+     */
+    public String etag() {
+        if (redis != null) {
+            return null;
+        }
+        return "W/\"" + localVersion.get() + "-" + seatEngine.version() + "\"";
+    }
+
+    /** 课题变更后调用：递增目录版本，所有实例的旧条目随之失效，处于事务中时推迟到提交之后。 */
+    public void invalidate(Long topicId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(topicId);
+                }
+            });
+        } else {
+            doInvalidate(topicId);
+        }
+    }
+
+    private void doInvalidate(Long topicId) {
+        if (redis == null) {
+            localVersion.incrementAndGet();
+            return;
+        }
+        try {
+            redis.opsForValue().increment(VERSION_KEY);
+        } catch (RuntimeException e) {
+            log.warn("Redis 课题缓存失效失败：{}", e.getMessage());
+        }
+    }
+
+    /** 当前目录版本；启用了 Redis 但读取失败时返回 null，调用方不使用缓存。 */
+    private Long version() {
+        if (redis == null) {
+            return localVersion.get();
+        }
+        try {
+            String v = redis.opsForValue().get(VERSION_KEY);
+            return v == null ? 0L : Long.parseLong(v);
+        } catch (RuntimeException e) {
+            log.debug("读取 Redis 课题目录版本失败，跳过缓存：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String name, Long version, JavaType type, Supplier<T> loader) {
+        if (version == null) return loader.get();
+        String key = version + ":" + name;
+        Object hit = local.getIfPresent(key);
+        if (hit != null) return (T) hit;
+        T value = null;
+        if (redis != null) {
+            try {
+                String json = redis.opsForValue().get(REDIS_PREFIX + key);
+                if (json != null) value = objectMapper.readValue(json, type);
+            } catch (Exception e) {
+                log.debug("读取 Redis 课题缓存失败：{}", e.getMessage());
+            }
+        }
+        if (value == null) {
+            value = loader.get();
+            if (redis != null) {
+                try {
+                    redis.opsForValue().set(REDIS_PREFIX + key, objectMapper.writeValueAsString(value), ttl);
+                } catch (Exception e) {
+                    log.debug("写入 Redis 课题缓存失败：{}", e.getMessage());
+                }
+            }
+        }
+        local.put(key, value);
+        return value;
+    }
+
+    /** 缓存中的实体为共享对象，返回副本并覆盖为实时的已选人数。 */
+    private Topic live(Topic t) {
+        Topic copy = new Topic();
+        copy.setId(t.getId());
+        copy.setTitle(t.getTitle());
+        copy.setDescription(t.getDescription());
+        copy.setCreatorId(t.getCreatorId());
+        copy.setCapacity(t.getCapacity());
+        copy.setStatus(t.getStatus());
+        copy.setCreatedAt(t.getCreatedAt());
+        int capacity = t.getCapacity() == null ? 1 : t.getCapacity();
+        int fallback = t.getActiveSelectionCount() == null ? 0 : t.getActiveSelectionCount();
+        copy.setActiveSelectionCount(seatEngine.taken(t.getId(), capacity, fallback));
+        return copy;
+    }
+
+    record CachedPage(List<Topic> content, long total) {}
+}
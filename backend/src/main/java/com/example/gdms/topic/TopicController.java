@@ -1,38 +1,45 @@
 package com.example.gdms.topic;
 
 import com.example.gdms.common.ApiResponse;
-import com.example.gdms.user.User;
-import com.example.gdms.user.UserRepository;
+import com.example.gdms.security.CurrentUser;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.security.Principal;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/topics")
 public class TopicController {
     private final TopicService topicService;
-    private final UserRepository userRepository;
+    private final TopicSeatStream seatStream;
+    private final TopicWaitlistService waitlistService;
 
-    public TopicController(TopicService topicService, UserRepository userRepository) {
+    public TopicController(TopicService topicService, TopicSeatStream seatStream, TopicWaitlistService waitlistService) {
         this.topicService = topicService;
-        this.userRepository = userRepository;
+        this.seatStream = seatStream;
+        this.waitlistService = waitlistService;
     }
 
     @GetMapping
-    public ApiResponse<List<Topic>> list() {
-        return ApiResponse.ok(topicService.list());
+    public ResponseEntity<ApiResponse<List<Topic>>> list(WebRequest request) {
+        return cached(request, topicService::listCatalog);
     }
 
     @GetMapping("/page")
-    public ApiResponse<Page<Topic>> listPage(
+    public ResponseEntity<ApiResponse<Page<Topic>>> listPage(
+            WebRequest request,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String keyword,
@@ -47,12 +54,22 @@ public class TopicController {
                 // 忽略无效的状态值
             }
         }
-        return ApiResponse.ok(topicService.findTopics(pageable, keyword, topicStatus, creatorId));
+        TopicStatus filter = topicStatus;
+        return cached(request, () -> topicService.findCatalogPage(pageable, keyword, filter, creatorId));
+    }
+
+    /** 名额实时推送：连接后先收到 hello，之后每个合并周期最多一条 seats 事件。 */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(CurrentUser user) {
+        if (user == null || user.id() == null) {
+            throw new IllegalArgumentException("无法识别用户身份");
+        }
+        return seatStream.open(user.id());
     }
 
     @GetMapping("/{id}")
-    public ApiResponse<Topic> get(@PathVariable Long id) {
-        return ApiResponse.ok(topicService.getById(id));
+    public ResponseEntity<ApiResponse<Topic>> get(@PathVariable Long id, WebRequest request) {
+        return cached(request, () -> topicService.getCatalogTopic(id));
     }
 
     @GetMapping("/{id}/approvals")
@@ -62,28 +79,20 @@ public class TopicController {
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<Topic> create(@RequestBody Topic t, Principal principal) {
-        if (principal != null) {
-            t.setCreatorId(userRepository.findByUsername(principal.getName())
-                    .map(User::getId)
-                    .orElse(null));
+    public ApiResponse<Topic> create(@RequestBody Topic t, CurrentUser user) {
+        if (user != null) {
+            t.setCreatorId(user.id());
         }
         return ApiResponse.ok(topicService.create(t));
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<Topic> update(@PathVariable Long id, @RequestBody Topic t, Principal principal) {
+    public ApiResponse<Topic> update(@PathVariable Long id, @RequestBody Topic t, CurrentUser user) {
         Topic existing = topicService.getById(id);
         // 检查权限：只有创建者或管理员可以编辑
-        if (principal != null) {
-            Long currentUserId = userRepository.findByUsername(principal.getName())
-                    .map(User::getId)
-                    .orElse(null);
-            boolean isAdmin = userRepository.findByUsername(principal.getName())
-                    .map(u -> "ADMIN".equals(u.getRole()))
-                    .orElse(false);
-            if (!isAdmin && (existing.getCreatorId() == null || !existing.getCreatorId().equals(currentUserId))) {
+        if (user != null) {
+            if (!user.isAdmin() && (existing.getCreatorId() == null || !existing.getCreatorId().equals(user.id()))) {
                 throw new IllegalStateException("只能编辑自己创建的课题");
             }
         }
@@ -96,17 +105,11 @@ public class TopicController {
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<?> delete(@PathVariable Long id, Principal principal) {
+    public ApiResponse<?> delete(@PathVariable Long id, CurrentUser user) {
         Topic existing = topicService.getById(id);
         // 检查权限：只有创建者或管理员可以删除
-        if (principal != null) {
-            Long currentUserId = userRepository.findByUsername(principal.getName())
-                    .map(User::getId)
-                    .orElse(null);
-            boolean isAdmin = userRepository.findByUsername(principal.getName())
-                    .map(u -> "ADMIN".equals(u.getRole()))
-                    .orElse(false);
-            if (!isAdmin && (existing.getCreatorId() == null || !existing.getCreatorId().equals(currentUserId))) {
+        if (user != null) {
+            if (!user.isAdmin() && (existing.getCreatorId() == null || !existing.getCreatorId().equals(user.id()))) {
                 throw new IllegalStateException("只能删除自己创建的课题");
             }
         }
@@ -122,34 +125,48 @@ public class TopicController {
 
     @PostMapping("/{id}/approve")
     @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
-    public ApiResponse<Topic> approve(@PathVariable Long id, @RequestBody Map<String, String> body, Principal principal) {
+    public ApiResponse<Topic> approve(@PathVariable Long id, @RequestBody Map<String, String> body, CurrentUser user) {
         String decision = body.getOrDefault("decision", "APPROVED");
         String comment = body.getOrDefault("comment", "");
         if (comment == null || comment.trim().isEmpty()) {
             throw new IllegalArgumentException("审批意见不能为空");
         }
-        Long reviewerId = null;
-        if (principal != null) {
-            reviewerId = userRepository.findByUsername(principal.getName())
-                    .map(User::getId)
-                    .orElse(null);
-        }
+        Long reviewerId = user != null ? user.id() : null;
         return ApiResponse.ok(topicService.approve(id, reviewerId, TopicStatus.valueOf(decision), comment));
     }
 
     @PostMapping("/{id}/select")
     @PreAuthorize("hasRole('STUDENT')")
-    public ResponseEntity<?> select(@PathVariable Long id, @RequestBody Map<String, Long> body, Principal principal) {
-        Long studentId = null;
-        if (principal != null) {
-            studentId = userRepository.findByUsername(principal.getName())
-                    .map(User::getId)
-                    .orElse(null);
-        }
+    public ResponseEntity<?> select(@PathVariable Long id, @RequestBody Map<String, Long> body, CurrentUser user) {
+        Long studentId = user != null ? user.id() : null;
         if (studentId == null) {
             return ResponseEntity.badRequest().body("无法识别学生身份");
         }
-        return ResponseEntity.ok(topicService.select(id, studentId));
+        TopicService.SelectionOutcome outcome = topicService.selectOrWait(id, studentId);
+        if (outcome.selection() != null) {
+            return ResponseEntity.ok(outcome.selection());
+        }
+        // 名额已满：已登记候补，返回 202 和排队位置
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(outcome.waitlist());
+    }
+
+    @GetMapping("/waitlist/my")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ApiResponse<List<TopicWaitlistService.WaitlistPosition>> myWaitlist(CurrentUser user) {
+        return ApiResponse.ok(waitlistService.myWaitlist(requireStudent(user)));
+    }
+
+    @GetMapping("/waitlist/{entryId}")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ApiResponse<TopicWaitlistService.WaitlistPosition> waitlistEntry(@PathVariable Long entryId, CurrentUser user) {
+        return ApiResponse.ok(waitlistService.get(entryId, requireStudent(user)));
+    }
+
+    @DeleteMapping("/waitlist/{entryId}")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ApiResponse<?> leaveWaitlist(@PathVariable Long entryId, CurrentUser user) {
+        waitlistService.leave(entryId, requireStudent(user));
+        return ApiResponse.ok();
     }
 
     @PostMapping("/selections/{selectionId}/lock")
@@ -160,13 +177,8 @@ public class TopicController {
 
     @PostMapping("/selections/{selectionId}/cancel")
     @PreAuthorize("hasAnyRole('ADMIN','STUDENT')")
-    public ResponseEntity<?> cancelSelection(@PathVariable Long selectionId, Principal principal) {
-        Long studentId = null;
-        if (principal != null) {
-            studentId = userRepository.findByUsername(principal.getName())
-                    .map(User::getId)
-                    .orElse(null);
-        }
+    public ResponseEntity<?> cancelSelection(@PathVariable Long selectionId, CurrentUser user) {
+        Long studentId = user != null ? user.id() : null;
         return ResponseEntity.ok(topicService.cancelSelection(selectionId, studentId));
     }
 
@@ -177,13 +189,8 @@ public class TopicController {
 
     @GetMapping("/my-selection")
     @PreAuthorize("hasRole('STUDENT')")
-    public ApiResponse<StudentSelection> getMySelection(Principal principal) {
-        Long studentId = null;
-        if (principal != null) {
-            studentId = userRepository.findByUsername(principal.getName())
-                    .map(User::getId)
-                    .orElse(null);
-        }
+    public ApiResponse<StudentSelection> getMySelection(CurrentUser user) {
+        Long studentId = user != null ? user.id() : null;
         if (studentId == null) {
             throw new IllegalArgumentException("无法识别学生身份");
         }
@@ -192,13 +199,8 @@ public class TopicController {
 
     @GetMapping("/selections/my")
     @PreAuthorize("hasRole('STUDENT')")
-    public ApiResponse<List<StudentSelection>> getMySelections(Principal principal) {
-        Long studentId = null;
-        if (principal != null) {
-            studentId = userRepository.findByUsername(principal.getName())
-                    .map(User::getId)
-                    .orElse(null);
-        }
+    public ApiResponse<List<StudentSelection>> getMySelections(CurrentUser user) {
+        Long studentId = user != null ? user.id() : null;
         if (studentId == null) {
             throw new IllegalArgumentException("无法识别学生身份");
         }
@@ -207,17 +209,34 @@ public class TopicController {
 
     @GetMapping("/my-students")
     @PreAuthorize("hasAnyRole('TEACHER','ADMIN')")
-    public ApiResponse<List<Map<String, Object>>> getMyStudents(Principal principal) {
-        Long teacherId = null;
-        if (principal != null) {
-            teacherId = userRepository.findByUsername(principal.getName())
-                    .map(User::getId)
-                    .orElse(null);
-        }
+    public ApiResponse<TeacherRosterRepository.RosterPage> getMyStudents(
+            @RequestParam(required = false) Long afterSelectionId,
+            @RequestParam(defaultValue = "50") int size,
+            CurrentUser user) {
+        Long teacherId = user != null ? user.id() : null;
         if (teacherId == null) {
             throw new IllegalArgumentException("无法识别教师身份");
         }
-        return ApiResponse.ok(topicService.getTeacherStudents(teacherId));
+        return ApiResponse.ok(topicService.getTeacherStudents(teacherId, afterSelectionId, size));
+    }
+
+    private Long requireStudent(CurrentUser user) {
+        if (user == null || user.id() == null) {
+            throw new IllegalArgumentException("无法识别学生身份");
+        }
+        return user.id();
     }
-}
 
+    /** 目录未变化时直接返回 304，不读取缓存也不序列化；没有 ETag（多实例部署）时总是返回完整结果。 */
+    private <T> ResponseEntity<ApiResponse<T>> cached(WebRequest request, Supplier<T> body) {
+        String etag = topicService.catalogEtag();
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (etag == null) {
+            return ResponseEntity.ok().cacheControl(cacheControl).body(ApiResponse.ok(body.get()));
+        }
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(ApiResponse.ok(body.get()));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.gdms.topic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按 student_selections 重新计算 topics.active_selection_count，修正手工改库或异常中断导致的偏差。
+ * 单条 UPDATE 只改写不一致的行。
+ */
+@Component
+public class TopicCountReconciler {
+    private static final Logger log = LoggerFactory.getLogger(TopicCountReconciler.class);
+    private static final String RECONCILE_SQL = """
+            UPDATE topics t
+            LEFT JOIN (
+                SELECT topic_id, COUNT(*) AS cnt
+                FROM student_selections
+                WHERE status IN ('SELECTED', 'LOCKED')
+                GROUP BY topic_id
+            ) s ON s.topic_id = t.id
+            SET t.active_selection_count = COALESCE(s.cnt, 0)
+            WHERE t.active_selection_count <> COALESCE(s.cnt, 0)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TopicCountReconciler(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Scheduled(initialDelayString = "${app.topic-reconcile.initial-delay-ms:60000}",
+            fixedDelayString = "${app.topic-reconcile.interval-ms:600000}")
+    public int reconcile() {
+        int fixed = jdbcTemplate.update(RECONCILE_SQL);
+        if (fixed > 0) {
+            log.warn("已校正 {} 个课题的有效选题数", fixed);
+        }
+        return fixed;
+    }
+}
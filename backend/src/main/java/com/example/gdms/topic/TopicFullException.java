@@ -0,0 +1,17 @@
+package com.example.gdms.topic;
+
+/**
+ * 课题名额已满。继承 IllegalStateException，由全局异常处理返回 400。
+ */
+public class TopicFullException extends IllegalStateException {
+    private final Long topicId;
+
+    public TopicFullException(Long topicId) {
+        super("课题容量已满");
+        this.topicId = topicId;
+    }
+
+    public Long getTopicId() {
+        return topicId;
+    }
+}
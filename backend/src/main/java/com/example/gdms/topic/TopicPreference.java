@@ -0,0 +1,20 @@
+package com.example.gdms.topic;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "topic_preferences")
+@Data
+public class TopicPreference {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long roundId;
+    private Long studentId;
+    private Long topicId;
+    private Integer rankNo; // 1 为第一志愿
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,22 @@
+package com.example.gdms.topic;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TopicPreferenceRepository extends JpaRepository<TopicPreference, Long> {
+    List<TopicPreference> findByRoundIdAndStudentIdOrderByRankNoAsc(Long roundId, Long studentId);
+
+    List<TopicPreference> findByRoundIdAndTopicIdOrderByCreatedAtAsc(Long roundId, Long topicId);
+
+    @Modifying
+    @Query("delete from TopicPreference p where p.roundId = :roundId and p.studentId = :studentId")
+    void deleteByRoundIdAndStudentId(@Param("roundId") Long roundId, @Param("studentId") Long studentId);
+
+    // 返回 [studentId, topicId]，按学生、志愿顺序排列
+    @Query("select p.studentId, p.topicId from TopicPreference p where p.roundId = :roundId order by p.studentId, p.rankNo")
+    List<Object[]> findPairsByRound(@Param("roundId") Long roundId);
+}
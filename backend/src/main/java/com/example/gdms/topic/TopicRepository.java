@@ -1,11 +1,29 @@
 package com.example.gdms.topic;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface TopicRepository extends JpaRepository<Topic, Long>, JpaSpecificationExecutor<Topic> {
     List<Topic> findByCreatorId(Long creatorId);
-}
 
+    // 锁住课题行，并发修改容量时依次读取旧容量，名额差值不会算错
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Topic t where t.id = :id")
+    Optional<Topic> findForUpdate(@Param("id") Long id);
+
+    // 返回 [id, capacity]
+    @Query("select t.id, t.capacity from Topic t")
+    List<Object[]> findAllCapacities();
+
+    @Modifying
+    @Query("update Topic t set t.activeSelectionCount = t.activeSelectionCount + :delta where t.id = :id")
+    int adjustActiveSelectionCount(@Param("id") Long id, @Param("delta") int delta);
+}
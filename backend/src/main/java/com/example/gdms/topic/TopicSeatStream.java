@@ -0,0 +1,244 @@
+package com.example.gdms.topic;
+
+import com.example.gdms.common.DaemonThreadFactory;
+import com.example.gdms.common.ServiceBusyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 课题名额实时推送（SSE）。
+ * <p>
+ * 名额变化只在 {@link SeatReservationEngine} 中标记，定时任务每个周期合并一次，
+ * 把 {"v":版本,"r":{课题ID:剩余名额}} 序列化一次后广播，每个连接每周期最多收到一条消息。
+ * 每个连接有独立的有界队列，同一时刻最多由一个发送线程写出；发送线程池按需扩容，
+ * 个别客户端写阻塞只占住自己的线程。队列满或单次写出超过 send-timeout-ms 的连接直接断开，
+ * 不会反压到选题请求或其他连接。
+ */
+@Component
+public class TopicSeatStream {
+    private final SeatReservationEngine seatEngine;
+    private final ObjectMapper objectMapper;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<Long, Integer> perUser = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor senders;
+    private final int maxConnections;
+    private final int maxPerUser;
+    private final int queueCapacity;
+    private final long timeoutMs;
+    private final long sendTimeoutNanos;
+    private final Counter dropped;
+
+    public TopicSeatStream(
+            SeatReservationEngine seatEngine,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.topic-stream.max-connections:5000}") int maxConnections,
+            @Value("${app.topic-stream.max-per-user:3}") int maxPerUser,
+            @Value("${app.topic-stream.queue-capacity:16}") int queueCapacity,
+            @Value("${app.topic-stream.timeout-ms:1800000}") long timeoutMs,
+            @Value("${app.topic-stream.sender-threads:4}") int senderThreads,
+            @Value("${app.topic-stream.max-sender-threads:64}") int maxSenderThreads,
+            @Value("${app.topic-stream.send-timeout-ms:5000}") long sendTimeoutMs
+    ) {
+        this.seatEngine = seatEngine;
+        this.objectMapper = objectMapper;
+        this.maxConnections = maxConnections;
+        this.maxPerUser = maxPerUser;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        // 不排队：空闲线程不够时新建线程，达到上限说明大量客户端写阻塞，新任务被拒绝
+        this.senders = new ThreadPoolExecutor(senderThreads, Math.max(senderThreads, maxSenderThreads),
+                60L, TimeUnit.SECONDS, new SynchronousQueue<>(), new DaemonThreadFactory("topic-stream-"));
+        Gauge.builder("topic.stream.connections", connections, Set::size).register(meterRegistry);
+        this.dropped = Counter.builder("topic.stream.dropped")
+                .description("因消费过慢被断开的连接数")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter open(Long userId) {
+        if (connections.size() >= maxConnections) {
+            throw new ServiceBusyException("实时连接数已达上限，请稍后重试", 10);
+        }
+        if (perUser.merge(userId, 1, Integer::sum) > maxPerUser) {
+            release(userId);
+            throw new IllegalStateException("同一用户的实时连接过多");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Connection conn = new Connection(userId, emitter);
+        connections.add(conn);
+        emitter.onCompletion(conn::closed);
+        emitter.onTimeout(conn::close);
+        emitter.onError(e -> conn.close());
+        conn.offer(new Message("hello", json(Map.of("v", seatEngine.version())), null));
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.topic-stream.flush-ms:500}")
+    public void flush() {
+        Set<Long> changed = seatEngine.drainChanged();
+        if (changed.isEmpty() || connections.isEmpty()) return;
+        Map<Long, Integer> remaining = new LinkedHashMap<>();
+        for (Long topicId : changed) {
+            remaining.put(topicId, seatEngine.remainingIfLoaded(topicId));
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("v", seatEngine.version());
+        payload.put("r", remaining);
+        broadcast(new Message("seats", json(payload), null));
+    }
+
+    @Scheduled(fixedRateString = "${app.topic-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!connections.isEmpty()) {
+            broadcast(new Message(null, null, "ping"));
+        }
+    }
+
+    /** 断开单次写出超时的连接；阻塞中的发送线程在写出返回后自行结束。 */
+    @Scheduled(fixedDelayString = "${app.topic-stream.flush-ms:500}")
+    public void dropStalled() {
+        long now = System.nanoTime();
+        for (Connection conn : connections) {
+            long since = conn.sendingSince;
+            if (since != 0 && now - since > sendTimeoutNanos) {
+                dropped.increment();
+                conn.closed();
+            }
+        }
+    }
+
+    private void broadcast(Message message) {
+        for (Connection conn : connections) {
+            conn.offer(message);
+        }
+    }
+
+    private String json(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("名额推送消息序列化失败", e);
+        }
+    }
+
+    private void release(Long userId) {
+        perUser.computeIfPresent(userId, (k, n) -> n > 1 ? n - 1 : null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connections.forEach(Connection::close);
+        senders.shutdownNow();
+    }
+
+    /** 已序列化的消息；comment 不为 null 时为注释行（心跳）。每次发送都据此新建事件。 */
+    private record Message(String name, String data, String comment) {
+        SseEmitter.SseEventBuilder toEvent() {
+            return comment != null
+                    ? SseEmitter.event().comment(comment)
+                    : SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    private final class Connection {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Message> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        /** 当前写出开始的时间（nanoTime），未在写出时为 0 */
+        private volatile long sendingSince;
+
+        Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Message message) {
+            if (closed.get()) return;
+            if (!queue.offer(message)) {
+                dropped.increment();
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // 发送线程全部被阻塞的客户端占住，新来的放弃而不是排队等待
+                    scheduled.set(false);
+                    dropped.increment();
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Message message;
+                while (!closed.get() && (message = queue.poll()) != null) {
+                    sendingSince = System.nanoTime();
+                    try {
+                        emitter.send(message.toEvent());
+                    } finally {
+                        sendingSince = 0;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                closed();
+            } finally {
+                scheduled.set(false);
+                if (closed.get()) {
+                    complete();
+                } else if (!queue.isEmpty()) {
+                    // 清空后到 scheduled 复位之间可能有新消息入队
+                    schedule();
+                }
+            }
+        }
+
+        /** 主动断开：没有发送线程在写时直接结束响应，否则由发送线程写完后结束。 */
+        void close() {
+            closed();
+            if (!scheduled.get()) complete();
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (RuntimeException ignored) {
+                // 连接已断开
+            }
+        }
+
+        /** 只移除连接、不触碰响应（complete 会等待进行中的写出），写出阻塞的连接也能立即从广播中摘除。 */
+        void closed() {
+            if (closed.compareAndSet(false, true)) {
+                connections.remove(this);
+                queue.clear();
+                release(userId);
+            }
+        }
+    }
+}
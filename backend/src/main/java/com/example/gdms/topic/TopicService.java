@@ -9,7 +9,6 @@ import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.criteria.Predicate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -17,11 +16,19 @@ public class TopicService {
     private final TopicRepository topicRepository;
     private final TopicApprovalRepository approvalRepository;
     private final StudentSelectionRepository selectionRepository;
+    private final SeatReservationEngine seatEngine;
+    private final TeacherRosterRepository rosterRepository;
+    private final TopicCatalogCache catalogCache;
+    private final TopicWaitlistService waitlistService;
 
-    public TopicService(TopicRepository topicRepository, TopicApprovalRepository approvalRepository, StudentSelectionRepository selectionRepository) {
+    public TopicService(TopicRepository topicRepository, TopicApprovalRepository approvalRepository, StudentSelectionRepository selectionRepository, SeatReservationEngine seatEngine, TeacherRosterRepository rosterRepository, TopicCatalogCache catalogCache, TopicWaitlistService waitlistService) {
         this.topicRepository = topicRepository;
         this.approvalRepository = approvalRepository;
         this.selectionRepository = selectionRepository;
+        this.seatEngine = seatEngine;
+        this.rosterRepository = rosterRepository;
+        this.catalogCache = catalogCache;
+        this.waitlistService = waitlistService;
     }
 
     public List<Topic> list() {
@@ -53,6 +60,23 @@ public class TopicService {
         return topicRepository.findAll(spec, pageable);
     }
 
+    // 以下三个方法走课题目录缓存，供只读接口使用；内部校验仍直接读库
+    public List<Topic> listCatalog() {
+        return catalogCache.list(this::list);
+    }
+
+    public Page<Topic> findCatalogPage(Pageable pageable, String keyword, TopicStatus status, Long creatorId) {
+        return catalogCache.page(pageable, keyword, status, creatorId, () -> findTopics(pageable, keyword, status, creatorId));
+    }
+
+    public Topic getCatalogTopic(Long id) {
+        return catalogCache.topic(id, () -> getById(id));
+    }
+
+    public String catalogEtag() {
+        return catalogCache.etag();
+    }
+
     public List<TopicApproval> approvals(Long topicId) {
         return approvalRepository.findByTopicId(topicId);
     }
@@ -65,11 +89,17 @@ public class TopicService {
         if (t.getCapacity() == null || t.getCapacity() < 1) {
             t.setCapacity(1);
         }
-        return topicRepository.save(t);
+        // 已选人数只由选题流程维护，忽略请求体中的值（为 null 时插入会违反非空约束）
+        t.setActiveSelectionCount(0);
+        Topic saved = topicRepository.save(t);
+        catalogCache.invalidate(saved.getId());
+        return saved;
     }
 
+    @Transactional
     public Topic update(Long id, Topic t) {
-        Topic existing = topicRepository.findById(id).orElseThrow();
+        Topic existing = topicRepository.findForUpdate(id).orElseThrow();
+        int oldCapacity = existing.getCapacity() == null ? 1 : existing.getCapacity();
         if (t.getTitle() != null && !t.getTitle().trim().isEmpty()) {
             existing.setTitle(t.getTitle());
         }
@@ -78,27 +108,27 @@ public class TopicService {
         }
         if (t.getCapacity() != null && t.getCapacity() > 0) {
             existing.setCapacity(t.getCapacity());
+            seatEngine.capacityChanged(id, oldCapacity, t.getCapacity());
         }
+        catalogCache.invalidate(id);
         return topicRepository.save(existing);
     }
 
     @Transactional
     public void delete(Long id) {
         // 检查是否有学生已选择该课题
-        List<StudentSelection> selections = selectionRepository.findByTopicId(id);
-        long activeSelections = selections.stream()
-                .filter(s -> s.getStatus() == StudentSelection.SelectionStatus.SELECTED
-                        || s.getStatus() == StudentSelection.SelectionStatus.LOCKED)
-                .count();
-        if (activeSelections > 0) {
+        if (selectionRepository.countByTopicIdAndStatusIn(id, SeatReservationEngine.ACTIVE_STATUSES) > 0) {
             throw new IllegalStateException("该课题已有学生选择，无法删除");
         }
         topicRepository.deleteById(id);
+        seatEngine.evict(id);
+        catalogCache.invalidate(id);
     }
 
     public Topic submit(Long id) {
         Topic t = topicRepository.findById(id).orElseThrow();
         t.setStatus(TopicStatus.SUBMITTED);
+        catalogCache.invalidate(id);
         return topicRepository.save(t);
     }
 
@@ -112,6 +142,7 @@ public class TopicService {
         approval.setDecision(decision);
         approval.setComment(comment);
         approvalRepository.save(approval);
+        catalogCache.invalidate(topicId);
         return topicRepository.save(t);
     }
 
@@ -120,30 +151,50 @@ public class TopicService {
         if (studentId == null) {
             throw new IllegalArgumentException("缺少学生标识");
         }
-        Topic t = topicRepository.findById(topicId).orElseThrow();
+        // 先在内存中预占名额：名额已满时直接拒绝，不访问数据库；后续任何异常导致回滚都会归还名额
+        seatEngine.reserve(topicId);
         if (selectionRepository.existsByStudentIdAndStatus(studentId, StudentSelection.SelectionStatus.SELECTED)) {
             throw new IllegalStateException("学生已有选题");
         }
-        List<StudentSelection> selections = selectionRepository.findByTopicId(topicId);
-        long active = selections.stream()
-                .filter(s -> s.getStatus() == StudentSelection.SelectionStatus.SELECTED
-                        || s.getStatus() == StudentSelection.SelectionStatus.LOCKED)
-                .count();
-        if (active >= t.getCapacity()) {
-            throw new IllegalStateException("课题容量已满");
-        }
         StudentSelection s = new StudentSelection();
         s.setTopicId(topicId);
         s.setStudentId(studentId);
         s.setStatus(StudentSelection.SelectionStatus.SELECTED);
-        return selectionRepository.save(s);
+        StudentSelection saved = selectionRepository.save(s);
+        topicRepository.adjustActiveSelectionCount(topicId, 1);
+        waitlistService.leaveAll(studentId);
+        return saved;
+    }
+
+    /** 选题；名额已满时登记候补而不是报错，二者返回其一。 */
+    @Transactional
+    public SelectionOutcome selectOrWait(Long topicId, Long studentId) {
+        try {
+            return new SelectionOutcome(select(topicId, studentId), null);
+        } catch (TopicFullException e) {
+            // 预占失败发生在任何写库之前，可以在本事务内继续登记候补
+            return new SelectionOutcome(null, waitlistService.enqueue(topicId, studentId));
+        }
     }
 
     @Transactional
     public StudentSelection lockSelection(Long selectionId) {
         StudentSelection s = selectionRepository.findById(selectionId).orElseThrow();
-        s.setStatus(StudentSelection.SelectionStatus.LOCKED);
-        return selectionRepository.save(s);
+        if (SeatReservationEngine.ACTIVE_STATUSES.contains(s.getStatus())) {
+            if (selectionRepository.transition(selectionId, SeatReservationEngine.ACTIVE_STATUSES,
+                    StudentSelection.SelectionStatus.LOCKED) == 0) {
+                throw new IllegalStateException("选题状态已变化，请刷新后重试");
+            }
+        } else {
+            // 锁定已取消的选题相当于重新占用名额；状态被并发改动时抛出异常，回滚后名额自动归还
+            seatEngine.reserve(s.getTopicId());
+            if (selectionRepository.transition(selectionId, List.of(s.getStatus()),
+                    StudentSelection.SelectionStatus.LOCKED) == 0) {
+                throw new IllegalStateException("选题状态已变化，请刷新后重试");
+            }
+            topicRepository.adjustActiveSelectionCount(s.getTopicId(), 1);
+        }
+        return selectionRepository.findById(selectionId).orElseThrow();
     }
 
     @Transactional
@@ -152,8 +203,15 @@ public class TopicService {
         if (studentId != null && !s.getStudentId().equals(studentId)) {
             throw new IllegalStateException("只能取消自己的选题");
         }
-        s.setStatus(StudentSelection.SelectionStatus.CANCELLED);
-        return selectionRepository.save(s);
+        // 条件更新保证并发取消（或锁定与取消并发）时只有一次真正释放名额
+        boolean released = selectionRepository.transition(selectionId, SeatReservationEngine.ACTIVE_STATUSES,
+                StudentSelection.SelectionStatus.CANCELLED) == 1;
+        // 有候补时名额直接转给队首，已选人数不变
+        if (released && !waitlistService.promoteHead(s.getTopicId())) {
+            seatEngine.release(s.getTopicId());
+            topicRepository.adjustActiveSelectionCount(s.getTopicId(), -1);
+        }
+        return selectionRepository.findById(selectionId).orElseThrow();
     }
 
     public List<StudentSelection> getSelections(Long topicId) {
@@ -176,29 +234,9 @@ public class TopicService {
         return selectionRepository.findByStudentIdAndStatus(studentId, StudentSelection.SelectionStatus.LOCKED);
     }
 
-    public List<Map<String, Object>> getTeacherStudents(Long teacherId) {
-        // 获取教师创建的所有课题
-        List<Topic> teacherTopics = topicRepository.findByCreatorId(teacherId);
-        List<Map<String, Object>> result = new ArrayList<>();
-        
-        for (Topic topic : teacherTopics) {
-            List<StudentSelection> selections = selectionRepository.findByTopicId(topic.getId());
-            for (StudentSelection selection : selections) {
-                if (selection.getStatus() == StudentSelection.SelectionStatus.SELECTED 
-                        || selection.getStatus() == StudentSelection.SelectionStatus.LOCKED) {
-                    Map<String, Object> item = new java.util.HashMap<>();
-                    item.put("studentId", selection.getStudentId());
-                    item.put("topicId", topic.getId());
-                    item.put("topicTitle", topic.getTitle());
-                    item.put("selectionId", selection.getId());
-                    item.put("selectionStatus", selection.getStatus());
-                    item.put("createdAt", selection.getCreatedAt());
-                    result.add(item);
-                }
-            }
-        }
-        
-        return result;
+    public TeacherRosterRepository.RosterPage getTeacherStudents(Long teacherId, Long afterSelectionId, int size) {
+        return rosterRepository.findRoster(teacherId, afterSelectionId, Math.min(Math.max(size, 1), 200));
     }
-}
 
+    public record SelectionOutcome(StudentSelection selection, TopicWaitlistService.WaitlistPosition waitlist) {}
+}
@@ -0,0 +1,29 @@
+package com.example.gdms.topic;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 满员课题的候补登记。同一课题按 id 先到先得，有人取消时队首在同一事务中转为选题。
+ */
+@Entity
+@Table(name = "topic_waitlist")
+@Data
+public class TopicWaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long topicId;
+    private Long studentId;
+    @Enumerated(EnumType.STRING)
+    private WaitStatus status = WaitStatus.WAITING;
+    private Long selectionId; // 转正后生成的选题记录
+    private LocalDateTime createdAt = LocalDateTime.now();
+    private LocalDateTime updatedAt;
+
+    public enum WaitStatus {
+        WAITING, PROMOTED, LEFT
+    }
+}
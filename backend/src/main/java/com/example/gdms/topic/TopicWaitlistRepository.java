@@ -0,0 +1,38 @@
+package com.example.gdms.topic;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface TopicWaitlistRepository extends JpaRepository<TopicWaitlistEntry, Long> {
+    // 锁住队首，并发取消同一课题时依次转正不同的候补
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<TopicWaitlistEntry> findFirstByTopicIdAndStatusOrderByIdAsc(Long topicId, TopicWaitlistEntry.WaitStatus status);
+
+    Optional<TopicWaitlistEntry> findFirstByTopicIdAndStudentIdAndStatus(Long topicId, Long studentId, TopicWaitlistEntry.WaitStatus status);
+
+    List<TopicWaitlistEntry> findByStudentIdAndStatusOrderByIdAsc(Long studentId, TopicWaitlistEntry.WaitStatus status);
+
+    long countByStudentIdAndStatus(Long studentId, TopicWaitlistEntry.WaitStatus status);
+
+    // 排在该条目之前（含自身）的候补人数，走 (topic_id, status, id) 索引的范围计数
+    long countByTopicIdAndStatusAndIdLessThanEqual(Long topicId, TopicWaitlistEntry.WaitStatus status, Long id);
+
+    @Query("select distinct w.topicId from TopicWaitlistEntry w where w.status = :status")
+    List<Long> findTopicIdsByStatus(@Param("status") TopicWaitlistEntry.WaitStatus status);
+
+    // 学生已有选题后撤下其所有候补
+    @Modifying
+    @Query("update TopicWaitlistEntry w set w.status = :to, w.updatedAt = :now where w.studentId = :studentId and w.status = :from")
+    int updateStatusByStudent(@Param("studentId") Long studentId,
+                              @Param("from") TopicWaitlistEntry.WaitStatus from,
+                              @Param("to") TopicWaitlistEntry.WaitStatus to,
+                              @Param("now") LocalDateTime now);
+}
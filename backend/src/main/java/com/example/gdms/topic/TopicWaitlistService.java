@@ -0,0 +1,179 @@
+package com.example.gdms.topic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 满员课题的先到先得候补队列。
+ * <p>
+ * 选题遇到名额已满时登记候补；有效选题被取消时，在取消的同一事务中锁住队首并直接为其生成选题记录，
+ * 名额原样转让，不经过释放再抢占。学生只需查询自己的候补位置，无需反复重试选题。
+ */
+@Service
+public class TopicWaitlistService {
+    private static final Logger log = LoggerFactory.getLogger(TopicWaitlistService.class);
+    // 队首学生已在别处选上时跳过，单次转正最多跳过的条数
+    private static final int MAX_SKIPS = 20;
+
+    private final TopicWaitlistRepository waitlistRepository;
+    private final StudentSelectionRepository selectionRepository;
+    private final TopicRepository topicRepository;
+    private final SeatReservationEngine seatEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPerStudent;
+
+    public TopicWaitlistService(TopicWaitlistRepository waitlistRepository,
+                                StudentSelectionRepository selectionRepository,
+                                TopicRepository topicRepository,
+                                SeatReservationEngine seatEngine,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.topic-waitlist.max-per-student:3}") int maxPerStudent) {
+        this.waitlistRepository = waitlistRepository;
+        this.selectionRepository = selectionRepository;
+        this.topicRepository = topicRepository;
+        this.seatEngine = seatEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPerStudent = maxPerStudent;
+    }
+
+    /** 登记候补；重复登记同一课题返回原有位置。 */
+    @Transactional
+    public WaitlistPosition enqueue(Long topicId, Long studentId) {
+        if (selectionRepository.existsByStudentIdAndStatusIn(studentId, SeatReservationEngine.ACTIVE_STATUSES)) {
+            throw new IllegalStateException("学生已有选题");
+        }
+        Optional<TopicWaitlistEntry> existing = waitlistRepository.findFirstByTopicIdAndStudentIdAndStatus(
+                topicId, studentId, TopicWaitlistEntry.WaitStatus.WAITING);
+        if (existing.isPresent()) {
+            return position(existing.get());
+        }
+        if (waitlistRepository.countByStudentIdAndStatus(studentId, TopicWaitlistEntry.WaitStatus.WAITING) >= maxPerStudent) {
+            throw new IllegalStateException("最多同时候补 " + maxPerStudent + " 个课题");
+        }
+        TopicWaitlistEntry entry = new TopicWaitlistEntry();
+        entry.setTopicId(topicId);
+        entry.setStudentId(studentId);
+        return position(waitlistRepository.save(entry));
+    }
+
+    public List<WaitlistPosition> myWaitlist(Long studentId) {
+        return waitlistRepository.findByStudentIdAndStatusOrderByIdAsc(studentId, TopicWaitlistEntry.WaitStatus.WAITING)
+                .stream().map(this::position).toList();
+    }
+
+    public WaitlistPosition get(Long entryId, Long studentId) {
+        return position(owned(entryId, studentId));
+    }
+
+    @Transactional
+    public void leave(Long entryId, Long studentId) {
+        TopicWaitlistEntry entry = owned(entryId, studentId);
+        if (entry.getStatus() == TopicWaitlistEntry.WaitStatus.WAITING) {
+            entry.setStatus(TopicWaitlistEntry.WaitStatus.LEFT);
+            entry.setUpdatedAt(LocalDateTime.now());
+            waitlistRepository.save(entry);
+        }
+    }
+
+    /** 学生通过其他途径选上课题后撤下其全部候补，须在选题事务内调用。 */
+    public void leaveAll(Long studentId) {
+        waitlistRepository.updateStatusByStudent(studentId, TopicWaitlistEntry.WaitStatus.WAITING,
+                TopicWaitlistEntry.WaitStatus.LEFT, LocalDateTime.now());
+    }
+
+    /**
+     * 把一个已占用的名额转给队首候补，须在调用方事务内调用。
+     *
+     * @return 转让成功返回 true；队列为空时返回 false，由调用方自行释放名额
+     */
+    public boolean promoteHead(Long topicId) {
+        for (int i = 0; i < MAX_SKIPS; i++) {
+            Optional<TopicWaitlistEntry> head = waitlistRepository.findFirstByTopicIdAndStatusOrderByIdAsc(
+                    topicId, TopicWaitlistEntry.WaitStatus.WAITING);
+            if (head.isEmpty()) {
+                return false;
+            }
+            TopicWaitlistEntry entry = head.get();
+            LocalDateTime now = LocalDateTime.now();
+            if (selectionRepository.existsByStudentIdAndStatusIn(entry.getStudentId(), SeatReservationEngine.ACTIVE_STATUSES)) {
+                entry.setStatus(TopicWaitlistEntry.WaitStatus.LEFT);
+                entry.setUpdatedAt(now);
+                waitlistRepository.save(entry);
+                continue;
+            }
+            StudentSelection s = new StudentSelection();
+            s.setTopicId(topicId);
+            s.setStudentId(entry.getStudentId());
+            s.setStatus(StudentSelection.SelectionStatus.SELECTED);
+            selectionRepository.save(s);
+            entry.setStatus(TopicWaitlistEntry.WaitStatus.PROMOTED);
+            entry.setSelectionId(s.getId());
+            entry.setUpdatedAt(now);
+            waitlistRepository.save(entry);
+            leaveAll(entry.getStudentId());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 兜底：取消在候补登记之前提交、或课题扩容时，名额空出而队列未被处理，定期为这类课题补做转正。
+     */
+    @Scheduled(initialDelayString = "${app.topic-waitlist.sweep-ms:30000}",
+            fixedDelayString = "${app.topic-waitlist.sweep-ms:30000}")
+    public void sweep() {
+        int promoted = 0;
+        for (Long topicId : waitlistRepository.findTopicIdsByStatus(TopicWaitlistEntry.WaitStatus.WAITING)) {
+            try {
+                while (seatEngine.remaining(topicId) > 0 && Boolean.TRUE.equals(transactionTemplate.execute(tx -> {
+                    seatEngine.reserve(topicId);
+                    if (!promoteHead(topicId)) {
+                        // 回滚时预占的名额自动归还
+                        tx.setRollbackOnly();
+                        return false;
+                    }
+                    topicRepository.adjustActiveSelectionCount(topicId, 1);
+                    return true;
+                }))) {
+                    promoted++;
+                }
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                // 名额被并发抢走或课题已删除，留到下一轮
+                log.debug("课题 {} 候补转正跳过：{}", topicId, e.getMessage());
+            }
+        }
+        if (promoted > 0) {
+            log.info("候补巡检转正 {} 人", promoted);
+        }
+    }
+
+    private TopicWaitlistEntry owned(Long entryId, Long studentId) {
+        TopicWaitlistEntry entry = waitlistRepository.findById(entryId)
+                .orElseThrow(() -> new IllegalArgumentException("候补记录不存在"));
+        if (!entry.getStudentId().equals(studentId)) {
+            throw new IllegalStateException("只能查看自己的候补");
+        }
+        return entry;
+    }
+
+    private WaitlistPosition position(TopicWaitlistEntry entry) {
+        long position = entry.getStatus() == TopicWaitlistEntry.WaitStatus.WAITING
+                ? waitlistRepository.countByTopicIdAndStatusAndIdLessThanEqual(
+                        entry.getTopicId(), TopicWaitlistEntry.WaitStatus.WAITING, entry.getId())
+                : 0;
+        return new WaitlistPosition(entry.getId(), entry.getTopicId(), entry.getStatus(), position, entry.getSelectionId());
+    }
+
+    /** position 从 1 开始，非候补状态为 0。 */
+    public record WaitlistPosition(Long id, Long topicId, TopicWaitlistEntry.WaitStatus status, long position, Long selectionId) {}
+}
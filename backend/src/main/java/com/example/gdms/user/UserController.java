@@ -1,15 +1,19 @@
 package com.example.gdms.user;
 
 import com.example.gdms.common.ApiResponse;
+import com.example.gdms.common.ImportReport;
+import com.example.gdms.security.CurrentUser;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -17,10 +21,12 @@ import java.util.List;
 public class UserController {
     private final UserService userService;
     private final UserRepository userRepository;
+    private final UserImportService userImportService;
 
-    public UserController(UserService userService, UserRepository userRepository) {
+    public UserController(UserService userService, UserRepository userRepository, UserImportService userImportService) {
         this.userService = userService;
         this.userRepository = userRepository;
+        this.userImportService = userImportService;
     }
 
     @GetMapping
@@ -47,14 +53,22 @@ public class UserController {
         return ApiResponse.ok(userRepository.findById(id).orElseThrow());
     }
 
-    @PostMapping("/import")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAnyRole('ADMIN')")
-    public ApiResponse<List<User>> importUsers(@RequestBody List<UserImportRequest> users) {
-        return ApiResponse.ok(
-                users.stream()
-                        .map(u -> userService.createUser(u.username(), u.password(), u.role(), u.fullName()))
-                        .toList()
-        );
+    public ApiResponse<ImportReport> importUsers(@RequestBody List<UserImportRequest> users) {
+        return ApiResponse.ok(userImportService.submit(users));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ApiResponse<ImportReport> importFile(@RequestParam("file") MultipartFile file) throws IOException {
+        return ApiResponse.ok(userImportService.submit(file));
+    }
+
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ApiResponse<ImportReport> importStatus(@PathVariable String jobId) {
+        return ApiResponse.ok(userImportService.getReport(jobId));
     }
 
     @PostMapping("/batch-role")
@@ -106,16 +120,16 @@ public class UserController {
     }
 
     @GetMapping("/profile/me")
-    public ApiResponse<User> profile(Authentication authentication) {
-        return ApiResponse.ok(userService.getByUsername(authentication.getName()));
+    public ApiResponse<User> profile(CurrentUser user) {
+        return ApiResponse.ok(userRepository.findById(user.id()).orElseThrow());
     }
 
     @PutMapping("/profile/me")
-    public ApiResponse<User> updateProfile(@RequestBody UserUpdateRequest req, Authentication authentication) {
-        return ApiResponse.ok(userService.updateProfile(authentication.getName(), req));
+    public ApiResponse<User> updateProfile(@RequestBody UserUpdateRequest req, CurrentUser user) {
+        return ApiResponse.ok(userService.updateProfile(user.username(), req));
     }
 
-    public record UserImportRequest(String username, String password, String role, String fullName) {}
+    public record UserImportRequest(String username, String password, String role, String fullName, Long orgId, String phone) {}
 
     public record UserCreateRequest(String username, String password, String role, String fullName, String phone, String signatureUrl, Long orgId, Boolean enabled) {}
     public record UserUpdateRequest(String fullName, String phone, String signatureUrl, String role, Long orgId, Boolean enabled) {}
@@ -0,0 +1,375 @@
+package com.example.gdms.user;
+
+import com.example.gdms.common.CsvReader;
+import com.example.gdms.common.DaemonThreadFactory;
+import com.example.gdms.common.ImportReport;
+import com.example.gdms.common.ServiceBusyException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量导入用户：后台任务逐块读取上传文件，一次集合查询预检用户名，多核并行计算 BCrypt，
+ * 再用 JDBC 批量插入。进度与逐行错误通过 {@link ImportReport} 轮询获取。
+ */
+@Service
+public class UserImportService {
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+    private static final Set<String> ROLES = Set.of("ADMIN", "TEACHER", "STUDENT", "STAFF");
+    private static final List<String> DEFAULT_COLUMNS = List.of("username", "password", "role", "fullname", "orgid", "phone");
+    private static final String INSERT_SQL = "INSERT INTO users (username, password, full_name, role, org_id, enabled, created_at, phone) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final ThreadPoolExecutor jobExecutor;
+    private final ExecutorService hashPool;
+    private final Cache<String, ImportReport> reports = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofHours(2))
+            .build();
+
+    public UserImportService(
+            UserRepository userRepository,
+            PasswordEncoder passwordEncoder,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            @Value("${app.user-import.chunk-size:500}") int chunkSize,
+            @Value("${app.user-import.hash-threads:0}") int hashThreads,
+            @Value("${app.user-import.max-pending-jobs:4}") int maxPendingJobs
+    ) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.jobExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxPendingJobs), new DaemonThreadFactory("user-import-"));
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        this.hashPool = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("user-import-hash-"));
+    }
+
+    /** 上传的 CSV / JSON 文件先落到临时文件，请求结束后由后台任务流式读取。 */
+    public ImportReport submit(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("导入文件不能为空");
+        }
+        String name = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase(Locale.ROOT);
+        boolean json = name.endsWith(".json")
+                || (file.getContentType() != null && file.getContentType().contains("json"));
+        Path tmp = Files.createTempFile("user-import-", json ? ".json" : ".csv");
+        file.transferTo(tmp);
+        try {
+            return submit(() -> openFile(tmp, json));
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    private RowSource openFile(Path tmp, boolean json) throws IOException {
+        RowSource source;
+        try {
+            InputStream in = Files.newInputStream(tmp);
+            source = json ? jsonRows(in) : csvRows(in);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return new RowSource() {
+            @Override
+            public ImportRow next() throws IOException {
+                return source.next();
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    source.close();
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+        };
+    }
+
+    public ImportReport submit(List<UserController.UserImportRequest> users) {
+        if (users == null || users.isEmpty()) {
+            throw new IllegalArgumentException("导入列表不能为空");
+        }
+        List<UserController.UserImportRequest> copy = List.copyOf(users);
+        return submit(() -> {
+            Iterator<UserController.UserImportRequest> it = copy.iterator();
+            AtomicInteger row = new AtomicInteger();
+            return new RowSource() {
+                @Override
+                public ImportRow next() {
+                    return it.hasNext() ? new ImportRow(row.incrementAndGet(), it.next(), null) : null;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        });
+    }
+
+    public ImportReport getReport(String id) {
+        ImportReport report = reports.getIfPresent(id);
+        if (report == null) {
+            throw new IllegalArgumentException("导入任务不存在或已过期");
+        }
+        return report;
+    }
+
+    private ImportReport submit(Callable<RowSource> opener) {
+        ImportReport report = new ImportReport("users");
+        reports.put(report.getId(), report);
+        try {
+            jobExecutor.execute(() -> run(report, opener));
+        } catch (RejectedExecutionException e) {
+            reports.invalidate(report.getId());
+            throw new ServiceBusyException("导入任务排队已满，请稍后重试", 30);
+        }
+        return report;
+    }
+
+    private void run(ImportReport report, Callable<RowSource> opener) {
+        report.start();
+        Set<String> seen = new HashSet<>();
+        try (RowSource source = opener.call()) {
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            ImportRow row;
+            while ((row = source.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    processChunk(report, chunk, seen);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(report, chunk, seen);
+            }
+            report.succeed();
+        } catch (Exception e) {
+            log.warn("用户导入任务 {} 失败", report.getId(), e);
+            report.fail(e.getMessage());
+        }
+    }
+
+    private void processChunk(ImportReport report, List<ImportRow> chunk, Set<String> seen) {
+        List<ImportRow> valid = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            String error = row.error() != null ? row.error() : validate(row.request());
+            if (error != null) {
+                report.rowFailed(row.row(), error);
+            } else if (!seen.add(usernameKey(row))) {
+                report.rowFailed(row.row(), "文件中用户名重复：" + row.request().username().trim());
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) return;
+
+        // 一次集合查询预检已存在的用户名；数据库排序规则不区分大小写，比较前统一转小写
+        Set<String> existing = new HashSet<>();
+        for (String username : userRepository.findExistingUsernames(
+                valid.stream().map(r -> r.request().username().trim()).toList())) {
+            existing.add(username.toLowerCase(Locale.ROOT));
+        }
+        List<ImportRow> fresh = new ArrayList<>(valid.size());
+        for (ImportRow row : valid) {
+            if (existing.contains(usernameKey(row))) {
+                report.rowFailed(row.row(), "用户名已存在：" + row.request().username().trim());
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) return;
+
+        // BCrypt 是 CPU 密集操作，按核数并行计算
+        List<CompletableFuture<String>> hashes = fresh.stream()
+                .map(r -> CompletableFuture.supplyAsync(() -> passwordEncoder.encode(r.request().password()), hashPool))
+                .toList();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<PreparedUser> users = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            users.add(new PreparedUser(fresh.get(i), hashes.get(i).join(), now));
+        }
+        insert(report, users);
+    }
+
+    private void insert(ImportReport report, List<PreparedUser> users) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, users, users.size(), UserImportService::bind));
+            report.rowsSucceeded(users.size());
+        } catch (DataAccessException e) {
+            // 整块已回滚（如预检之后被并发写入了同名用户、组织不存在、字段超长），逐行重试以定位出错的行
+            for (PreparedUser u : users) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, u));
+                    report.rowsSucceeded(1);
+                } catch (DuplicateKeyException ex) {
+                    report.rowFailed(u.row().row(), "用户名已存在：" + u.row().request().username().trim());
+                } catch (DataAccessException ex) {
+                    report.rowFailed(u.row().row(), "写入失败：" + NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+                }
+            }
+        }
+    }
+
+    /** 用户名去重键，与 MySQL 不区分大小写的排序规则保持一致。 */
+    private static String usernameKey(ImportRow row) {
+        return row.request().username().trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void bind(PreparedStatement ps, PreparedUser u) throws SQLException {
+        UserController.UserImportRequest r = u.row().request();
+        ps.setString(1, r.username().trim());
+        ps.setString(2, u.passwordHash());
+        ps.setString(3, r.fullName());
+        ps.setString(4, r.role().trim().toUpperCase(Locale.ROOT));
+        if (r.orgId() != null) {
+            ps.setLong(5, r.orgId());
+        } else {
+            ps.setNull(5, Types.BIGINT);
+        }
+        ps.setBoolean(6, true);
+        ps.setTimestamp(7, u.createdAt());
+        ps.setString(8, r.phone());
+    }
+
+    private static String validate(UserController.UserImportRequest r) {
+        if (r == null) return "空记录";
+        if (r.username() == null || r.username().isBlank()) return "用户名不能为空";
+        if (r.username().trim().length() > 255) return "用户名过长";
+        if (r.password() == null || r.password().isBlank()) return "密码不能为空";
+        if (r.role() == null || !ROLES.contains(r.role().trim().toUpperCase(Locale.ROOT))) {
+            return "角色无效：" + r.role();
+        }
+        return null;
+    }
+
+    private RowSource csvRows(InputStream in) {
+        CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return new RowSource() {
+            private List<String> columns;
+
+            @Override
+            public ImportRow next() throws IOException {
+                List<String> record;
+                do {
+                    record = reader.next();
+                    if (record == null) return null;
+                } while (CsvReader.isBlank(record));
+                if (columns == null) {
+                    // 首行包含 username 列时视为表头，否则按 用户名,密码,角色,姓名,组织ID,电话 的顺序解析
+                    List<String> header = record.stream()
+                            .map(h -> h.trim().replace("_", "").toLowerCase(Locale.ROOT))
+                            .toList();
+                    if (header.contains("username")) {
+                        columns = header;
+                        return next();
+                    }
+                    columns = DEFAULT_COLUMNS;
+                }
+                return toRow(reader.getRecordLine(), record);
+            }
+
+            private ImportRow toRow(long line, List<String> record) {
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < record.size() && i < columns.size(); i++) {
+                    String v = record.get(i).trim();
+                    values.put(columns.get(i), v.isEmpty() ? null : v);
+                }
+                Long orgId = null;
+                String org = values.get("orgid");
+                if (org != null) {
+                    try {
+                        orgId = Long.valueOf(org);
+                    } catch (NumberFormatException e) {
+                        return new ImportRow(line, null, "组织ID格式错误：" + org);
+                    }
+                }
+                return new ImportRow(line, new UserController.UserImportRequest(
+                        values.get("username"), values.get("password"), values.get("role"),
+                        values.get("fullname"), orgId, values.get("phone")), null);
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    private RowSource jsonRows(InputStream in) throws IOException {
+        MappingIterator<UserController.UserImportRequest> it = objectMapper
+                .readerFor(UserController.UserImportRequest.class)
+                .readValues(in);
+        return new RowSource() {
+            private long row;
+
+            @Override
+            public ImportRow next() throws IOException {
+                if (!it.hasNextValue()) return null;
+                return new ImportRow(++row, it.nextValue(), null);
+            }
+
+            @Override
+            public void close() throws IOException {
+                it.close();
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        hashPool.shutdownNow();
+    }
+
+    private interface RowSource extends Closeable {
+        ImportRow next() throws IOException;
+    }
+
+    private record ImportRow(long row, UserController.UserImportRequest request, String error) {}
+
+    private record PreparedUser(ImportRow row, String passwordHash, Timestamp createdAt) {}
+}
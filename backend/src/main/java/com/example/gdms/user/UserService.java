@@ -1,5 +1,7 @@
 package com.example.gdms.user;
 
+import com.example.gdms.security.AuthUser;
+import com.example.gdms.security.PrincipalCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -20,10 +22,12 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
     }
 
     public User createUser(String username, String rawPassword, String role, String fullName) {
@@ -52,20 +56,26 @@ public class UserService implements UserDetailsService {
         if (req.role() != null) u.setRole(req.role());
         if (req.orgId() != null) u.setOrgId(req.orgId());
         if (req.enabled() != null) u.setEnabled(req.enabled());
-        return userRepository.save(u);
+        User saved = userRepository.save(u);
+        principalCache.bumpVersion(saved.getUsername());
+        return saved;
     }
 
     public User setEnabled(Long id, boolean enabled) {
         User u = userRepository.findById(id).orElseThrow();
         u.setEnabled(enabled);
-        return userRepository.save(u);
+        User saved = userRepository.save(u);
+        principalCache.bumpVersion(saved.getUsername());
+        return saved;
     }
 
     public User resetPassword(Long id, String rawPassword) {
         User u = userRepository.findById(id).orElseThrow();
         // 使用密码编码器加密密码
         u.setPassword(passwordEncoder.encode(rawPassword));
-        return userRepository.save(u);
+        User saved = userRepository.save(u);
+        principalCache.bumpVersion(saved.getUsername());
+        return saved;
     }
 
     public User getByUsername(String username) {
@@ -77,18 +87,24 @@ public class UserService implements UserDetailsService {
         if (req.fullName() != null) u.setFullName(req.fullName());
         if (req.phone() != null) u.setPhone(req.phone());
         if (req.signatureUrl() != null) u.setSignatureUrl(req.signatureUrl());
-        return userRepository.save(u);
+        User saved = userRepository.save(u);
+        // AuthUser 携带 fullName，需让缓存的主体失效
+        principalCache.bumpVersion(saved.getUsername());
+        return saved;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        return new org.springframework.security.core.userdetails.User(
+        return new AuthUser(
+                user.getId(),
                 user.getUsername(),
                 user.getPassword(),
                 user.getEnabled() != null && user.getEnabled(),
-                true, true, true,
+                user.getRole(),
+                user.getOrgId(),
+                user.getFullName(),
                 List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()))
         );
     }
@@ -98,6 +114,7 @@ public class UserService implements UserDetailsService {
         List<User> users = userRepository.findAllById(userIds);
         users.forEach(u -> u.setRole(role));
         userRepository.saveAll(users);
+        users.forEach(u -> principalCache.bumpVersion(u.getUsername()));
     }
 
     public Page<User> findUsers(Pageable pageable, String keyword, String role, Long orgId, Boolean enabled) {
@@ -132,10 +149,10 @@ public class UserService implements UserDetailsService {
 
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new IllegalArgumentException("用户不存在");
-        }
-        userRepository.deleteById(id);
+        User u = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
+        userRepository.delete(u);
+        principalCache.bumpVersion(u.getUsername());
     }
 
     @Transactional
@@ -143,7 +160,9 @@ public class UserService implements UserDetailsService {
         if (userIds == null || userIds.isEmpty()) {
             throw new IllegalArgumentException("用户ID列表不能为空");
         }
-        userRepository.deleteAllById(userIds);
+        List<User> users = userRepository.findAllById(userIds);
+        userRepository.deleteAll(users);
+        users.forEach(u -> principalCache.bumpVersion(u.getUsername()));
     }
 }
 
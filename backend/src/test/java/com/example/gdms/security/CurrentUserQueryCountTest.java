@@ -0,0 +1,95 @@
+package com.example.gdms.security;
+
+import com.example.gdms.user.User;
+import com.example.gdms.user.UserRepository;
+import com.example.gdms.user.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * 每个请求解析当前用户时不应再查询 users 表：过滤器经主体缓存加载一次，控制器参数直接取自认证信息。
+ */
+class CurrentUserQueryCountTest {
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private UserRepository userRepository;
+    private JwtAuthFilter filter;
+    private JwtUtil jwtUtil;
+    private final CurrentUserArgumentResolver resolver = new CurrentUserArgumentResolver();
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("teacher1");
+        user.setPassword("{noop}secret");
+        user.setRole("TEACHER");
+        user.setOrgId(3L);
+        user.setFullName("张老师");
+        user.setEnabled(true);
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("teacher1")).thenReturn(Optional.of(user));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PrincipalCache principalCache = new PrincipalCache(100, 60, registry);
+        UserService userService = new UserService(userRepository, mock(PasswordEncoder.class), principalCache);
+        jwtUtil = new JwtUtil(SECRET, 3600, 100, registry);
+        filter = new JwtAuthFilter(jwtUtil, userService, principalCache);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void resolvesCurrentUserWithoutRepeatedLookups() throws Exception {
+        String token = jwtUtil.generateToken("teacher1", Map.of("role", "TEACHER"));
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/defense/reviews");
+            request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+            CurrentUser[] resolved = new CurrentUser[2];
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                // 同一请求内多个参数/多次解析
+                ServletWebRequest webRequest = new ServletWebRequest(request);
+                resolved[0] = (CurrentUser) resolver.resolveArgument(null, null, webRequest, null);
+                resolved[1] = (CurrentUser) resolver.resolveArgument(null, null, webRequest, null);
+            });
+            SecurityContextHolder.clearContext();
+
+            assertThat(resolved[0]).isNotNull();
+            assertThat(resolved[0].id()).isEqualTo(7L);
+            assertThat(resolved[0].orgId()).isEqualTo(3L);
+            assertThat(resolved[0].isTeacher()).isTrue();
+            assertThat(resolved[1]).isSameAs(resolved[0]);
+        }
+        // 五个请求只在首次加载主体时查询一次
+        verify(userRepository, times(1)).findByUsername("teacher1");
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void unauthenticatedRequestResolvesToNull() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/topics");
+        CurrentUser[] resolved = new CurrentUser[1];
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) ->
+                resolved[0] = (CurrentUser) resolver.resolveArgument(null, null, new ServletWebRequest(request), null));
+
+        assertThat(resolved[0]).isNull();
+        verifyNoInteractions(userRepository);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.gdms.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比令牌解析的三种方式：每次新建解析器（改造前的做法）、复用解析器但每次验签、命中已验签缓存。
+ * 运行：先 mvn test-compile，再以测试 classpath 执行本类的 main 方法。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private JwtUtil cached;
+    private JwtUtil uncached;
+    private SecretKey key;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtUtil(SECRET, 3600, 4096, new SimpleMeterRegistry());
+        // 缓存容量为 0 时每次都走完整验签
+        uncached = new JwtUtil(SECRET, 3600, 0, new SimpleMeterRegistry());
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        token = cached.generateToken("teacher1", Map.of("role", "TEACHER", "uid", 7L));
+        cached.parse(token);
+    }
+
+    /** 基线：每次调用都构建解析器再验签。 */
+    @Benchmark
+    public Claims parseWithNewParser() {
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims parseCached() {
+        return cached.parse(token);
+    }
+
+    @Benchmark
+    public Claims parseUncached() {
+        return uncached.parse(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.gdms.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTest {
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Test
+    void cachedClaimsAreNotSharedBetweenCallers() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3600, 100, new SimpleMeterRegistry());
+        String token = jwtUtil.generateToken("teacher1", Map.of("role", "TEACHER"));
+
+        Claims first = jwtUtil.parse(token);
+        first.put("role", "ADMIN");
+        first.setSubject("admin");
+        Claims second = jwtUtil.parse(token);
+        second.put("role", "ADMIN");
+        Claims third = jwtUtil.parse(token);
+
+        assertThat(third).isNotSameAs(second);
+        assertThat(third.getSubject()).isEqualTo("teacher1");
+        assertThat(third.get("role")).isEqualTo("TEACHER");
+    }
+}
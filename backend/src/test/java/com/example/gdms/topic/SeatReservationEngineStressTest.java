@@ -0,0 +1,117 @@
+package com.example.gdms.topic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 并发抢占名额的压力测试：大量线程同时对少量课题预占（含首次访问时的并发加载），
+ * 任何课题的成功预占数都不能超过容量。
+ */
+class SeatReservationEngineStressTest {
+    private static final int TOPICS = 8;
+    private static final int CAPACITY = 5;
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 200;
+
+    @Test
+    void concurrentReservationsNeverOverfillTopics() throws Exception {
+        TopicRepository topicRepository = mock(TopicRepository.class);
+        StudentSelectionRepository selectionRepository = mock(StudentSelectionRepository.class);
+        when(topicRepository.findById(anyLong())).thenAnswer(inv -> {
+            Topic t = new Topic();
+            t.setId(inv.getArgument(0));
+            t.setCapacity(CAPACITY);
+            // 放大加载窗口，让多个线程同时走到 putIfAbsent
+            Thread.sleep(2);
+            return Optional.of(t);
+        });
+        when(selectionRepository.countByTopicIdAndStatusIn(anyLong(), any())).thenReturn(0L);
+        SeatReservationEngine engine = new SeatReservationEngine(topicRepository, selectionRepository);
+
+        AtomicInteger[] granted = new AtomicInteger[TOPICS + 1];
+        for (int i = 1; i <= TOPICS; i++) granted[i] = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int n = 0; n < THREADS; n++) {
+            int seed = n;
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    long topicId = 1 + (seed + i) % TOPICS;
+                    int count = random.nextInt(4) == 0 ? 2 : 1;
+                    try {
+                        engine.reserve(topicId, count);
+                        granted[(int) topicId].addAndGet(count);
+                    } catch (TopicFullException ignored) {
+                        // 名额已满
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        for (long topicId = 1; topicId <= TOPICS; topicId++) {
+            int taken = granted[(int) topicId].get();
+            assertThat(taken).as("课题 %d 已占名额", topicId).isLessThanOrEqualTo(CAPACITY);
+            assertThat(engine.remainingIfLoaded(topicId)).isEqualTo(CAPACITY - taken);
+            assertThat(engine.remainingIfLoaded(topicId)).isGreaterThanOrEqualTo(0);
+        }
+    }
+
+    @Test
+    void releasedSeatsCanBeReservedAgainWithoutOverfill() throws Exception {
+        TopicRepository topicRepository = mock(TopicRepository.class);
+        StudentSelectionRepository selectionRepository = mock(StudentSelectionRepository.class);
+        Topic topic = new Topic();
+        topic.setId(1L);
+        topic.setCapacity(CAPACITY);
+        when(topicRepository.findById(1L)).thenReturn(Optional.of(topic));
+        when(selectionRepository.countByTopicIdAndStatusIn(anyLong(), any())).thenReturn(0L);
+        SeatReservationEngine engine = new SeatReservationEngine(topicRepository, selectionRepository);
+
+        AtomicInteger held = new AtomicInteger();
+        AtomicInteger maxHeld = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int n = 0; n < THREADS; n++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        engine.reserve(1L);
+                    } catch (TopicFullException e) {
+                        continue;
+                    }
+                    maxHeld.accumulateAndGet(held.incrementAndGet(), Math::max);
+                    // 模拟选题后取消
+                    held.decrementAndGet();
+                    engine.release(1L);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertThat(maxHeld.get()).isLessThanOrEqualTo(CAPACITY);
+        assertThat(engine.remaining(1L)).isEqualTo(CAPACITY);
+    }
+}
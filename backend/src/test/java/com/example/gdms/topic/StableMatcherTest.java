@@ -0,0 +1,103 @@
+package com.example.gdms.topic;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class StableMatcherTest {
+
+    @Test
+    void matchingRespectsCapacityAndIsStable() {
+        Instance in = Instance.random(500, 60, 8, 0.3, 42L);
+        int[] match = StableMatcher.match(in.prefs, in.capacity, in.ranked, in.rankOf, in.lottery);
+
+        int[] filled = new int[in.capacity.length];
+        for (int s = 0; s < match.length; s++) {
+            if (match[s] >= 0) {
+                assertThat(in.prefs[s]).contains(match[s]);
+                filled[match[s]]++;
+            }
+        }
+        for (int t = 0; t < filled.length; t++) {
+            assertThat(filled[t]).isLessThanOrEqualTo(in.capacity[t]);
+        }
+        // 不存在阻塞对：学生更想去的课题要么已满且录取的人都更优先，要么没有名额
+        for (int s = 0; s < match.length; s++) {
+            for (int t : in.prefs[s]) {
+                if (t == match[s]) break;
+                if (in.capacity[t] <= 0) continue;
+                assertThat(filled[t]).as("学生 %d 更想去的课题 %d 仍有空位", s, t).isEqualTo(in.capacity[t]);
+                for (int other = 0; other < match.length; other++) {
+                    if (match[other] == t) {
+                        assertThat(in.priority(t, other)).as("课题 %d 录取了优先级更低的学生 %d", t, other)
+                                .isLessThan(in.priority(t, s));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void tenThousandStudentsAndTwoThousandTopicsFinishInSeconds() {
+        Instance in = Instance.random(10_000, 2_000, 10, 0.2, 7L);
+        int[] match = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> StableMatcher.match(in.prefs, in.capacity, in.ranked, in.rankOf, in.lottery));
+        assertThat(Arrays.stream(match).filter(t -> t >= 0).count()).isPositive();
+    }
+
+    /** 随机生成的分配实例：志愿偏向热门课题，部分课题由教师对部分申请者排序。 */
+    static final class Instance {
+        int[][] prefs;
+        int[] capacity;
+        int[][] ranked;
+        int[][] rankOf;
+        int[] lottery;
+
+        static Instance random(int students, int topics, int prefsPerStudent, double rankedShare, long seed) {
+            Random random = new Random(seed);
+            Instance in = new Instance();
+            in.prefs = new int[students][];
+            for (int s = 0; s < students; s++) {
+                int[] p = random.ints(0, topics)
+                        .map(t -> random.nextInt(4) == 0 ? t % Math.max(1, topics / 20) : t)
+                        .distinct().limit(prefsPerStudent).toArray();
+                in.prefs[s] = p;
+            }
+            in.capacity = new int[topics];
+            for (int t = 0; t < topics; t++) in.capacity[t] = 1 + random.nextInt(6);
+            in.ranked = new int[topics][];
+            in.rankOf = new int[topics][];
+            for (int t = 0; t < topics; t++) {
+                if (random.nextDouble() >= rankedShare) continue;
+                int[] chosen = random.ints(0, students).distinct().limit(20).sorted().toArray();
+                in.ranked[t] = chosen;
+                in.rankOf[t] = new int[chosen.length];
+                for (int i = 0; i < chosen.length; i++) in.rankOf[t][i] = 1 + random.nextInt(chosen.length);
+            }
+            in.lottery = new int[students];
+            for (int i = 0; i < students; i++) in.lottery[i] = i;
+            for (int i = students - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = in.lottery[i];
+                in.lottery[i] = in.lottery[j];
+                in.lottery[j] = tmp;
+            }
+            return in;
+        }
+
+        /** 与 StableMatcher 一致的优先级键，越小越优先。 */
+        long priority(int t, int s) {
+            long rank = Integer.MAX_VALUE;
+            if (ranked[t] != null) {
+                int i = Arrays.binarySearch(ranked[t], s);
+                if (i >= 0) rank = rankOf[t][i];
+            }
+            return (rank << 32) | lottery[s];
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.gdms.topic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * 同一选题被并发重复取消、或锁定与取消并发时，名额只能释放一次。
+ * 仓库的条件更新用一个 compareAndSet 模拟数据库行锁下的 where 判断。
+ */
+class TopicSelectionCancelConcurrencyTest {
+    private static final long SELECTION_ID = 7L;
+    private static final long TOPIC_ID = 3L;
+    private static final long STUDENT_ID = 42L;
+    private static final int THREADS = 16;
+
+    private final TopicRepository topicRepository = mock(TopicRepository.class);
+    private final StudentSelectionRepository selectionRepository = mock(StudentSelectionRepository.class);
+    private final SeatReservationEngine seatEngine = mock(SeatReservationEngine.class);
+    private final TopicWaitlistService waitlistService = mock(TopicWaitlistService.class);
+    private final AtomicReference<StudentSelection.SelectionStatus> status =
+            new AtomicReference<>(StudentSelection.SelectionStatus.SELECTED);
+    private final TopicService service = new TopicService(topicRepository, mock(TopicApprovalRepository.class),
+            selectionRepository, seatEngine, mock(TeacherRosterRepository.class), mock(TopicCatalogCache.class),
+            waitlistService);
+
+    private void stubSelection() {
+        when(selectionRepository.findById(SELECTION_ID)).thenAnswer(inv -> {
+            StudentSelection s = new StudentSelection();
+            s.setId(SELECTION_ID);
+            s.setTopicId(TOPIC_ID);
+            s.setStudentId(STUDENT_ID);
+            s.setStatus(status.get());
+            return Optional.of(s);
+        });
+        when(selectionRepository.transition(eq(SELECTION_ID), any(), any())).thenAnswer(inv -> {
+            Collection<StudentSelection.SelectionStatus> from = inv.getArgument(1);
+            StudentSelection.SelectionStatus to = inv.getArgument(2);
+            StudentSelection.SelectionStatus current = status.get();
+            return from.contains(current) && status.compareAndSet(current, to) ? 1 : 0;
+        });
+    }
+
+    @Test
+    void concurrentCancelsReleaseSeatOnce() throws Exception {
+        stubSelection();
+        when(waitlistService.promoteHead(anyLong())).thenReturn(false);
+
+        runConcurrently(() -> service.cancelSelection(SELECTION_ID, STUDENT_ID));
+
+        assertThat(status.get()).isEqualTo(StudentSelection.SelectionStatus.CANCELLED);
+        verify(waitlistService, times(1)).promoteHead(TOPIC_ID);
+        verify(seatEngine, times(1)).release(TOPIC_ID);
+        verify(topicRepository, times(1)).adjustActiveSelectionCount(TOPIC_ID, -1);
+    }
+
+    @Test
+    void concurrentCancelsPromoteWaitlistOnce() throws Exception {
+        stubSelection();
+        when(waitlistService.promoteHead(anyLong())).thenReturn(true);
+
+        runConcurrently(() -> service.cancelSelection(SELECTION_ID, STUDENT_ID));
+
+        verify(waitlistService, times(1)).promoteHead(TOPIC_ID);
+        verify(seatEngine, never()).release(anyLong());
+        verify(topicRepository, never()).adjustActiveSelectionCount(anyLong(), anyInt());
+    }
+
+    @Test
+    void lockRacingCancelReleasesAtMostOnce() throws Exception {
+        stubSelection();
+        when(waitlistService.promoteHead(anyLong())).thenReturn(false);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?> lock = pool.submit(() -> {
+            start.await();
+            try {
+                service.lockSelection(SELECTION_ID);
+            } catch (IllegalStateException ignored) {
+                // 取消先生效
+            }
+            return null;
+        });
+        Future<?> cancel = pool.submit(() -> {
+            start.await();
+            return service.cancelSelection(SELECTION_ID, STUDENT_ID);
+        });
+        start.countDown();
+        lock.get(10, TimeUnit.SECONDS);
+        cancel.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        // 无论先后，只有一次从占用状态转为取消，名额只释放一次；取消在前时锁定会重新占用
+        verify(seatEngine, times(1)).release(TOPIC_ID);
+        verify(topicRepository, times(1)).adjustActiveSelectionCount(TOPIC_ID, -1);
+        if (status.get() == StudentSelection.SelectionStatus.LOCKED) {
+            verify(seatEngine, times(1)).reserve(TOPIC_ID);
+            verify(topicRepository, times(1)).adjustActiveSelectionCount(TOPIC_ID, 1);
+        } else {
+            assertThat(status.get()).isEqualTo(StudentSelection.SelectionStatus.CANCELLED);
+            verify(topicRepository, never()).adjustActiveSelectionCount(TOPIC_ID, 1);
+        }
+    }
+
+    private void runConcurrently(Callable<?> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+    }
+}
@@ -7,13 +7,27 @@ DROP TABLE IF EXISTS `announcement_reads`;
 DROP TABLE IF EXISTS `announcements`;
 DROP TABLE IF EXISTS `application_logs`;
 DROP TABLE IF EXISTS `applications`;
+DROP TABLE IF EXISTS `final_grade`;
+DROP TABLE IF EXISTS `grade_formula`;
+DROP TABLE IF EXISTS `grade_aggregate`;
 DROP TABLE IF EXISTS `defense_score`;
+DROP TABLE IF EXISTS `defense_session_student`;
+DROP TABLE IF EXISTS `defense_session_examiner`;
+DROP TABLE IF EXISTS `defense_session`;
+DROP TABLE IF EXISTS `defense_schedule`;
+DROP TABLE IF EXISTS `teacher_unavailability`;
+DROP TABLE IF EXISTS `defense_slot`;
+DROP TABLE IF EXISTS `defense_room`;
 DROP TABLE IF EXISTS `review_assignment`;
 DROP TABLE IF EXISTS `group_member`;
 DROP TABLE IF EXISTS `defense_group`;
 DROP TABLE IF EXISTS `stage_review`;
 DROP TABLE IF EXISTS `stage_task`;
 DROP TABLE IF EXISTS `stage_config`;
+DROP TABLE IF EXISTS `topic_applicant_ranks`;
+DROP TABLE IF EXISTS `topic_preferences`;
+DROP TABLE IF EXISTS `allocation_rounds`;
+DROP TABLE IF EXISTS `topic_waitlist`;
 DROP TABLE IF EXISTS `student_selections`;
 DROP TABLE IF EXISTS `topic_approvals`;
 DROP TABLE IF EXISTS `topics`;
@@ -94,6 +108,7 @@ CREATE TABLE `topics` (
   `description` TEXT,
   `creator_id` BIGINT,
   `capacity` INT DEFAULT 1,
+  `active_selection_count` INT NOT NULL DEFAULT 0,
   `status` VARCHAR(50) DEFAULT 'DRAFT',
   `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (`id`),
@@ -123,10 +138,63 @@ CREATE TABLE `student_selections` (
   `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (`id`),
   KEY `idx_student_id` (`student_id`),
-  KEY `idx_topic_id` (`topic_id`),
+  KEY `idx_topic_status` (`topic_id`, `status`),
+  KEY `idx_student_status` (`student_id`, `status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建课题候补表
+CREATE TABLE `topic_waitlist` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `topic_id` BIGINT NOT NULL,
+  `student_id` BIGINT NOT NULL,
+  `status` VARCHAR(50) DEFAULT 'WAITING',
+  `selection_id` BIGINT,
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME,
+  PRIMARY KEY (`id`),
+  KEY `idx_topic_status_id` (`topic_id`, `status`, `id`),
   KEY `idx_student_status` (`student_id`, `status`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- 创建志愿分配轮次表
+CREATE TABLE `allocation_rounds` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `name` VARCHAR(255),
+  `start_at` DATETIME,
+  `end_at` DATETIME,
+  `status` VARCHAR(50) DEFAULT 'OPEN',
+  `matched_count` INT,
+  `unmatched_count` INT,
+  `allocated_at` DATETIME,
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建学生志愿表
+CREATE TABLE `topic_preferences` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `round_id` BIGINT NOT NULL,
+  `student_id` BIGINT NOT NULL,
+  `topic_id` BIGINT NOT NULL,
+  `rank_no` INT NOT NULL,
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_round_student_topic` (`round_id`, `student_id`, `topic_id`),
+  KEY `idx_round_student_rank` (`round_id`, `student_id`, `rank_no`),
+  KEY `idx_round_topic` (`round_id`, `topic_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建教师申请者排序表
+CREATE TABLE `topic_applicant_ranks` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `round_id` BIGINT NOT NULL,
+  `topic_id` BIGINT NOT NULL,
+  `student_id` BIGINT NOT NULL,
+  `rank_no` INT NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_round_topic_student` (`round_id`, `topic_id`, `student_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 -- 创建阶段配置表
 CREATE TABLE `stage_config` (
   `id` BIGINT NOT NULL AUTO_INCREMENT,
@@ -151,7 +219,7 @@ CREATE TABLE `stage_task` (
   `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   PRIMARY KEY (`id`),
   KEY `idx_stage_id` (`stage_id`),
-  KEY `idx_student_id` (`student_id`),
+  KEY `idx_student_stage` (`student_id`, `stage_id`),
   KEY `idx_status` (`status`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
@@ -202,6 +270,7 @@ CREATE TABLE `defense_group` (
   `name` VARCHAR(255),
   `type` VARCHAR(50),
   `capacity` INT DEFAULT 8,
+  `member_count` INT NOT NULL DEFAULT 0,
   `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (`id`),
   KEY `idx_type` (`type`)
@@ -215,7 +284,89 @@ CREATE TABLE `group_member` (
   `topic_id` BIGINT,
   PRIMARY KEY (`id`),
   KEY `idx_group_id` (`group_id`),
-  KEY `idx_student_id` (`student_id`)
+  UNIQUE KEY `uk_student_id` (`student_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建答辩考场表
+CREATE TABLE `defense_room` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `name` VARCHAR(255) NOT NULL,
+  `location` VARCHAR(255),
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建答辩时段表
+CREATE TABLE `defense_slot` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `start_at` DATETIME NOT NULL,
+  `end_at` DATETIME NOT NULL,
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `idx_start_at` (`start_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建教师不可用时段表
+CREATE TABLE `teacher_unavailability` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `teacher_id` BIGINT NOT NULL,
+  `slot_id` BIGINT NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_teacher_slot` (`teacher_id`, `slot_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建答辩排程表
+CREATE TABLE `defense_schedule` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `type` VARCHAR(50),
+  `panel_size` INT,
+  `group_count` INT,
+  `hard_violations` BIGINT,
+  `soft_cost` BIGINT,
+  `elapsed_ms` BIGINT,
+  `status` VARCHAR(20),
+  `message` VARCHAR(255),
+  `created_by` BIGINT,
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `idx_type` (`type`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建答辩场次表（每个分组一场）
+CREATE TABLE `defense_session` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `schedule_id` BIGINT NOT NULL,
+  `group_id` BIGINT NOT NULL,
+  `room_id` BIGINT NOT NULL,
+  `slot_id` BIGINT NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_schedule_group` (`schedule_id`, `group_id`),
+  UNIQUE KEY `uk_schedule_room_slot` (`schedule_id`, `room_id`, `slot_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建答辩教师安排表（按教师查询）
+CREATE TABLE `defense_session_examiner` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `schedule_id` BIGINT NOT NULL,
+  `teacher_id` BIGINT NOT NULL,
+  `group_id` BIGINT NOT NULL,
+  `room_id` BIGINT NOT NULL,
+  `slot_id` BIGINT NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_schedule_teacher` (`schedule_id`, `teacher_id`),
+  KEY `idx_schedule_group` (`schedule_id`, `group_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建学生答辩安排表（按学生查询）
+CREATE TABLE `defense_session_student` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `schedule_id` BIGINT NOT NULL,
+  `student_id` BIGINT NOT NULL,
+  `group_id` BIGINT NOT NULL,
+  `room_id` BIGINT NOT NULL,
+  `slot_id` BIGINT NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_schedule_student` (`schedule_id`, `student_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- 创建评阅任务表
@@ -245,10 +396,62 @@ CREATE TABLE `defense_score` (
   `score` DOUBLE,
   `comment` TEXT,
   PRIMARY KEY (`id`),
-  KEY `idx_group_id` (`group_id`),
+  UNIQUE KEY `uk_group_student` (`group_id`, `student_id`),
   KEY `idx_student_id` (`student_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- 创建答辩成绩汇总表（录入成绩时增量维护）
+CREATE TABLE `grade_aggregate` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `student_id` BIGINT NOT NULL,
+  `type` VARCHAR(50) NOT NULL DEFAULT '',
+  `group_id` BIGINT,
+  `org_id` BIGINT,
+  `score_sum` DOUBLE NOT NULL DEFAULT 0,
+  `score_count` INT NOT NULL DEFAULT 0,
+  `score_min` DOUBLE,
+  `score_max` DOUBLE,
+  `updated_at` DATETIME,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_student_type` (`student_id`, `type`),
+  KEY `idx_type_org` (`type`, `org_id`),
+  KEY `idx_group_id` (`group_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建最终成绩计算公式表
+CREATE TABLE `grade_formula` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `org_id` BIGINT,
+  `name` VARCHAR(100),
+  `advisor_weight` DOUBLE NOT NULL DEFAULT 0,
+  `cross_weight` DOUBLE NOT NULL DEFAULT 0,
+  `opening_weight` DOUBLE NOT NULL DEFAULT 0,
+  `defense_weight` DOUBLE NOT NULL DEFAULT 0,
+  `version` INT NOT NULL DEFAULT 1,
+  `updated_at` DATETIME,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_org_id` (`org_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 创建最终成绩表
+CREATE TABLE `final_grade` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `student_id` BIGINT NOT NULL,
+  `org_id` BIGINT,
+  `formula_id` BIGINT,
+  `formula_version` INT,
+  `advisor_score` DOUBLE,
+  `cross_score` DOUBLE,
+  `opening_score` DOUBLE,
+  `defense_score` DOUBLE,
+  `final_score` DOUBLE,
+  `complete` BOOLEAN NOT NULL DEFAULT FALSE,
+  `computed_at` DATETIME,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_student_id` (`student_id`),
+  KEY `idx_org_id` (`org_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 -- 插入初始数据
 
 -- 插入组织数据
@@ -299,11 +502,11 @@ INSERT INTO `stage_config` (`id`, `name`, `order_index`, `active`, `start_at`, `
 (3, '答辩前准备', 3, TRUE, '2024-07-01 00:00:00', '2024-08-31 23:59:59');
 
 -- 插入示例课题数据
-INSERT INTO `topics` (`id`, `title`, `description`, `creator_id`, `capacity`, `status`, `created_at`) VALUES
-(1, '基于Spring Boot的毕业设计管理系统', '开发一个完整的毕业设计管理系统', 2, 3, 'APPROVED', NOW()),
-(2, '基于Vue.js的前端框架研究', '研究Vue.js框架的核心原理和应用', 2, 2, 'APPROVED', NOW()),
-(3, '机器学习在数据分析中的应用', '研究机器学习算法在数据分析中的实际应用', 3, 2, 'SUBMITTED', NOW()),
-(4, '分布式系统设计与实现', '设计并实现一个分布式系统', 3, 1, 'DRAFT', NOW());
+INSERT INTO `topics` (`id`, `title`, `description`, `creator_id`, `capacity`, `active_selection_count`, `status`, `created_at`) VALUES
+(1, '基于Spring Boot的毕业设计管理系统', '开发一个完整的毕业设计管理系统', 2, 3, 2, 'APPROVED', NOW()),
+(2, '基于Vue.js的前端框架研究', '研究Vue.js框架的核心原理和应用', 2, 2, 1, 'APPROVED', NOW()),
+(3, '机器学习在数据分析中的应用', '研究机器学习算法在数据分析中的实际应用', 3, 2, 0, 'SUBMITTED', NOW()),
+(4, '分布式系统设计与实现', '设计并实现一个分布式系统', 3, 1, 0, 'DRAFT', NOW());
 
 -- 插入示例选题数据
 INSERT INTO `student_selections` (`id`, `student_id`, `topic_id`, `status`, `created_at`) VALUES
@@ -324,10 +527,10 @@ INSERT INTO `announcement_reads` (`id`, `announcement_id`, `user_id`, `read_at`)
 (3, 2, 5, NOW());
 
 -- 插入示例答辩分组数据
-INSERT INTO `defense_group` (`id`, `name`, `type`, `capacity`, `created_at`) VALUES
-(1, '第一答辩组', 'FINAL', 8, NOW()),
-(2, '第二答辩组', 'FINAL', 8, NOW()),
-(3, '开题答辩组', 'OPENING', 6, NOW());
+INSERT INTO `defense_group` (`id`, `name`, `type`, `capacity`, `member_count`, `created_at`) VALUES
+(1, '第一答辩组', 'FINAL', 8, 2, NOW()),
+(2, '第二答辩组', 'FINAL', 8, 1, NOW()),
+(3, '开题答辩组', 'OPENING', 6, 0, NOW());
 
 -- 插入示例分组成员数据
 INSERT INTO `group_member` (`id`, `group_id`, `student_id`, `topic_id`) VALUES
@@ -346,6 +549,15 @@ INSERT INTO `defense_score` (`id`, `group_id`, `student_id`, `score`, `comment`)
 (1, 1, 5, 88.5, '表现优秀'),
 (2, 1, 6, 85.0, '表现良好');
 
+-- 插入默认最终成绩公式：指导评阅 30%，交叉评阅 20%，毕业答辩 50%
+INSERT INTO `grade_formula` (`id`, `org_id`, `name`, `advisor_weight`, `cross_weight`, `opening_weight`, `defense_weight`, `version`, `updated_at`) VALUES
+(1, NULL, '默认公式', 30, 20, 0, 50, 1, NOW());
+
+-- 插入与示例成绩对应的汇总数据
+INSERT INTO `grade_aggregate` (`student_id`, `type`, `group_id`, `org_id`, `score_sum`, `score_count`, `score_min`, `score_max`, `updated_at`) VALUES
+(5, 'FINAL', 1, 2, 88.5, 1, 88.5, 88.5, NOW()),
+(6, 'FINAL', 1, 2, 85.0, 1, 85.0, 85.0, NOW());
+
 -- 插入示例申请数据
 INSERT INTO `applications` (`id`, `type`, `student_id`, `topic_id`, `status`, `payload`, `created_at`) VALUES
 (1, 'EXTERNAL', 5, 1, 'SUBMITTED', '申请在校外完成毕业设计', NOW()),